@@ -0,0 +1,30 @@
+package server;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+
+/**
+ * Startpunkt für gradle :jmh:jmh und benchmarks.jar: wie org.openjdk.jmh.Main, aber immer mit GC-Profiler
+ * (gc.alloc.rate.norm = allozierte Bytes pro Operation). Hilfe und Listen (-h, -l, -lp, ...) gehen direkt an JMH.
+ */
+public final class BenchmarkMain {
+
+    private static final List<String> INFO_OPTIONS = List.of("-h", "-l", "-lp", "-lprof", "-lrf");
+
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws Exception {
+        for (String a : args) {
+            if (INFO_OPTIONS.contains(a)) {
+                org.openjdk.jmh.Main.main(args);
+                return;
+            }
+        }
+        CommandLineOptions cli = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(cli).addProfiler(GCProfiler.class).build()).run();
+    }
+}
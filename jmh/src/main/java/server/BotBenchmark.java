@@ -0,0 +1,52 @@
+package server;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BotPlayer.pickMove je Stufe auf leerem Brett und nach vier Zügen, für 3x3 und 4x4x4 (dort wird CLASSIC/PERFECT
+ * wie im Server zum Such-Bot HARD). HARD läuft ab 4x4 meist bis an sein Zeitlimit, misst dort also vor allem das.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BotBenchmark {
+
+    @Param({"CLASSIC", "PERFECT", "EASY", "MEDIUM", "HARD"})
+    public String level;
+
+    @Param({"3x3x3", "4x4x4"})
+    public String variant;
+
+    private BotPlayer bot;
+    private BoardGame empty;
+    private BoardGame opened;
+
+    @Setup
+    public void setup() {
+        GameVariant v = GameVariant.parse(variant);
+        bot = BotPlayer.forLevel(level, v, 15);
+        empty = v.createGame();
+        opened = v.createGame();
+        int mr = v.rows / 2;
+        int mc = v.cols / 2;
+        opened.makeMove(mr, mc, 'X');
+        opened.makeMove(0, 0, 'O');
+        opened.makeMove(mr, mc + 1, 'X');
+        opened.makeMove(mr, mc - 1, 'O');
+    }
+
+    @Benchmark
+    public int emptyBoard() {
+        return bot.pickMove(empty, 'X');
+    }
+
+    @Benchmark
+    public int afterFourMoves() {
+        return bot.pickMove(opened, 'X');
+    }
+}
@@ -0,0 +1,61 @@
+package server;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spielkern 3x3: komplette Partie über makeMove (inkl. ungültiger Züge), checkWinner und snapshot auf einer
+ * Stellung mitten im Spiel. makeMove/checkWinner sollen allokationsfrei bleiben, snapshot() alloziert das Array.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    // Züge einer Partie (row, col), X gewinnt mit dem 7. Zug über die Diagonale
+    private static final int[] GAME = {1, 1, 0, 1, 0, 0, 2, 2, 2, 0, 1, 0, 0, 2};
+
+    private TicTacToeGame midGame;
+
+    @Setup
+    public void setup() {
+        midGame = new TicTacToeGame();
+        midGame.makeMove(1, 1, 'X');
+        midGame.makeMove(0, 0, 'O');
+        midGame.makeMove(2, 2, 'X');
+        midGame.makeMove(0, 2, 'O');
+    }
+
+    @Benchmark
+    public char playGame() {
+        TicTacToeGame g = new TicTacToeGame();
+        char p = 'X';
+        for (int i = 0; i < GAME.length; i += 2) {
+            if (g.makeMove(GAME[i], GAME[i + 1], p)) p = (p == 'X') ? 'O' : 'X';
+            // besetztes Feld und falscher Spieler werden abgelehnt
+            g.makeMove(GAME[i], GAME[i + 1], p);
+            if (g.checkWinner() != ' ') break;
+        }
+        return g.checkWinner();
+    }
+
+    @Benchmark
+    public boolean makeMoveOnCopy() {
+        return midGame.copy().makeMove(0, 1, 'X');
+    }
+
+    @Benchmark
+    public char checkWinner() {
+        return midGame.checkWinner();
+    }
+
+    @Benchmark
+    public void snapshot(Blackhole bh) {
+        bh.consume(midGame.snapshot());
+    }
+}
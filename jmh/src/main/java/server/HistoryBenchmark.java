@@ -0,0 +1,131 @@
+package server;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Messprogramm für MatchHistoryStore: erzeugt eine match_history.csv mit N Zeilen (Standard 1.000.000) in einem
+ * Temp-Ordner, lässt sie vom Store in Segmente importieren und vergleicht Abfragen über den Index mit dem
+ * früheren Vollscan der CSV (jede Zeile lesen und prüfen).
+ * Aufruf: java -cp jmh/build/libs/benchmarks.jar server.HistoryBenchmark [zeilen] [spieler]
+ */
+public class HistoryBenchmark {
+
+    private static final DateTimeFormatter TS = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        Path dir = Files.createTempDirectory("history-bench");
+        Path csv = dir.resolve("match_history.csv");
+
+        long t0 = System.nanoTime();
+        generate(csv, rows, players);
+        System.out.printf("[HistoryBenchmark] %d Zeilen, %d Spieler, %d MB erzeugt in %d ms%n",
+                rows, players, Files.size(csv) >> 20, ms(t0));
+
+        t0 = System.nanoTime();
+        MatchHistoryStore store = new MatchHistoryStore(dir);
+        System.out.printf("[HistoryBenchmark] Import + Index in %d ms, Segmente %d MB%n", ms(t0), segmentBytes(dir) >> 20);
+        t0 = System.nanoTime();
+        store = new MatchHistoryStore(dir);
+        System.out.printf("[HistoryBenchmark] Index geladen in %d ms%n", ms(t0));
+
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        String[][] queries = {
+                {"ein Spieler", "player42", "", ""},
+                {"ein Spieler + Monat", "player42", start.plusDays(60).toString(), start.plusDays(90).toString()},
+                {"ein Tag", "", start.plusDays(100).toString(), start.plusDays(100).toString()},
+                {"eine Woche", "", start.plusDays(200).toString(), start.plusDays(206).toString()},
+                {"Teilstring '4711'", "4711", "", ""},
+        };
+        System.out.printf("%-22s %8s %12s %12s%n", "Abfrage", "Treffer", "Index ms", "Scan ms");
+        for (String[] q : queries) {
+            // je einmal warmlaufen, dann Mittel über 5 Läufe
+            List<String> hits = store.query(q[1], q[2], q[3]);
+            List<String> expected = scan(csv, q[1], q[2], q[3]);
+            if (!hits.equals(expected)) throw new IllegalStateException("Index und Scan unterschiedlich: " + q[0]);
+            long idx = time(store, q);
+            long sc = 0;
+            for (int i = 0; i < 5; i++) {
+                long s = System.nanoTime();
+                scan(csv, q[1], q[2], q[3]);
+                sc += System.nanoTime() - s;
+            }
+            System.out.printf("%-22s %8d %12.2f %12.2f%n", q[0], hits.size(), idx / 5 / 1e6, sc / 5 / 1e6);
+        }
+
+        try (var files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    private static long segmentBytes(Path dir) throws IOException {
+        try (var files = Files.list(dir.resolve("history"))) {
+            long sum = 0;
+            for (Path p : files.filter(f -> f.toString().matches(".*\\.segz?$")).toList()) sum += Files.size(p);
+            return sum;
+        }
+    }
+
+    private static long time(MatchHistoryStore store, String[] q) {
+        long sum = 0;
+        for (int i = 0; i < 5; i++) {
+            long s = System.nanoTime();
+            store.query(q[1], q[2], q[3]);
+            sum += System.nanoTime() - s;
+        }
+        return sum;
+    }
+
+    private static long ms(long since) {
+        return (System.nanoTime() - since) / 1_000_000;
+    }
+
+    // ca. 2700 Spiele pro Tag ab 2025-01-01, aufsteigende Zeitstempel wie im Betrieb
+    static void generate(Path csv, int rows, int players) throws IOException {
+        Random rnd = new Random(42);
+        LocalDateTime ts = LocalDateTime.of(2025, 1, 1, 0, 0);
+        try (BufferedWriter w = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                ts = ts.plusSeconds(1 + rnd.nextInt(60));
+                int x = rnd.nextInt(players);
+                int o = rnd.nextInt(players - 1);
+                if (o >= x) o++;
+                w.write(ts.format(TS) + ";player" + x + ";player" + o + ";" + "XOD".charAt(rnd.nextInt(3))
+                        + ";0:0:X,1:1:O,0:1:X,2:2:O,0:2:X");
+                w.newLine();
+            }
+        }
+    }
+
+    // alter Vollscan (MatchHistoryStore vor dem Index) als Vergleich
+    private static List<String> scan(Path csv, String playerFilter, String from, String to) throws IOException {
+        LocalDate fromD = from.isBlank() ? null : LocalDate.parse(from);
+        LocalDate toD = to.isBlank() ? null : LocalDate.parse(to);
+        String pf = playerFilter.trim().toLowerCase(Locale.ROOT);
+        List<String> out = new ArrayList<>();
+        try (BufferedReader br = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] p = line.split(";", -1);
+                if (p.length < 5) continue;
+                if (!pf.isEmpty() && !(p[1].toLowerCase(Locale.ROOT).contains(pf) || p[2].toLowerCase(Locale.ROOT).contains(pf))) continue;
+                LocalDate d;
+                try {
+                    d = LocalDateTime.parse(p[0], TS).toLocalDate();
+                } catch (Exception e) {
+                    d = null;
+                }
+                if (fromD != null && d != null && d.isBefore(fromD)) continue;
+                if (toD != null && d != null && d.isAfter(toD)) continue;
+                out.add(line);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,68 @@
+package server;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MatchHistoryStore.query über 10.000 bzw. 1.000.000 Partien (Daten wie HistoryBenchmark: 5.000 Spieler,
+ * ca. 2700 Partien pro Tag ab 2025-01-01): ein Spieler, ein Spieler in einem Monat, ein einzelner Tag.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoryQueryBenchmark {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private Path dir;
+    private MatchHistoryStore store;
+    private String monthFrom;
+    private String monthTo;
+    private String day;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("history-query-bench");
+        HistoryBenchmark.generate(dir.resolve("match_history.csv"), rows, 5_000);
+        store = new MatchHistoryStore(dir);
+        // Zeiträume innerhalb der erzeugten Daten (10.000 Zeilen reichen knapp 4 Tage)
+        int days = Math.max(1, rows / 2700);
+        monthFrom = START.plusDays(days / 4).toString();
+        monthTo = START.plusDays(Math.min(days, days / 4 + 30)).toString();
+        day = START.plusDays(days / 2).toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    @Benchmark
+    public void player(Blackhole bh) {
+        bh.consume(store.query("player42", "", ""));
+    }
+
+    @Benchmark
+    public void playerInMonth(Blackhole bh) {
+        bh.consume(store.query("player42", monthFrom, monthTo));
+    }
+
+    @Benchmark
+    public void day(Blackhole bh) {
+        bh.consume(store.query("", day, day));
+    }
+}
@@ -0,0 +1,60 @@
+package server;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ausgangsseite: VALID_MOVE/TURN (3x3 und 15x15) und CHAT als fertige Bytes, einmal wie früher per '+' und
+ * getBytes() und einmal über MessageEncoder (3x3 aus den vorkodierten Konstanten). Angaben pro Nachricht.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageEncodeBenchmark {
+
+    // Brettgröße nur für die Zug-Nachrichten
+    @State(Scope.Thread)
+    public static class Board {
+        @Param({"3", "15"})
+        public int size;
+
+        int next;
+    }
+
+    @Benchmark
+    public void moveConcat(Board b, Blackhole bh) {
+        int i = b.next++;
+        int r = i % b.size;
+        int c = (i / b.size) % b.size;
+        char sym = (i & 1) == 0 ? 'X' : 'O';
+        bh.consume((Protocol.SRV_VALID_MOVE + Protocol.SEPARATOR + r + Protocol.SEPARATOR + c + Protocol.SEPARATOR + sym
+                + "\n").getBytes(Protocol.CHARSET));
+        bh.consume((Protocol.SRV_TURN + Protocol.SEPARATOR + (sym == 'X' ? 'O' : 'X') + "\n").getBytes(Protocol.CHARSET));
+    }
+
+    @Benchmark
+    public void moveEncoder(Board b, Blackhole bh) {
+        int i = b.next++;
+        int r = i % b.size;
+        int c = (i / b.size) % b.size;
+        char sym = (i & 1) == 0 ? 'X' : 'O';
+        bh.consume(MessageEncoder.validMove(r, c, sym));
+        bh.consume(MessageEncoder.turn(sym == 'X' ? 'O' : 'X'));
+    }
+
+    @Benchmark
+    public byte[] chatConcat() {
+        return (Protocol.SRV_CHAT + Protocol.SEPARATOR + "spieler7" + Protocol.SEPARATOR + "gg, nächste Runde?" + "\n")
+                .getBytes(Protocol.CHARSET);
+    }
+
+    @Benchmark
+    public byte[] chatEncoder() {
+        return MessageEncoder.local().begin(Protocol.SRV_CHAT).field("spieler7").field("gg, nächste Runde?").toLine();
+    }
+}
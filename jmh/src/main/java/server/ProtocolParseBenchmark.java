@@ -0,0 +1,120 @@
+package server;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eingangsseite des Protokolls wie in ClientHandler.run()/handleLine(): Zeilen zerlegen, nach Befehl verzweigen
+ * und Zahlen parsen (ohne die eigentliche Verarbeitung). *Split ist der frühere Weg über split(SEPARATOR, -1),
+ * *View der heutige über eine wiederverwendete ProtocolLine; readAnd* lesen die Zeilen zusätzlich wie im
+ * Socket-Modus über einen BufferedReader. Gemischte Befehle, überwiegend MOVE; Angaben pro Zeile.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolParseBenchmark {
+
+    private static final int LINES = 1024;
+
+    private static final String[] MIX = {
+            "MOVE;1;2", "MOVE;0;0", "MOVE;2;1", "MOVE;1;1", "CHAT;gg, nächste Runde?", "LIST",
+            "SCORES", "SPAGE;20;20", "HISTORY;player42;2025-01-01;2025-01-31;50;-1", "LOGIN;spieler7",
+            "SETTINGS;BOT;15;HARD;7x7x4", "MOVE;0;2", "SPECTATE;S-17", "MOVE;2;2", "REMATCH", "MOVE;0;1"
+    };
+
+    private byte[] stream;
+    private String[] lines;
+    private final ProtocolLine view = new ProtocolLine();
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        lines = new String[LINES];
+        for (int i = 0; i < LINES; i++) {
+            lines[i] = MIX[i % MIX.length];
+            sb.append(lines[i]).append('\n');
+        }
+        stream = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void split(Blackhole bh) {
+        for (String line : lines) dispatchSplit(line, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void view(Blackhole bh) {
+        for (String line : lines) dispatchView(line, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void readAndSplit(Blackhole bh) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(stream)));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!line.isBlank()) dispatchSplit(line, bh);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void readAndView(Blackhole bh) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(stream)));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!line.isBlank()) dispatchView(line, bh);
+        }
+    }
+
+    private static void dispatchSplit(String line, Blackhole bh) {
+        String[] parts = line.split(Protocol.SEPARATOR, -1);
+        switch (parts[0]) {
+            case Protocol.CMD_MOVE -> {
+                bh.consume(Integer.parseInt(parts[1].trim()));
+                bh.consume(Integer.parseInt(parts[2].trim()));
+            }
+            case Protocol.CMD_SCORE_PAGE, Protocol.CMD_HISTORY_REQ -> {
+                bh.consume(parts[1]);
+                bh.consume(Integer.parseInt(parts[parts.length - 1].trim()));
+            }
+            case Protocol.CMD_SETTINGS -> {
+                bh.consume(parts[1].trim());
+                bh.consume(Integer.parseInt(parts[2].trim()));
+                bh.consume(GameVariant.parse(parts[4]));
+            }
+            default -> bh.consume(parts.length > 1 ? parts[1].trim() : parts[0]);
+        }
+    }
+
+    private void dispatchView(String line, Blackhole bh) {
+        ProtocolLine parts = view.reset(line);
+        String cmd = parts.command();
+        if (cmd == null) return;
+        switch (cmd) {
+            case Protocol.CMD_MOVE -> {
+                bh.consume(parts.intAt(1, -1));
+                bh.consume(parts.intAt(2, -1));
+            }
+            case Protocol.CMD_SCORE_PAGE, Protocol.CMD_HISTORY_REQ -> {
+                bh.consume(parts.raw(1));
+                bh.consume(parts.intAt(parts.fields() - 1, 0));
+            }
+            case Protocol.CMD_SETTINGS -> {
+                bh.consume(parts.text(1));
+                bh.consume(parts.intAt(2, 15));
+                bh.consume(GameVariant.parse(parts.raw(4)));
+            }
+            default -> bh.consume(parts.has(1) ? parts.text(1) : cmd);
+        }
+    }
+}
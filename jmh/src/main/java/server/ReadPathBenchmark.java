@@ -0,0 +1,116 @@
+package server;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lesepfade beim Start und für History-Scans: bisheriger BufferedReader + String.split gegen MappedCsv
+ * (FileChannel.map, Felder direkt aus dem Puffer) für scores.csv und match_history.csv, dazu der Scan über die
+ * gemappten History-Segmente. Gemessen wird nur das Lesen und Zerlegen, nicht das Einfügen in ScoreManager.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    private static final DateTimeFormatter TS = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    @Param({"100000"})
+    public int rows;
+
+    private Path dir;
+    private Path scores;
+    private Path history;
+    private HistorySegments segments;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("readpath-bench");
+        scores = dir.resolve("scores.csv");
+        history = dir.resolve("match_history.csv");
+        Random rnd = new Random(42);
+        try (BufferedWriter w = Files.newBufferedWriter(scores, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                w.write("spieler" + i + ";" + rnd.nextInt(500) + ";" + rnd.nextInt(500) + ";" + rnd.nextInt(100) + ";"
+                        + (800 + rnd.nextInt(800)) + ";" + rnd.nextInt(5) + "\n");
+            }
+        }
+        LocalDateTime ts = LocalDateTime.of(2025, 1, 1, 0, 0);
+        try (BufferedWriter w = Files.newBufferedWriter(history, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                ts = ts.plusSeconds(1 + rnd.nextInt(60));
+                w.write(ts.format(TS) + ";spieler" + rnd.nextInt(5000) + ";spieler" + rnd.nextInt(5000) + ";"
+                        + "XOD".charAt(rnd.nextInt(3)) + ";0:0:X,1:1:O,0:1:X,2:2:O,0:2:X\n");
+            }
+        }
+        segments = new HistorySegments(dir.resolve("history"), false);
+        HistoryTool.importCsv(segments, history);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        segments.close();
+        try (var files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    // bisheriger Weg in ScoreManager.loadScores
+    @Benchmark
+    public void scoresBufferedReader(Blackhole bh) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(scores.toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] p = line.split(";");
+                if (p.length < 6) continue;
+                bh.consume(p[0]);
+                bh.consume(Integer.parseInt(p[1]) + Integer.parseInt(p[2]) + Integer.parseInt(p[3])
+                        + Integer.parseInt(p[4]) + Integer.parseInt(p[5]));
+            }
+        }
+    }
+
+    @Benchmark
+    public void scoresMapped(Blackhole bh) throws IOException {
+        MappedCsv.forEach(scores, ';', row -> {
+            if (row.fieldCount() < 6) return;
+            bh.consume(row.string(0));
+            bh.consume(row.parseInt(1) + row.parseInt(2) + row.parseInt(3) + row.parseInt(4) + row.parseInt(5));
+        });
+    }
+
+    // bisheriger Weg beim CSV-Import (Record.parse pro Zeile)
+    @Benchmark
+    public void historyCsvBufferedReader(Blackhole bh) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(history, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) bh.consume(HistorySegments.Record.parse(line));
+        }
+    }
+
+    @Benchmark
+    public void historyCsvMapped(Blackhole bh) throws IOException {
+        MappedCsv.forEach(history, ';', row -> {
+            if (row.fieldCount() < 5) return;
+            bh.consume(new HistorySegments.Record(row.string(0), row.string(1), row.string(2), row.string(3), row.string(4)));
+        });
+    }
+
+    // Vollscan über die gemappten Segmente (HistoryTool export, Nachindizieren beim Start)
+    @Benchmark
+    public void historySegmentsMapped(Blackhole bh) throws IOException {
+        segments.scan(Integer.MIN_VALUE, Integer.MIN_VALUE, bh::consume);
+    }
+}
@@ -0,0 +1,91 @@
+package server;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ScoreManager mit 1.000 bzw. 100.000 Spielern (scores.csv im Temp-Ordner): recordGameResult einzeln und mit vier
+ * Threads, dazu der komplette Scoreboard-Payload (SCORES). Das Log läuft wie im Server verzögert
+ * (PersistencePipeline), gemessen wird also der Teil in MatchSession.finish(); geschrieben wird nach jeder
+ * Iteration. Die Konsolenausgabe pro Ergebnis geht ins Leere, ihr Formatieren bleibt in der Messung.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoreBenchmark {
+
+    @Param({"1000", "100000"})
+    public int players;
+
+    private final AtomicInteger seq = new AtomicInteger();
+    private Path dir;
+    private ScoreManager scores;
+    private String[] names;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("score-bench");
+        Random rnd = new Random(42);
+        names = new String[players];
+        try (BufferedWriter w = Files.newBufferedWriter(dir.resolve("scores.csv"), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < players; i++) {
+                names[i] = "spieler" + i;
+                w.write(names[i] + ";" + rnd.nextInt(500) + ";" + rnd.nextInt(500) + ";" + rnd.nextInt(100) + ";"
+                        + (800 + rnd.nextInt(800)) + ";" + rnd.nextInt(5) + "\n");
+            }
+        }
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        scores = new ScoreManager(dir);
+        scores.deferLog(() -> {});
+    }
+
+    @TearDown(Level.Iteration)
+    public void writeLog() {
+        scores.syncLog();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(stdout);
+        try (var files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    @Benchmark
+    public void recordGameResult() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordGameResultContended() {
+        record();
+    }
+
+    @Benchmark
+    public void scoreboardPayload(Blackhole bh) {
+        bh.consume(scores.getScoreboardPayload());
+    }
+
+    // Paarungen über alle Spieler verteilt, nie gegen sich selbst
+    private void record() {
+        int i = seq.getAndIncrement() & Integer.MAX_VALUE;
+        int w = (int) ((i * 2654435761L) % players);
+        int l = (w + 1 + i % (players - 1)) % players;
+        scores.recordGameResult(names[w], names[l]);
+    }
+}
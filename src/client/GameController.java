@@ -9,7 +9,9 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.scene.text.Font;
+import server.GameVariant;
 import server.Protocol;
+import server.ProtocolLine;
 
 public class GameController {
 
@@ -26,32 +28,24 @@ public class GameController {
     @FXML private Button rematchBtn;
     @FXML private Button backBtn;
 
-    private final Button[][] buttons = new Button[3][3];
+    // Größe kommt aus START/SSTART (Variante), Standard 3x3
+    private GameVariant variant;
+    private Button[][] buttons = new Button[0][0];
+    private char[][] board = new char[0][0];
     private char mySymbol = '\0';
     private boolean myTurn = false;
     private boolean gameOver = false;
     private boolean spectatorMode = false;
-    private final char[][] board = new char[3][3];
     private javafx.animation.PauseTransition returnToLobbyPause;
 
     private boolean rematchRequestedByMe = false;
     private boolean rematchOfferedToMe = false;
 
+    // Sicht auf die gerade verarbeitete Server-Zeile; nur im FX-Thread benutzt
+    private final ProtocolLine in = new ProtocolLine();
+
     @FXML
     public void initialize() {
-        for (int row = 0; row < 3; row++) {
-            for (int col = 0; col < 3; col++) {
-                Button button = new Button();
-                button.setPrefSize(120, 120);
-                button.setFont(new Font("Arial Bold", 44));
-                final int r = row;
-                final int c = col;
-                button.setOnAction(event -> handleMove(r, c));
-                buttons[row][col] = button;
-                gameGrid.add(button, col, row);
-            }
-        }
-
         Platform.runLater(() -> {
             winCanvas.setWidth(gameGrid.getWidth());
             winCanvas.setHeight(gameGrid.getHeight());
@@ -65,21 +59,24 @@ public class GameController {
         // Spectator-Modus prüfen
         String spectateMsg = LobbyController.consumePendingSpectateMsg();
         if (spectateMsg != null) {
-            setupSpectatorMode(spectateMsg);
+            setupSpectatorMode(in.reset(spectateMsg));
             return;
         }
 
         // Normaler Spieler-Modus
         String start = LobbyController.consumePendingStartMsg();
         if (start != null) {
-            String[] p = start.split(Protocol.SEPARATOR);
-            if (p.length >= 3 && !p[2].isEmpty()) mySymbol = p[2].charAt(0);
+            // START;sessionId;mySymbol;opponent;mode;timerSec;variant
+            ProtocolLine p = in.reset(start);
+            if (p.charAt(2) != '\0') mySymbol = p.charAt(2);
+            buildBoard(GameVariant.parse(p.has(6) ? p.raw(6) : null));
 
             myTurn = (mySymbol == 'X');
             updateInfoLabel('X');
             statusLabel.setText("Spiel gestartet. Du bist " + mySymbol);
             setBoardEnabled(myTurn);
         } else {
+            buildBoard(GameVariant.CLASSIC);
             updateInfoLabel('\0');
             statusLabel.setText("Warte auf Start...");
             setBoardEnabled(false);
@@ -93,6 +90,43 @@ public class GameController {
         clearWinLine();
     }
 
+    // Spielfeld nur neu aufbauen, wenn sich die Größe ändert; sonst nur leeren
+    private void buildBoard(GameVariant v) {
+        int rows = v.rows;
+        int cols = v.cols;
+        if (variant == null || variant.rows != rows || variant.cols != cols) {
+            gameGrid.getChildren().clear();
+            buttons = new Button[rows][cols];
+            board = new char[rows][cols];
+
+            // große Bretter kleiner zeichnen, damit das Fenster passt
+            double size = Math.max(26, Math.min(120, 360.0 / Math.max(rows, cols)));
+            Font font = new Font("Arial Bold", Math.round(size * 0.37));
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    Button button = new Button();
+                    button.setPrefSize(size, size);
+                    button.setMinSize(size, size);
+                    button.setFont(font);
+                    final int r = row;
+                    final int c = col;
+                    button.setOnAction(event -> handleMove(r, c));
+                    buttons[row][col] = button;
+                    gameGrid.add(button, col, row);
+                }
+            }
+        } else {
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    board[r][c] = '\0';
+                    buttons[r][c].setText("");
+                    buttons[r][c].setStyle("");
+                }
+            }
+        }
+        variant = v;
+    }
+
     private void handleMove(int row, int col) {
         if (spectatorMode) return;
         if (gameOver || !myTurn) return;
@@ -152,9 +186,10 @@ public class GameController {
 
     private void processServerMessage(String message) {
         Platform.runLater(() -> {
-            int sepIndex = message.indexOf(Protocol.SEPARATOR);
-            String command = (sepIndex >= 0) ? message.substring(0, sepIndex) : message;
-            String payload = (sepIndex >= 0) ? message.substring(sepIndex + 1) : "";
+            ProtocolLine msg = in.reset(message);
+            String command = msg.command();
+            if (command == null) return;
+            String payload = msg.rest(1);
 
             switch (command) {
                 case Protocol.SRV_WELCOME:
@@ -166,9 +201,9 @@ public class GameController {
                     break;
 
                 case Protocol.SRV_TURN: {
-                    char current = payload.isEmpty() ? '\0' : payload.charAt(0);
+                    char current = msg.charAt(1);
                     if (spectatorMode) {
-                        infoLabel.setText(infoLabel.getText().split("\\|")[0].trim()
+                        infoLabel.setText(ProtocolLine.part(infoLabel.getText(), '|', 0)
                                 + " | Am Zug: " + current);
                     } else {
                         myTurn = (current != '\0' && current == mySymbol);
@@ -179,21 +214,12 @@ public class GameController {
                 }
 
                 case Protocol.SRV_VALID_MOVE: {
-                    String[] moveParts = payload.split(Protocol.SEPARATOR);
-                    if (moveParts.length >= 3) {
-                        int r = Integer.parseInt(moveParts[0]);
-                        int c = Integer.parseInt(moveParts[1]);
-                        String sym = moveParts[2];
-                        applyMove(r, c, sym);
-                    }
+                    if (msg.fields() >= 4) applyMove(msg.intAt(1, -1), msg.intAt(2, -1), msg.raw(3));
                     break;
                 }
 
                 case Protocol.SRV_CHAT: {
-                    String[] p = payload.split(Protocol.SEPARATOR, 2);
-                    String from = (p.length >= 1) ? p[0] : "?";
-                    String msg = (p.length >= 2) ? p[1] : "";
-                    chatArea.appendText(from + ": " + msg + "\n");
+                    chatArea.appendText(msg.raw(1) + ": " + msg.rest(2) + "\n");
                     break;
                 }
 
@@ -304,7 +330,7 @@ public class GameController {
                         returnToLobbyPause = null;
                     }
                     spectatorMode = false;
-                    resetForNewMatch(payload);
+                    resetForNewMatch(msg);
                     break;
 
                 case Protocol.SRV_SPECTATE_START:
@@ -313,37 +339,25 @@ public class GameController {
                         returnToLobbyPause.stop();
                         returnToLobbyPause = null;
                     }
-                    setupSpectatorMode(payload);
+                    setupSpectatorMode(msg);
                     break;
             }
         });
     }
 
-    private void setupSpectatorMode(String rawPayload) {
+    private void setupSpectatorMode(ProtocolLine p) {
         spectatorMode = true;
         mySymbol = 'S';
         gameOver = false;
         myTurn = false;
         clearWinLine();
 
-        // Board zurücksetzen
-        for (int r = 0; r < 3; r++) {
-            for (int c = 0; c < 3; c++) {
-                board[r][c] = '\0';
-                buttons[r][c].setText("");
-                buttons[r][c].setStyle("");
-            }
-        }
+        // SSTART;sessionId;playerX;playerO;variant
+        String px = p.has(2) ? p.raw(2) : "?";
+        String po = p.has(3) ? p.raw(3) : "?";
 
-        // SSTART;sessionId;playerX;playerO  oder  sessionId;playerX;playerO
-        String[] p = rawPayload.split(Protocol.SEPARATOR);
-        String px = p.length >= 2 ? p[1] : "?";
-        String po = p.length >= 3 ? p[2] : "?";
-        // Falls das erste Token die Command-ID selbst ist (SSTART), anpassen
-        if (p.length >= 4) {
-            px = p[2];
-            po = p[3];
-        }
+        // Board zurücksetzen
+        buildBoard(GameVariant.parse(p.has(4) ? p.raw(4) : null));
 
         infoLabel.setText("Zuschauer | " + px + " (X) vs " + po + " (O)");
         statusLabel.setText("Du schaust zu.");
@@ -355,23 +369,13 @@ public class GameController {
         sendChatBtn.setDisable(true);
     }
 
-    private void resetForNewMatch(String payload) {
+    // START;sessionId;mySymbol;opponent;mode;timerSec;variant
+    private void resetForNewMatch(ProtocolLine p) {
         gameOver = false;
         clearWinLine();
 
-        for (int r = 0; r < 3; r++) {
-            for (int c = 0; c < 3; c++) {
-                board[r][c] = '\0';
-                buttons[r][c].setText("");
-                buttons[r][c].setStyle("");
-                buttons[r][c].setDisable(true);
-            }
-        }
-
-        String[] p = payload.split(Protocol.SEPARATOR);
-        if (p.length >= 2 && !p[1].isEmpty()) {
-            mySymbol = p[1].charAt(0);
-        }
+        if (p.charAt(2) != '\0') mySymbol = p.charAt(2);
+        buildBoard(GameVariant.parse(p.has(6) ? p.raw(6) : null));
 
         myTurn = (mySymbol == 'X');
         updateInfoLabel('X');
@@ -383,7 +387,7 @@ public class GameController {
     }
 
     private void applyMove(int row, int col, String symbol) {
-        if (row < 0 || row >= 3 || col < 0 || col >= 3) return;
+        if (row < 0 || row >= board.length || col < 0 || col >= board[row].length) return;
 
         char s = (symbol == null || symbol.isEmpty()) ? '\0' : symbol.charAt(0);
         board[row][col] = s;
@@ -406,13 +410,13 @@ public class GameController {
     private void setBoardEnabled(boolean enabled) {
         if (spectatorMode) {
             // Spectator: Board immer disabled
-            for (int row = 0; row < 3; row++)
-                for (int col = 0; col < 3; col++)
-                    buttons[row][col].setDisable(true);
+            for (Button[] line : buttons)
+                for (Button b : line)
+                    b.setDisable(true);
             return;
         }
-        for (int row = 0; row < 3; row++) {
-            for (int col = 0; col < 3; col++) {
+        for (int row = 0; row < buttons.length; row++) {
+            for (int col = 0; col < buttons[row].length; col++) {
                 boolean isEmpty = buttons[row][col].getText() == null || buttons[row][col].getText().isEmpty();
                 buttons[row][col].setDisable(!enabled || !isEmpty);
             }
@@ -429,7 +433,7 @@ public class GameController {
         if (win == null) return;
 
         double[] p1 = centerOfCell(win[0][0], win[0][1]);
-        double[] p2 = centerOfCell(win[2][0], win[2][1]);
+        double[] p2 = centerOfCell(win[1][0], win[1][1]);
         if (p1 == null || p2 == null) return;
 
         GraphicsContext gc = winCanvas.getGraphicsContext2D();
@@ -474,19 +478,23 @@ public class GameController {
         return new double[]{x, y};
     }
 
+    // Anfangs- und Endzelle der ersten Gewinnlinie (k in Reihe) oder null
     private int[][] findWinCells(char w) {
-        for (int r = 0; r < 3; r++) {
-            if (board[r][0] == w && board[r][1] == w && board[r][2] == w)
-                return new int[][]{{r,0},{r,1},{r,2}};
-        }
-        for (int c = 0; c < 3; c++) {
-            if (board[0][c] == w && board[1][c] == w && board[2][c] == w)
-                return new int[][]{{0,c},{1,c},{2,c}};
+        int k = (variant == null) ? 3 : variant.winLength;
+        int[][] dirs = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int r = 0; r < board.length; r++) {
+            for (int c = 0; c < board[r].length; c++) {
+                if (board[r][c] != w) continue;
+                for (int[] d : dirs) {
+                    int er = r + d[0] * (k - 1);
+                    int ec = c + d[1] * (k - 1);
+                    if (er < 0 || er >= board.length || ec < 0 || ec >= board[r].length) continue;
+                    int n = 1;
+                    while (n < k && board[r + d[0] * n][c + d[1] * n] == w) n++;
+                    if (n == k) return new int[][]{{r, c}, {er, ec}};
+                }
+            }
         }
-        if (board[0][0] == w && board[1][1] == w && board[2][2] == w)
-            return new int[][]{{0,0},{1,1},{2,2}};
-        if (board[0][2] == w && board[1][1] == w && board[2][0] == w)
-            return new int[][]{{0,2},{1,1},{2,0}};
         return null;
     }
 }
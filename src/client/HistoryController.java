@@ -13,10 +13,13 @@ import java.util.List;
 
 public class HistoryController {
 
+    private static final int PAGE_SIZE = 100;
+
     @FXML private TextField playerFilterField;
     @FXML private DatePicker fromDate;
     @FXML private DatePicker toDate;
     @FXML private Label statusLabel;
+    @FXML private Button moreBtn;
 
     @FXML private TableView<String[]> table;
     @FXML private TableColumn<String[], String> colDate;
@@ -27,6 +30,12 @@ public class HistoryController {
     private final ObservableList<String[]> rows = FXCollections.observableArrayList();
     private final List<String[]> buffer = new ArrayList<>();
 
+    // aktueller Filter und Cursor der nächsten Seite ("" = keine weiteren)
+    private String filterPart = "";
+    private String nextCursor = "";
+    // gesendete, noch nicht mit HEND beantwortete Anfragen; nur Zeilen der letzten werden übernommen
+    private int pending;
+
     @FXML
     public void initialize() {
         colDate.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[0]));
@@ -54,11 +63,22 @@ public class HistoryController {
         String from = (f == null) ? "" : f.toString();
         String to = (t == null) ? "" : t.toString();
 
-        statusLabel.setText("Lade History...");
+        filterPart = pf + Protocol.SEPARATOR + from + Protocol.SEPARATOR + to;
+        requestPage("");
+    }
 
-        NetworkClient.getInstance().sendMessage(
-                Protocol.CMD_HISTORY_REQ + Protocol.SEPARATOR + pf + Protocol.SEPARATOR + from + Protocol.SEPARATOR + to
-        );
+    // nächste Seite (ältere Partien) anhängen
+    @FXML
+    public void loadMore() {
+        if (!nextCursor.isEmpty() && pending == 0) requestPage(nextCursor);
+    }
+
+    private void requestPage(String cursor) {
+        statusLabel.setText("Lade History...");
+        moreBtn.setDisable(true);
+        pending++;
+        NetworkClient.getInstance().sendMessage(Protocol.CMD_HISTORY_REQ + Protocol.SEPARATOR + filterPart
+                + Protocol.SEPARATOR + PAGE_SIZE + Protocol.SEPARATOR + cursor);
     }
 
     @FXML
@@ -73,6 +93,7 @@ public class HistoryController {
     private void onMsg(String msg) {
         Platform.runLater(() -> {
             if (msg.startsWith(Protocol.SRV_HISTORY_LINE + Protocol.SEPARATOR)) {
+                if (pending > 1) return; // gehört zu einer überholten Suche
                 String line = msg.substring((Protocol.SRV_HISTORY_LINE + Protocol.SEPARATOR).length());
                 // timestamp;X;O;winner;moves
                 String[] p = line.split(";", -1);
@@ -83,9 +104,16 @@ public class HistoryController {
                     String w = p[3];
                     buffer.add(new String[]{ts, x, o, w});
                 }
-            } else if (msg.equals(Protocol.SRV_HISTORY_END)) {
-                rows.setAll(buffer);
-                statusLabel.setText("Einträge: " + buffer.size());
+            } else if (msg.equals(Protocol.SRV_HISTORY_END) || msg.startsWith(Protocol.SRV_HISTORY_END + Protocol.SEPARATOR)) {
+                // HEND;nextCursor
+                if (pending > 0) pending--;
+                if (pending > 0) return;
+                nextCursor = msg.length() > Protocol.SRV_HISTORY_END.length()
+                        ? msg.substring(Protocol.SRV_HISTORY_END.length() + 1).trim() : "";
+                rows.addAll(buffer);
+                buffer.clear();
+                moreBtn.setDisable(nextCursor.isEmpty());
+                statusLabel.setText("Einträge: " + rows.size() + (nextCursor.isEmpty() ? "" : " (weitere verfügbar)"));
             } else if (msg.startsWith(Protocol.SRV_ERROR + Protocol.SEPARATOR)) {
                 statusLabel.setText("Fehler: " + msg.substring((Protocol.SRV_ERROR + Protocol.SEPARATOR).length()));
             }
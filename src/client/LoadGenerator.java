@@ -0,0 +1,641 @@
+package client;
+
+import server.GameVariant;
+import server.LatencyHistogram;
+import server.Protocol;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lastgenerator ohne GUI: öffnet N Verbindungen zum Server und spielt mit ihnen wie echte Clients.
+ * Rollen: Spielerpaare (einer hostet, der andere tritt bei), Spieler gegen den Bot, Zuschauer (SPECTATE auf
+ * laufende Spiele) und 4er-Turniere. Nach jeder Partie fragen Spieler mit einer Wahrscheinlichkeit SCORES,
+ * SPAGE oder HISTORY ab. Jeder Client läuft in zwei virtuellen Threads (Lesen, Spiellogik).
+ * Ausgabe alle 5 s: Durchsatz, Fehler, Timeouts und Zug-Latenz; am Ende alle Latenzen mit Perzentilen.
+ *
+ * Aufruf: java -cp <classes> [Optionen] client.LoadGenerator [host] [port]
+ *   -Dtictactoe.load.clients=200       Verbindungen
+ *   -Dtictactoe.load.seconds=60        Laufzeit
+ *   -Dtictactoe.load.rampMs=5000       Verbindungen gleichmäßig über diese Zeit aufbauen
+ *   -Dtictactoe.load.thinkMs=250       mittlere Bedenkzeit pro Zug (zufällig 0..2x)
+ *   -Dtictactoe.load.bots=10           Anteil Spieler gegen den Bot in % (-Dtictactoe.load.botLevel=CLASSIC)
+ *   -Dtictactoe.load.spectators=5      Anteil Zuschauer in %
+ *   -Dtictactoe.load.tournaments=10    Anteil Turnierspieler in % (Gruppen zu 4)
+ *   -Dtictactoe.load.queries=20        Wahrscheinlichkeit einer Abfrage nach jeder Partie in %
+ *   -Dtictactoe.load.timerSec=15, -Dtictactoe.load.variant=CLASSIC, -Dtictactoe.load.prefix=load
+ */
+public class LoadGenerator {
+
+    private static final String HOST = "localhost";
+    private static final int PORT = 8088;
+
+    private static final int CLIENTS = Integer.getInteger("tictactoe.load.clients", 200);
+    private static final int SECONDS = Integer.getInteger("tictactoe.load.seconds", 60);
+    private static final long RAMP_MS = Long.getLong("tictactoe.load.rampMs", 5000);
+    private static final long THINK_MS = Long.getLong("tictactoe.load.thinkMs", 250);
+    private static final int BOT_PERCENT = Integer.getInteger("tictactoe.load.bots", 10);
+    private static final int SPECTATOR_PERCENT = Integer.getInteger("tictactoe.load.spectators", 5);
+    private static final int TOURNAMENT_PERCENT = Integer.getInteger("tictactoe.load.tournaments", 10);
+    private static final int QUERY_PERCENT = Integer.getInteger("tictactoe.load.queries", 20);
+    private static final int TIMER_SEC = Integer.getInteger("tictactoe.load.timerSec", 15);
+    private static final String BOT_LEVEL = System.getProperty("tictactoe.load.botLevel", "CLASSIC");
+    private static final GameVariant VARIANT = GameVariant.parse(System.getProperty("tictactoe.load.variant", "CLASSIC"));
+    private static final String PREFIX = System.getProperty("tictactoe.load.prefix", "load");
+
+    // Wartezeit auf eine Antwort, bevor sie als Timeout zählt (ein Zug darf bis zum Zug-Timer dauern)
+    private static final long REPLY_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(Math.max(TIMER_SEC, 15) + 15);
+    private static final int TOURNAMENT_SIZE = 4;
+
+    // Nachrichten, die sich Clients untereinander in die Inbox legen (Raum- bzw. Turnier-ID)
+    private static final String LOCAL_ROOM = "#ROOM";
+    private static final String LOCAL_TOURNAMENT = "#TOURNAMENT";
+    private static final String LOCAL_EOF = "#EOF";
+
+    // Latenzen (Anfrage gesendet bis passende Antwort gelesen)
+    private static final LatencyHistogram CONNECT = new LatencyHistogram();
+    private static final LatencyHistogram LOGIN = new LatencyHistogram();
+    private static final LatencyHistogram HOST_TO_START = new LatencyHistogram();
+    private static final LatencyHistogram MOVE = new LatencyHistogram();
+    private static final LatencyHistogram GAME = new LatencyHistogram();
+    private static final LatencyHistogram SPECTATE = new LatencyHistogram();
+    private static final LatencyHistogram SCORES = new LatencyHistogram();
+    private static final LatencyHistogram SCORE_PAGE = new LatencyHistogram();
+    private static final LatencyHistogram HISTORY = new LatencyHistogram();
+    private static final LatencyHistogram TOURNAMENT = new LatencyHistogram();
+
+    private static final LongAdder connected = new LongAdder();
+    private static final LongAdder connectFailures = new LongAdder();
+    private static final LongAdder disconnects = new LongAdder();
+    private static final LongAdder errors = new LongAdder();
+    private static final LongAdder timeouts = new LongAdder();
+    private static final LongAdder games = new LongAdder();
+    private static final LongAdder abortedGames = new LongAdder();
+    private static final LongAdder moves = new LongAdder();
+    private static final LongAdder spectated = new LongAdder();
+    private static final LongAdder tournaments = new LongAdder();
+    private static final LongAdder queries = new LongAdder();
+    private static final LongAdder linesIn = new LongAdder();
+    private static final LongAdder linesOut = new LongAdder();
+
+    private static volatile boolean stopping;
+
+    public static void main(String[] args) throws InterruptedException {
+        String host = args.length > 0 ? args[0] : HOST;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : PORT;
+
+        List<Client> clients = createClients(host, port);
+        System.out.printf("[LoadGenerator] %d Clients gegen %s:%d, %d s, Bedenkzeit %d ms, Variante %s%n",
+                clients.size(), host, port, SECONDS, THINK_MS, VARIANT);
+
+        List<Thread> threads = new ArrayList<>();
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < clients.size(); i++) {
+            Client c = clients.get(i);
+            long delay = clients.size() <= 1 ? 0 : RAMP_MS * i / (clients.size() - 1);
+            threads.add(Thread.ofVirtual().name("Load-" + c.name).start(() -> c.runAfter(delay)));
+        }
+
+        Snapshot last = new Snapshot(startedAt);
+        long end = startedAt + TimeUnit.SECONDS.toNanos(SECONDS);
+        while (System.nanoTime() < end) {
+            TimeUnit.MILLISECONDS.sleep(Math.min(5000, Math.max(1, TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime()))));
+            Snapshot now = new Snapshot(System.nanoTime());
+            System.out.println("[LoadGenerator] " + now.intervalLine(last, startedAt));
+            last = now;
+        }
+
+        stopping = true;
+        for (Client c : clients) c.close();
+        for (Thread t : threads) t.interrupt();
+        for (Thread t : threads) t.join(2000);
+
+        double secs = (System.nanoTime() - startedAt) / 1e9;
+        System.out.println();
+        System.out.println("[LoadGenerator] Ergebnis nach " + Math.round(secs) + " s");
+        System.out.printf("  verbunden=%d verbindungsfehler=%d abbrüche=%d fehler=%d timeouts=%d%n",
+                connected.sum(), connectFailures.sum(), disconnects.sum(), errors.sum(), timeouts.sum());
+        System.out.printf("  spiele=%d (%.1f/s) abgebrochen=%d züge=%d (%.1f/s) zuschauer=%d turniere=%d abfragen=%d%n",
+                games.sum(), games.sum() / secs, abortedGames.sum(), moves.sum(), moves.sum() / secs,
+                spectated.sum(), tournaments.sum(), queries.sum());
+        System.out.printf("  zeilen empfangen=%d (%.0f/s) gesendet=%d (%.0f/s)%n",
+                linesIn.sum(), linesIn.sum() / secs, linesOut.sum(), linesOut.sum() / secs);
+        System.out.println("  connect        " + CONNECT.summary());
+        System.out.println("  login          " + LOGIN.summary());
+        System.out.println("  host->start    " + HOST_TO_START.summary());
+        System.out.println("  move           " + MOVE.summary());
+        System.out.println("  game           " + GAME.summary());
+        System.out.println("  spectate       " + SPECTATE.summary());
+        System.out.println("  scores         " + SCORES.summary());
+        System.out.println("  score page     " + SCORE_PAGE.summary());
+        System.out.println("  history        " + HISTORY.summary());
+        System.out.println("  tournament     " + TOURNAMENT.summary());
+    }
+
+    // Rollen verteilen: Turniergruppen, Zuschauer, Bot-Spieler, der Rest spielt paarweise
+    private static List<Client> createClients(String host, int port) {
+        List<Client> out = new ArrayList<>();
+        int n = Math.max(1, CLIENTS);
+        int tournamentPlayers = n * TOURNAMENT_PERCENT / 100 / TOURNAMENT_SIZE * TOURNAMENT_SIZE;
+        int spectators = n * SPECTATOR_PERCENT / 100;
+        int bots = n * BOT_PERCENT / 100;
+        int pairPlayers = n - tournamentPlayers - spectators - bots;
+        if (pairPlayers % 2 != 0) {
+            pairPlayers--;
+            bots++;
+        }
+
+        int id = 0;
+        for (int g = 0; g < tournamentPlayers / TOURNAMENT_SIZE; g++) {
+            TournamentHost th = new TournamentHost(host, port, id++);
+            out.add(th);
+            for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+                Client guest = new TournamentGuest(host, port, id++);
+                th.guests.add(guest);
+                out.add(guest);
+            }
+        }
+        for (int i = 0; i < pairPlayers / 2; i++) {
+            PairGuest guest = new PairGuest(host, port, id++);
+            out.add(new PairHost(host, port, id++, guest));
+            out.add(guest);
+        }
+        for (int i = 0; i < bots; i++) out.add(new BotOpponent(host, port, id++));
+        for (int i = 0; i < spectators; i++) out.add(new Spectator(host, port, id++));
+        return out;
+    }
+
+    /** Zählerstand für die Intervall-Ausgabe. */
+    private static final class Snapshot {
+        final long at;
+        final long games = LoadGenerator.games.sum();
+        final long moves = LoadGenerator.moves.sum();
+        final long lines = linesIn.sum() + linesOut.sum();
+
+        Snapshot(long at) {
+            this.at = at;
+        }
+
+        String intervalLine(Snapshot prev, long startedAt) {
+            double secs = Math.max(1e-9, (at - prev.at) / 1e9);
+            return String.format(Locale.ROOT,
+                    "t=%ds verbunden=%d spiele/s=%.1f züge/s=%.1f zeilen/s=%.0f fehler=%d timeouts=%d abbrüche=%d move[%s]",
+                    Math.round((at - startedAt) / 1e9), connected.sum() - disconnects.sum(),
+                    (games - prev.games) / secs, (moves - prev.moves) / secs, (lines - prev.lines) / secs,
+                    errors.sum(), timeouts.sum(), disconnects.sum(), MOVE.summary());
+        }
+    }
+
+    /** Ein simulierter Client: Verbindung, Lese-Thread und Inbox; die Rolle steckt in play(). */
+    private abstract static class Client {
+        final String host;
+        final int port;
+        final String name;
+        final BlockingQueue<String> inbox = new LinkedBlockingQueue<>();
+        private Socket socket;
+        private PrintWriter out;
+        // zwischengespeicherte lokale Nachrichten, die während anderer Wartephasen ankamen
+        String pendingRoom;
+        String pendingTournament;
+
+        Client(String host, int port, int id) {
+            this.host = host;
+            this.port = port;
+            this.name = PREFIX + id;
+        }
+
+        abstract void play() throws IOException, InterruptedException;
+
+        // Einstellungen nach dem Login (Standard: Mensch gegen Mensch)
+        String settings() {
+            return Protocol.CMD_SETTINGS + Protocol.SEPARATOR + "HUMAN" + Protocol.SEPARATOR + TIMER_SEC
+                    + Protocol.SEPARATOR + Protocol.SEPARATOR + VARIANT;
+        }
+
+        final void runAfter(long delayMs) {
+            try {
+                if (delayMs > 0) TimeUnit.MILLISECONDS.sleep(delayMs);
+                if (!connect()) return;
+                play();
+            } catch (InterruptedException ignored) {
+            } catch (IOException e) {
+                if (!stopping) disconnects.increment();
+            } finally {
+                close();
+            }
+        }
+
+        private boolean connect() throws InterruptedException {
+            long t0 = System.nanoTime();
+            try {
+                socket = new Socket();
+                socket.connect(new InetSocketAddress(host, port), 10_000);
+                socket.setTcpNoDelay(true);
+                out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), false);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Thread.ofVirtual().name("LoadReader-" + name).start(() -> readLoop(in));
+
+                if (await(Protocol.SRV_MESSAGE) == null) throw new IOException("keine Begrüßung");
+                CONNECT.recordSince(t0);
+                connected.increment();
+
+                long t1 = System.nanoTime();
+                send(Protocol.CMD_LOGIN + Protocol.SEPARATOR + name);
+                if (await(Protocol.SRV_MESSAGE) == null) throw new IOException("keine Login-Antwort");
+                LOGIN.recordSince(t1);
+                send(settings());
+                return true;
+            } catch (IOException e) {
+                if (!stopping) connectFailures.increment();
+                return false;
+            }
+        }
+
+        private void readLoop(BufferedReader in) {
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    linesIn.increment();
+                    if (line.startsWith(Protocol.SRV_ERROR + Protocol.SEPARATOR)) errors.increment();
+                    inbox.add(line);
+                }
+            } catch (IOException ignored) {
+            }
+            inbox.add(LOCAL_EOF);
+        }
+
+        void send(String line) {
+            PrintWriter w = out;
+            if (w == null) return;
+            w.print(line);
+            w.print('\n');
+            w.flush();
+            linesOut.increment();
+        }
+
+        void close() {
+            try {
+                if (socket != null) socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        // nächste Zeile oder null nach REPLY_TIMEOUT_MS; Verbindungsende als IOException
+        String next(long timeoutMs) throws IOException, InterruptedException {
+            String line = inbox.poll(timeoutMs, TimeUnit.MILLISECONDS);
+            if (line == null) return null;
+            if (line.equals(LOCAL_EOF)) {
+                inbox.add(LOCAL_EOF);
+                throw new EOFException("Verbindung beendet");
+            }
+            return line;
+        }
+
+        /** Wartet auf eine Zeile mit einem der Befehle; null = Timeout (wird gezählt). */
+        String await(String... commands) throws IOException, InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REPLY_TIMEOUT_MS);
+            while (!stopping) {
+                long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                String line = left > 0 ? next(left) : null;
+                if (line == null) {
+                    timeouts.increment();
+                    return null;
+                }
+                for (String c : commands) {
+                    if (line.equals(c) || line.startsWith(c + Protocol.SEPARATOR)) return line;
+                }
+                stash(line);
+            }
+            return null;
+        }
+
+        // lokale IDs nicht verlieren, wenn sie während einer anderen Wartephase eintreffen
+        void stash(String line) {
+            if (line.startsWith(LOCAL_ROOM + Protocol.SEPARATOR)) pendingRoom = field(line, 1);
+            else if (line.startsWith(LOCAL_TOURNAMENT + Protocol.SEPARATOR)) pendingTournament = field(line, 1);
+        }
+
+        /**
+         * Eine Partie ab START spielen: freie Felder aus VALID_MOVE mitführen, bei eigenem TURN nach der Bedenkzeit
+         * ziehen. true bei GAME_OVER, false bei Abbruch (Gegner weg, Timeout).
+         */
+        boolean playGame(String startLine) throws IOException, InterruptedException {
+            long t0 = System.nanoTime();
+            String[] p = startLine.split(Protocol.SEPARATOR, -1);
+            char me = p.length > 2 && !p[2].isEmpty() ? p[2].charAt(0) : 'X';
+            GameVariant v = p.length > 6 ? GameVariant.parse(p[6]) : GameVariant.CLASSIC;
+            boolean[] taken = new boolean[v.rows * v.cols];
+            long moveSentAt = 0;
+
+            while (!stopping) {
+                String line = next(REPLY_TIMEOUT_MS);
+                if (line == null) {
+                    timeouts.increment();
+                    abortedGames.increment();
+                    return false;
+                }
+                String cmd = field(line, 0);
+                if (cmd.equals(Protocol.SRV_VALID_MOVE)) {
+                    int r = Integer.parseInt(field(line, 1));
+                    int c = Integer.parseInt(field(line, 2));
+                    taken[r * v.cols + c] = true;
+                    if (moveSentAt != 0 && field(line, 3).charAt(0) == me) {
+                        MOVE.recordSince(moveSentAt);
+                        moves.increment();
+                        moveSentAt = 0;
+                    }
+                } else if (cmd.equals(Protocol.SRV_TURN)) {
+                    if (field(line, 1).charAt(0) != me) continue;
+                    think(THINK_MS);
+                    int cell = randomFree(taken);
+                    if (cell < 0) continue;
+                    moveSentAt = System.nanoTime();
+                    send(Protocol.CMD_MOVE + Protocol.SEPARATOR + (cell / v.cols) + Protocol.SEPARATOR + (cell % v.cols));
+                } else if (cmd.equals(Protocol.SRV_GAME_OVER)) {
+                    GAME.recordSince(t0);
+                    games.increment();
+                    return true;
+                } else if (cmd.equals(Protocol.SRV_OPPONENT_LEFT)) {
+                    abortedGames.increment();
+                    return false;
+                } else {
+                    stash(line);
+                }
+            }
+            return false;
+        }
+
+        // nach einer Partie gelegentlich Scoreboard, eine Seite der Rangliste oder die eigene History abfragen
+        void maybeQuery() throws IOException, InterruptedException {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            if (rnd.nextInt(100) >= QUERY_PERCENT) return;
+            long t0 = System.nanoTime();
+            switch (rnd.nextInt(3)) {
+                case 0 -> {
+                    send(Protocol.CMD_SCORE_REQ);
+                    if (await(Protocol.SRV_SCOREBOARD) != null) SCORES.recordSince(t0);
+                }
+                case 1 -> {
+                    send(Protocol.CMD_SCORE_PAGE + Protocol.SEPARATOR + rnd.nextInt(100) + Protocol.SEPARATOR + 20);
+                    if (await(Protocol.SRV_SCORE_PAGE) != null) SCORE_PAGE.recordSince(t0);
+                }
+                default -> {
+                    send(Protocol.CMD_HISTORY_REQ + Protocol.SEPARATOR + name + Protocol.SEPARATOR + Protocol.SEPARATOR
+                            + Protocol.SEPARATOR + 20);
+                    if (await(Protocol.SRV_HISTORY_END) != null) HISTORY.recordSince(t0);
+                }
+            }
+            queries.increment();
+        }
+
+        void leave() {
+            send(Protocol.CMD_LEAVE);
+        }
+    }
+
+    /** Hostet einen Raum und gibt die ID an seinen festen Partner weiter. */
+    private static final class PairHost extends Client {
+        private final PairGuest guest;
+
+        PairHost(String host, int port, int id, PairGuest guest) {
+            super(host, port, id);
+            this.guest = guest;
+        }
+
+        @Override
+        void play() throws IOException, InterruptedException {
+            String roomId = null;
+            while (!stopping) {
+                long t0 = System.nanoTime();
+                if (roomId == null) {
+                    send(Protocol.CMD_HOST + Protocol.SEPARATOR + "Raum " + name);
+                    String hosted = await(Protocol.SRV_HOSTED);
+                    if (hosted == null) continue;
+                    roomId = field(hosted, 1);
+                }
+                // Raum bleibt offen, bis der Partner beitritt; nach einem Timeout wird dieselbe ID erneut gesendet
+                guest.inbox.add(LOCAL_ROOM + Protocol.SEPARATOR + roomId);
+                String start = await(Protocol.SRV_START);
+                if (start == null) continue;
+                roomId = null;
+                HOST_TO_START.recordSince(t0);
+                playGame(start);
+                leave();
+                maybeQuery();
+            }
+        }
+    }
+
+    /** Tritt den Räumen seines Hosts bei. */
+    private static final class PairGuest extends Client {
+        PairGuest(String host, int port, int id) {
+            super(host, port, id);
+        }
+
+        @Override
+        void play() throws IOException, InterruptedException {
+            while (!stopping) {
+                String roomId = pendingRoom;
+                pendingRoom = null;
+                if (roomId == null) {
+                    String local = await(LOCAL_ROOM);
+                    if (local == null) continue;
+                    roomId = field(local, 1);
+                }
+                send(Protocol.CMD_JOIN + Protocol.SEPARATOR + roomId);
+                // veraltete ID (Raum schon weg) -> ERROR, dann auf die nächste warten
+                String start = await(Protocol.SRV_START, Protocol.SRV_ERROR);
+                if (start == null || start.startsWith(Protocol.SRV_ERROR)) continue;
+                playGame(start);
+                leave();
+                maybeQuery();
+            }
+        }
+    }
+
+    /** Spielt Partien gegen den Server-Bot (HOST startet im BOT-Modus sofort). */
+    private static final class BotOpponent extends Client {
+        BotOpponent(String host, int port, int id) {
+            super(host, port, id);
+        }
+
+        @Override
+        String settings() {
+            return Protocol.CMD_SETTINGS + Protocol.SEPARATOR + "BOT" + Protocol.SEPARATOR + TIMER_SEC
+                    + Protocol.SEPARATOR + BOT_LEVEL + Protocol.SEPARATOR + VARIANT;
+        }
+
+        @Override
+        void play() throws IOException, InterruptedException {
+            while (!stopping) {
+                long t0 = System.nanoTime();
+                send(Protocol.CMD_HOST + Protocol.SEPARATOR + "Bot " + name);
+                String start = await(Protocol.SRV_START);
+                if (start == null) continue;
+                HOST_TO_START.recordSince(t0);
+                playGame(start);
+                leave();
+                maybeQuery();
+            }
+        }
+    }
+
+    /** Sucht laufende Spiele in der Raumliste und schaut jeweils eines bis zum Ende zu. */
+    private static final class Spectator extends Client {
+        Spectator(String host, int port, int id) {
+            super(host, port, id);
+        }
+
+        @Override
+        void play() throws IOException, InterruptedException {
+            while (!stopping) {
+                send(Protocol.CMD_LIST);
+                String rooms = await(Protocol.SRV_ROOMS);
+                if (rooms == null) continue;
+                String sessionId = randomRunningSession(rooms);
+                if (sessionId == null) {
+                    think(500);
+                    continue;
+                }
+                long t0 = System.nanoTime();
+                send(Protocol.CMD_SPECTATE + Protocol.SEPARATOR + sessionId);
+                String reply = await(Protocol.SRV_SPECTATE_START, Protocol.SRV_ERROR);
+                if (reply == null || reply.startsWith(Protocol.SRV_ERROR)) continue;
+                SPECTATE.recordSince(t0);
+                if (await(Protocol.SRV_GAME_OVER) != null) spectated.increment();
+                think(THINK_MS * 4);
+            }
+        }
+
+        // ROOMS;id|name|host|mode|timer|status|variant,...
+        private static String randomRunningSession(String roomsLine) {
+            int sep = roomsLine.indexOf(Protocol.SEPARATOR);
+            if (sep < 0) return null;
+            List<String> running = new ArrayList<>();
+            for (String entry : roomsLine.substring(sep + 1).split(",")) {
+                String[] f = entry.split("\\|", -1);
+                if (f.length >= 6 && f[5].equals("INGAME")) running.add(f[0]);
+            }
+            return running.isEmpty() ? null : running.get(ThreadLocalRandom.current().nextInt(running.size()));
+        }
+    }
+
+    /**
+     * Spielt ein Turnier bis TOVER: bei jedem START eine Partie, dazwischen (ausgeschieden: als Zuschauer)
+     * alles andere ignorieren. true, wenn TOVER ankam.
+     */
+    private static boolean playTournament(Client c) throws IOException, InterruptedException {
+        while (!stopping) {
+            String line = c.await(Protocol.SRV_START, Protocol.SRV_TOURNAMENT_OVER);
+            if (line == null) return false;
+            if (line.startsWith(Protocol.SRV_TOURNAMENT_OVER)) {
+                // ausgeschiedene Spieler hängen noch als Zuschauer an der letzten Partie
+                c.leave();
+                return true;
+            }
+            c.playGame(line);
+        }
+        return false;
+    }
+
+    /** Erstellt ein 4er-Turnier, verteilt die ID und startet, sobald es voll ist. */
+    private static final class TournamentHost extends Client {
+        final List<Client> guests = new ArrayList<>();
+
+        TournamentHost(String host, int port, int id) {
+            super(host, port, id);
+        }
+
+        @Override
+        void play() throws IOException, InterruptedException {
+            while (!stopping) {
+                send(Protocol.CMD_HOST_TOURNAMENT + Protocol.SEPARATOR + "Cup " + name + Protocol.SEPARATOR + TOURNAMENT_SIZE);
+                String hosted = await(Protocol.SRV_TOURNAMENT_HOSTED);
+                if (hosted == null) continue;
+                String id = field(hosted, 1);
+                for (Client g : guests) g.inbox.add(LOCAL_TOURNAMENT + Protocol.SEPARATOR + id);
+                if (!awaitFull(id)) continue;
+                long t0 = System.nanoTime();
+                send(Protocol.CMD_START_TOURNAMENT + Protocol.SEPARATOR + id);
+                if (playTournament(this)) {
+                    TOURNAMENT.recordSince(t0);
+                    tournaments.increment();
+                }
+                maybeQuery();
+            }
+        }
+
+        // TROOMS;id|name|host|max|current|status,... wird bei jedem Beitritt an alle gesendet
+        private boolean awaitFull(String id) throws IOException, InterruptedException {
+            while (!stopping) {
+                String line = await(Protocol.SRV_TOURNAMENTS);
+                if (line == null) return false;
+                int sep = line.indexOf(Protocol.SEPARATOR);
+                for (String entry : line.substring(sep + 1).split(",")) {
+                    String[] f = entry.split("\\|", -1);
+                    if (f.length >= 5 && f[0].equals(id) && f[3].equals(f[4])) return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** Tritt den Turnieren seines Hosts bei. */
+    private static final class TournamentGuest extends Client {
+        TournamentGuest(String host, int port, int id) {
+            super(host, port, id);
+        }
+
+        @Override
+        void play() throws IOException, InterruptedException {
+            while (!stopping) {
+                String id = pendingTournament;
+                pendingTournament = null;
+                if (id == null) {
+                    String local = await(LOCAL_TOURNAMENT);
+                    if (local == null) continue;
+                    id = field(local, 1);
+                }
+                send(Protocol.CMD_JOIN_TOURNAMENT + Protocol.SEPARATOR + id);
+                playTournament(this);
+                maybeQuery();
+            }
+        }
+    }
+
+    private static int randomFree(boolean[] taken) {
+        int free = 0;
+        for (boolean t : taken) if (!t) free++;
+        if (free == 0) return -1;
+        int pick = ThreadLocalRandom.current().nextInt(free);
+        for (int i = 0; i < taken.length; i++) {
+            if (!taken[i] && pick-- == 0) return i;
+        }
+        return -1;
+    }
+
+    // zufällig 0..2x mean, damit nicht alle Clients im Gleichtakt ziehen
+    private static void think(long meanMs) throws InterruptedException {
+        if (meanMs > 0) TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(2 * meanMs + 1));
+    }
+
+    // i-tes Feld einer Protokollzeile ("" wenn nicht vorhanden)
+    private static String field(String line, int i) {
+        int start = 0;
+        for (int k = 0; k < i; k++) {
+            start = line.indexOf(Protocol.SEPARATOR, start);
+            if (start < 0) return "";
+            start++;
+        }
+        int end = line.indexOf(Protocol.SEPARATOR, start);
+        return end < 0 ? line.substring(start) : line.substring(start, end);
+    }
+}
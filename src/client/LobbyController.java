@@ -4,6 +4,7 @@ import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import server.Protocol;
+import server.ProtocolLine;
 
 import java.io.IOException;
 
@@ -15,6 +16,8 @@ public class LobbyController {
     @FXML private Label statusLabel;
 
     @FXML private ChoiceBox<String> modeChoice;
+    @FXML private ChoiceBox<String> botLevelChoice;
+    @FXML private ChoiceBox<String> variantChoice;
     @FXML private Spinner<Integer> timerSpinner;
 
     @FXML private Button refreshBtn;
@@ -32,6 +35,9 @@ public class LobbyController {
     private static String pendingStartMsg = null;
     private static String pendingSpectateMsg = null;
 
+    // Sicht auf die gerade verarbeitete Server-Zeile; nur im FX-Thread benutzt
+    private final ProtocolLine in = new ProtocolLine();
+
     @FXML
     public void initialize() {
         settings = Settings.load();
@@ -43,6 +49,13 @@ public class LobbyController {
         modeChoice.getItems().addAll("HUMAN", "BOT");
         modeChoice.setValue(settings.mode.name());
 
+        botLevelChoice.getItems().addAll("CLASSIC", "EASY", "MEDIUM", "HARD", "PERFECT", "MCTS");
+        botLevelChoice.setValue(botLevelChoice.getItems().contains(settings.botLevel) ? settings.botLevel : "CLASSIC");
+
+        // Brettgröße x Brettgröße x Gewinnlänge
+        variantChoice.getItems().addAll("3x3x3", "4x4x4", "7x7x4", "15x15x5");
+        variantChoice.setValue(variantChoice.getItems().contains(settings.variant) ? settings.variant : "3x3x3");
+
         timerSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(3, 120, settings.timerSec));
 
         NetworkClient.getInstance().clearListeners();
@@ -55,7 +68,7 @@ public class LobbyController {
         try {
             NetworkClient nc = NetworkClient.getInstance();
             if (!nc.isConnected()) nc.connect(settings.host, settings.port);
-            nc.setIdentity(settings.username, settings.mode, settings.timerSec);
+            nc.setIdentity(settings.username, settings.mode, settings.timerSec, settings.botLevel, settings.variant);
             nc.sendLoginAndSettings();
 
             statusLabel.setText("Verbunden als " + settings.username + " (" + settings.mode + ", " + settings.timerSec + "s)");
@@ -98,18 +111,22 @@ public class LobbyController {
 
         Settings.Mode mode = Settings.Mode.valueOf(modeChoice.getValue());
         int timerSec = timerSpinner.getValue();
+        String botLevel = botLevelChoice.getValue();
+        String variant = variantChoice.getValue();
 
         settings.host = host;
         settings.port = port;
         settings.username = user;
         settings.mode = mode;
         settings.timerSec = timerSec;
+        settings.botLevel = botLevel;
+        settings.variant = variant;
         settings.save();
 
         try {
             NetworkClient nc = NetworkClient.getInstance();
             if (!nc.isConnected()) nc.connect(host, port);
-            nc.setIdentity(user, mode, timerSec);
+            nc.setIdentity(user, mode, timerSec, botLevel, variant);
             nc.sendLoginAndSettings();
 
             statusLabel.setText("Verbunden als " + user + " (" + mode + ", " + timerSec + "s)");
@@ -140,7 +157,7 @@ public class LobbyController {
         String sel = roomsList.getSelectionModel().getSelectedItem();
         if (sel == null || sel.isBlank()) return;
 
-        String roomId = sel.split("\\|")[0].trim();
+        String roomId = ProtocolLine.part(sel, '|', 0);
         NetworkClient.getInstance().sendMessage(Protocol.CMD_JOIN + Protocol.SEPARATOR + roomId);
     }
 
@@ -150,12 +167,10 @@ public class LobbyController {
         if (sel == null || sel.isBlank()) return;
 
         // Session-ID ist das erste Feld
-        String sessionId = sel.split("\\|")[0].trim();
+        String sessionId = ProtocolLine.part(sel, '|', 0);
 
-        // Prüfen ob INGAME (letztes Feld)
-        String[] parts = sel.split("\\|");
-        String status = parts.length >= 6 ? parts[5].trim() : "";
-        if (!"INGAME".equals(status)) {
+        // Prüfen ob INGAME (Status-Feld)
+        if (!"INGAME".equals(ProtocolLine.part(sel, '|', 5))) {
             statusLabel.setText("Nur laufende Spiele können zugeschaut werden.");
             return;
         }
@@ -215,41 +230,41 @@ public class LobbyController {
 
     private void onServerMessage(String msg) {
         Platform.runLater(() -> {
-            if (msg.startsWith(Protocol.SRV_START + Protocol.SEPARATOR)) {
-                pendingStartMsg = msg;
-                try {
-                    NetworkClient.getInstance().clearListeners();
-                    Main.changeScene("/client/game.fxml");
-                } catch (Exception e) {
-                    System.out.println("[Lobby] Scene-Wechsel fehlgeschlagen: " + e.getMessage());
-                    statusLabel.setText("Scene-Wechsel fehlgeschlagen: " + e.getMessage());
+            ProtocolLine line = in.reset(msg);
+            String command = line.command();
+            if (command == null) return;
+
+            switch (command) {
+                case Protocol.SRV_START -> {
+                    pendingStartMsg = msg;
+                    try {
+                        NetworkClient.getInstance().clearListeners();
+                        Main.changeScene("/client/game.fxml");
+                    } catch (Exception e) {
+                        System.out.println("[Lobby] Scene-Wechsel fehlgeschlagen: " + e.getMessage());
+                        statusLabel.setText("Scene-Wechsel fehlgeschlagen: " + e.getMessage());
+                    }
                 }
-                return;
-            }
 
-            // Spectator: Server sendet SSTART -> wechsle in Game-View als Zuschauer
-            if (msg.startsWith(Protocol.SRV_SPECTATE_START + Protocol.SEPARATOR)) {
-                pendingSpectateMsg = msg;
-                try {
-                    NetworkClient.getInstance().clearListeners();
-                    Main.changeScene("/client/game.fxml");
-                } catch (Exception e) {
-                    System.out.println("[Lobby] Scene-Wechsel fehlgeschlagen: " + e.getMessage());
-                    statusLabel.setText("Scene-Wechsel (Spectator) fehlgeschlagen: " + e.getMessage());
+                // Spectator: Server sendet SSTART -> wechsle in Game-View als Zuschauer
+                case Protocol.SRV_SPECTATE_START -> {
+                    pendingSpectateMsg = msg;
+                    try {
+                        NetworkClient.getInstance().clearListeners();
+                        Main.changeScene("/client/game.fxml");
+                    } catch (Exception e) {
+                        System.out.println("[Lobby] Scene-Wechsel fehlgeschlagen: " + e.getMessage());
+                        statusLabel.setText("Scene-Wechsel (Spectator) fehlgeschlagen: " + e.getMessage());
+                    }
                 }
-                return;
-            }
 
-            if (msg.startsWith(Protocol.SRV_MESSAGE + Protocol.SEPARATOR)) {
-                statusLabel.setText(msg.substring((Protocol.SRV_MESSAGE + Protocol.SEPARATOR).length()));
-            } else if (msg.startsWith(Protocol.SRV_ERROR + Protocol.SEPARATOR)) {
-                statusLabel.setText("Fehler: " + msg.substring((Protocol.SRV_ERROR + Protocol.SEPARATOR).length()));
-            } else if (msg.startsWith(Protocol.SRV_ROOMS + Protocol.SEPARATOR)) {
-                roomsList.getItems().clear();
-                String payload = msg.substring((Protocol.SRV_ROOMS + Protocol.SEPARATOR).length());
-                if (!payload.isBlank()) {
-                    for (String r : payload.split(",")) roomsList.getItems().add(r);
+                case Protocol.SRV_MESSAGE -> statusLabel.setText(line.rest(1));
+                case Protocol.SRV_ERROR -> statusLabel.setText("Fehler: " + line.rest(1));
+                case Protocol.SRV_ROOMS -> {
+                    roomsList.getItems().clear();
+                    line.forEachItem(1, ',', roomsList.getItems()::add);
                 }
+                default -> { }
             }
         });
     }
@@ -21,6 +21,8 @@ public class NetworkClient {
     private String username = "";
     private Settings.Mode mode = Settings.Mode.HUMAN;
     private int timerSec = 15;
+    private String botLevel = "CLASSIC";
+    private String variant = "3x3x3";
 
     private NetworkClient() {}
 
@@ -37,21 +39,24 @@ public class NetworkClient {
         if (isConnected()) return;
 
         socket = new Socket(host, port);
-        out = new PrintWriter(socket.getOutputStream(), true);
-        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), Protocol.CHARSET), true);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), Protocol.CHARSET));
 
         startListenerIfNeeded();
     }
 
-    public void setIdentity(String username, Settings.Mode mode, int timerSec) {
+    public void setIdentity(String username, Settings.Mode mode, int timerSec, String botLevel, String variant) {
         this.username = username == null ? "" : username.trim();
         this.mode = mode == null ? Settings.Mode.HUMAN : mode;
         this.timerSec = Math.max(3, timerSec);
+        this.botLevel = (botLevel == null || botLevel.isBlank()) ? "CLASSIC" : botLevel.trim();
+        this.variant = (variant == null || variant.isBlank()) ? "3x3x3" : variant.trim();
     }
 
     public void sendLoginAndSettings() {
         sendMessage(Protocol.CMD_LOGIN + Protocol.SEPARATOR + username);
-        sendMessage(Protocol.CMD_SETTINGS + Protocol.SEPARATOR + mode.name() + Protocol.SEPARATOR + timerSec);
+        sendMessage(Protocol.CMD_SETTINGS + Protocol.SEPARATOR + mode.name() + Protocol.SEPARATOR + timerSec
+                + Protocol.SEPARATOR + botLevel + Protocol.SEPARATOR + variant);
     }
 
     public void addListener(Consumer<String> listener) {
@@ -12,7 +12,11 @@ import java.util.List;
 
 public class ScoreboardController {
 
+    // Seitenweise laden statt das ganze Board auf einmal
+    private static final int PAGE_SIZE = 50;
+
     @FXML private TableView<String[]> table;
+    @FXML private TableColumn<String[], String> colRank;
     @FXML private TableColumn<String[], String> colName;
     @FXML private TableColumn<String[], String> colW;
     @FXML private TableColumn<String[], String> colL;
@@ -21,18 +25,25 @@ public class ScoreboardController {
     @FXML private TableColumn<String[], String> colTWins;
 
     @FXML private Label statusLabel;
+    @FXML private Button prevBtn;
+    @FXML private Button nextBtn;
+
+    private int offset = 0;
+    private int total = 0;
 
     private final ObservableList<String[]> rows = FXCollections.observableArrayList();
     private final List<String[]> buffer = new ArrayList<>();
 
     @FXML
     public void initialize() {
-        colName.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[0]));
-        colW.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[1]));
-        colL.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[2]));
-        colD.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[3]));
-        colElo.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[4]));
-        colTWins.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[5]));
+        // Zeile: rank, name, w, l, d, elo, tWins
+        colRank.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[0]));
+        colName.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[1]));
+        colW.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[2]));
+        colL.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[3]));
+        colD.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[4]));
+        colElo.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[5]));
+        colTWins.setCellValueFactory(d -> new SimpleStringProperty(d.getValue()[6]));
 
         table.setItems(rows);
 
@@ -44,11 +55,31 @@ public class ScoreboardController {
 
     @FXML
     public void refresh() {
-        rows.clear();
-        buffer.clear();
+        loadPage(offset);
+    }
+
+    @FXML
+    public void prevPage() {
+        loadPage(Math.max(0, offset - PAGE_SIZE));
+    }
+
+    @FXML
+    public void nextPage() {
+        if (offset + PAGE_SIZE < total) loadPage(offset + PAGE_SIZE);
+    }
+
+    // Seite rund um den eigenen Platz
+    @FXML
+    public void myRank() {
         statusLabel.setText("Lade...");
+        NetworkClient.getInstance().sendMessage(Protocol.CMD_SCORE_AROUND + Protocol.SEPARATOR
+                + Protocol.SEPARATOR + (PAGE_SIZE / 2));
+    }
 
-        NetworkClient.getInstance().sendMessage(Protocol.CMD_SCORE_REQ);
+    private void loadPage(int newOffset) {
+        statusLabel.setText("Lade...");
+        NetworkClient.getInstance().sendMessage(Protocol.CMD_SCORE_PAGE + Protocol.SEPARATOR + newOffset
+                + Protocol.SEPARATOR + PAGE_SIZE);
     }
 
     @FXML
@@ -62,7 +93,29 @@ public class ScoreboardController {
 
     private void onMsg(String msg) {
         Platform.runLater(() -> {
-            if (msg.startsWith(Protocol.SRV_SCOREBOARD + Protocol.SEPARATOR)) {
+            if (msg.startsWith(Protocol.SRV_SCORE_PAGE + Protocol.SEPARATOR)) {
+                // SCOREPAGE;offset;total;rank|name|w|l|d|elo|twins,...
+                String[] p = msg.split(Protocol.SEPARATOR, 4);
+                try {
+                    offset = Integer.parseInt(p[1]);
+                    total = Integer.parseInt(p[2]);
+                } catch (RuntimeException e) {
+                    offset = 0;
+                    total = 0;
+                }
+                buffer.clear();
+                if (p.length >= 4 && !p[3].isBlank()) {
+                    for (String entry : p[3].split(",")) {
+                        String[] e = entry.split("\\|");
+                        if (e.length >= 7) buffer.add(new String[]{e[0], e[1], e[2], e[3], e[4], e[5], e[6]});
+                    }
+                }
+                rows.setAll(buffer);
+                prevBtn.setDisable(offset == 0);
+                nextBtn.setDisable(offset + buffer.size() >= total);
+                statusLabel.setText(buffer.isEmpty() ? "Keine Einträge"
+                        : "Plätze " + (offset + 1) + "-" + (offset + buffer.size()) + " von " + total);
+            } else if (msg.startsWith(Protocol.SRV_SCOREBOARD + Protocol.SEPARATOR)) {
                 String payload = msg.substring((Protocol.SRV_SCOREBOARD + Protocol.SEPARATOR).length());
 
                 buffer.clear();
@@ -70,9 +123,10 @@ public class ScoreboardController {
                     // name|w|l|d,name|w|l|d
                     for (String entry : payload.split(",")) {
                         String[] p = entry.split("\\|");
-                        if (p.length >= 6) buffer.add(new String[]{p[0], p[1], p[2], p[3], p[4], p[5]});
-                        else if (p.length >= 5) buffer.add(new String[]{p[0], p[1], p[2], p[3], p[4], "0"});
-                        else if (p.length >= 4) buffer.add(new String[]{p[0], p[1], p[2], p[3], "-", "0"});
+                        String rank = String.valueOf(buffer.size() + 1);
+                        if (p.length >= 6) buffer.add(new String[]{rank, p[0], p[1], p[2], p[3], p[4], p[5]});
+                        else if (p.length >= 5) buffer.add(new String[]{rank, p[0], p[1], p[2], p[3], p[4], "0"});
+                        else if (p.length >= 4) buffer.add(new String[]{rank, p[0], p[1], p[2], p[3], "-", "0"});
                     }
                 }
 
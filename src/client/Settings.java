@@ -15,6 +15,8 @@ public class Settings {
     public String username = "";
     public Mode mode = Mode.HUMAN;
     public int timerSec = 15;
+    public String botLevel = "CLASSIC";
+    public String variant = "3x3x3";
 
     public static Settings load() {
         Settings s = new Settings();
@@ -29,6 +31,8 @@ public class Settings {
             s.username = p.getProperty("username", s.username);
             s.mode = Mode.valueOf(p.getProperty("mode", s.mode.name()));
             s.timerSec = Integer.parseInt(p.getProperty("timerSec", String.valueOf(s.timerSec)));
+            s.botLevel = p.getProperty("botLevel", s.botLevel);
+            s.variant = p.getProperty("variant", s.variant);
         } catch (Exception ignored) {}
         if (s.timerSec < 3) s.timerSec = 3;
         return s;
@@ -41,6 +45,8 @@ public class Settings {
         p.setProperty("username", username);
         p.setProperty("mode", mode.name());
         p.setProperty("timerSec", String.valueOf(timerSec));
+        p.setProperty("botLevel", botLevel);
+        p.setProperty("variant", variant);
         try (FileOutputStream out = new FileOutputStream(FILE_NAME)) {
             p.store(out, "TicTacToe Client Settings");
         } catch (IOException ignored) {}
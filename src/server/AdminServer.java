@@ -0,0 +1,157 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Lokaler Admin-Endpunkt: GET http://127.0.0.1:8089/metrics liefert alle Metriken im Prometheus-Textformat
+ * (Gauges aus Metrics, Threads, Heap, Laufzeit, Zähler als *_total, Latenzen als Summary mit Perzentilen in
+ * Sekunden; Befehle als tictactoe_command_duration_seconds{command="MOVE"}). Lauscht nur auf Loopback.
+ * Port über -Dtictactoe.admin.port (Standard 8089, 0 = aus).
+ */
+public class AdminServer {
+
+    private static final String PREFIX = "tictactoe_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final HttpServer http;
+
+    private AdminServer(int port) throws IOException {
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/metrics", this::handleMetrics);
+        http.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "AdminServer");
+            t.setDaemon(true);
+            return t;
+        }));
+        http.start();
+    }
+
+    // startet den Endpunkt, falls nicht abgeschaltet; Fehler (Port belegt) nur melden
+    public static AdminServer startIfEnabled() {
+        int port = Integer.getInteger("tictactoe.admin.port", 8089);
+        if (port <= 0) return null;
+        try {
+            AdminServer a = new AdminServer(port);
+            System.out.println("[AdminServer] Metriken unter http://127.0.0.1:" + port + "/metrics");
+            return a;
+        } catch (IOException e) {
+            System.out.println("[AdminServer] Admin-Port " + port + " nicht verfügbar: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void stop() {
+        http.stop(0);
+    }
+
+    private void handleMetrics(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!"GET".equals(ex.getRequestMethod())) {
+                ex.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            ex.sendResponseHeaders(200, body.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /** Alle Metriken im Prometheus-Textformat. */
+    public static String render() {
+        StringBuilder sb = new StringBuilder(8192);
+
+        for (Map.Entry<String, Long> g : Metrics.gauges().entrySet()) {
+            gauge(sb, metricName(g.getKey()), g.getValue());
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        gauge(sb, PREFIX + "jvm_threads", threads.getThreadCount());
+        gauge(sb, PREFIX + "jvm_threads_daemon", threads.getDaemonThreadCount());
+        gauge(sb, PREFIX + "jvm_threads_peak", threads.getPeakThreadCount());
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        gauge(sb, PREFIX + "jvm_heap_used_bytes", heap.getUsed());
+        gauge(sb, PREFIX + "jvm_heap_committed_bytes", heap.getCommitted());
+        gauge(sb, PREFIX + "jvm_heap_max_bytes", heap.getMax());
+        gauge(sb, PREFIX + "uptime_seconds", ManagementFactory.getRuntimeMXBean().getUptime() / 1000);
+
+        for (Map.Entry<String, Long> c : Metrics.counters().entrySet()) {
+            String name = metricName(c.getKey()) + "_total";
+            sb.append("# TYPE ").append(name).append(" counter\n");
+            sb.append(name).append(' ').append(c.getValue()).append('\n');
+        }
+
+        // Befehle als eine Familie mit Label, übrige Histogramme je eine Familie
+        boolean commandHeader = false;
+        for (Map.Entry<String, LatencyHistogram> h : Metrics.histograms().entrySet()) {
+            String key = h.getKey();
+            if (key.startsWith("cmd.")) {
+                String family = PREFIX + "command_duration_seconds";
+                if (!commandHeader) {
+                    sb.append("# TYPE ").append(family).append(" summary\n");
+                    commandHeader = true;
+                }
+                summary(sb, family, "command=\"" + key.substring(4) + "\"", h.getValue());
+            }
+        }
+        for (Map.Entry<String, LatencyHistogram> h : Metrics.histograms().entrySet()) {
+            if (h.getKey().startsWith("cmd.")) continue;
+            String family = metricName(h.getKey()) + "_seconds";
+            sb.append("# TYPE ").append(family).append(" summary\n");
+            summary(sb, family, "", h.getValue());
+        }
+        return sb.toString();
+    }
+
+    private static void gauge(StringBuilder sb, String name, long value) {
+        sb.append("# TYPE ").append(name).append(" gauge\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void summary(StringBuilder sb, String family, String labels, LatencyHistogram h) {
+        String sep = labels.isEmpty() ? "" : ",";
+        for (double q : QUANTILES) {
+            sb.append(family).append('{').append(labels).append(sep).append("quantile=\"").append(q).append("\"} ")
+                    .append(seconds(h.percentile(q * 100))).append('\n');
+        }
+        sb.append(family).append('{').append(labels).append(sep).append("quantile=\"1\"} ")
+                .append(seconds(h.getMax())).append('\n');
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        sb.append(family).append("_sum").append(braces).append(' ').append(seconds(h.getSum())).append('\n');
+        sb.append(family).append("_count").append(braces).append(' ').append(h.getCount()).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    // "match.firstMove" -> tictactoe_match_first_move
+    static String metricName(String key) {
+        StringBuilder sb = new StringBuilder(PREFIX);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (Character.isUpperCase(c)) {
+                sb.append('_').append(Character.toLowerCase(c));
+            } else if (Character.isLetterOrDigit(c) && c < 128) {
+                sb.append(c);
+            } else {
+                sb.append('_');
+            }
+        }
+        return sb.toString();
+    }
+}
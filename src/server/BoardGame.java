@@ -0,0 +1,26 @@
+package server;
+
+/**
+ * Gemeinsame Schnittstelle der Spielkerne (klassisches 3x3-Bitboard und allgemeines m,n,k-Board).
+ * Zellen werden von Bots als Index row * getCols() + col angesprochen.
+ */
+public interface BoardGame {
+
+    boolean makeMove(int row, int col, char player);
+
+    char getCurrentPlayer();
+
+    // 'X'/'O' winner, 'D' draw, ' ' ongoing
+    char checkWinner();
+
+    // 'X', 'O' oder '\0' (leer)
+    char getCell(int row, int col);
+
+    int getRows();
+    int getCols();
+    int getWinLength();
+    int getMoveCount();
+
+    // unabhängige Kopie, z.B. damit Bots außerhalb des Session-Locks rechnen können
+    BoardGame copy();
+}
@@ -1,51 +1,48 @@
 package server;
 
-import java.util.*;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
-public class BotPlayer {
+/**
+ * Gegner im BOT-Modus. pickMove liefert den Zug als Zellindex (row * cols + col) oder -1, wenn kein Zug möglich ist.
+ */
+public interface BotPlayer {
 
-    private final Random rnd = new Random();
+    int pickMove(BoardGame game, char me);
 
-    public int[] pickMove(char[][] board, char me, char opp) {
-        // win
-        int[] w = findWinning(board, me);
-        if (w != null) return w;
-        // block
-        int[] b = findWinning(board, opp);
-        if (b != null) return b;
-        // center
-        if (board[1][1] == '\0') return new int[]{1, 1};
-        // corners
-        int[][] corners = {{0,0},{0,2},{2,0},{2,2}};
-        List<int[]> freeCorners = new ArrayList<>();
-        for (int[] c : corners) if (board[c[0]][c[1]] == '\0') freeCorners.add(c);
-        if (!freeCorners.isEmpty()) return freeCorners.get(rnd.nextInt(freeCorners.size()));
-        // any
-        List<int[]> free = new ArrayList<>();
-        for (int r=0;r<3;r++) for (int c=0;c<3;c++) if (board[r][c] == '\0') free.add(new int[]{r,c});
-        return free.isEmpty() ? null : free.get(rnd.nextInt(free.size()));
+    // Bricht ein laufendes pickMove möglichst schnell ab (beliebiger Thread); gilt bis zum nächsten resetCancel.
+    default void cancel() {}
+
+    // Hebt ein früheres cancel auf; der BotPool ruft es vor dem Start eines Tickets, nicht pickMove selbst.
+    default void resetCancel() {}
+
+    static BotPlayer forLevel(String level) {
+        return forLevel(level, GameVariant.CLASSIC, 15);
     }
 
-    private int[] findWinning(char[][] b, char s) {
-        for (int r=0;r<3;r++) {
-            int[] m = lineWin(b, s, r,0, r,1, r,2);
-            if (m != null) return m;
+    // Bot-Stufe aus SETTINGS: CLASSIC (Standard), PERFECT oder EASY/MEDIUM/HARD (Such-Bot mit Budget).
+    // MCTS: paralleler Monte-Carlo-Bot mit Zeitbudget aus dem Zug-Timer (jede Board-Größe).
+    // Auf größeren Boards gibt es sonst nur den Such-Bot; CLASSIC/PERFECT werden dort zu HARD.
+    static BotPlayer forLevel(String level, GameVariant variant, int timerSec) {
+        String l = (level == null) ? "" : level.trim().toUpperCase(Locale.ROOT);
+        if (l.equals("MCTS")) {
+            return new MctsBot(variant.rows, variant.cols, variant.winLength,
+                    MctsBot.budgetMillisFor(timerSec), TimeUnit.MILLISECONDS);
         }
-        for (int c=0;c<3;c++) {
-            int[] m = lineWin(b, s, 0,c, 1,c, 2,c);
-            if (m != null) return m;
+        if (!variant.isClassic()) {
+            SearchBot.Level searchLevel = switch (l) {
+                case "EASY" -> SearchBot.Level.EASY;
+                case "MEDIUM" -> SearchBot.Level.MEDIUM;
+                default -> SearchBot.Level.HARD;
+            };
+            return new SearchBot(variant.rows, variant.cols, variant.winLength, searchLevel);
         }
-        int[] d1 = lineWin(b, s, 0,0, 1,1, 2,2);
-        if (d1 != null) return d1;
-        int[] d2 = lineWin(b, s, 0,2, 1,1, 2,0);
-        return d2;
-    }
-
-    private int[] lineWin(char[][] b, char s, int r1,int c1,int r2,int c2,int r3,int c3) {
-        char a=b[r1][c1], d=b[r2][c2], e=b[r3][c3];
-        if (a==s && d==s && e=='\0') return new int[]{r3,c3};
-        if (a==s && e==s && d=='\0') return new int[]{r2,c2};
-        if (d==s && e==s && a=='\0') return new int[]{r1,c1};
-        return null;
+        return switch (l) {
+            case "PERFECT" -> PerfectBot.INSTANCE;
+            case "EASY" -> new SearchBot(SearchBot.Level.EASY);
+            case "MEDIUM" -> new SearchBot(SearchBot.Level.MEDIUM);
+            case "HARD" -> new SearchBot(SearchBot.Level.HARD);
+            default -> new HeuristicBot();
+        };
     }
 }
@@ -0,0 +1,164 @@
+package server;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Gemeinsamer, begrenzter Worker-Pool für alle Bot-Züge des Servers.
+ * Ein Auftrag ist eine Board-Kopie plus Deadline (Ablauf des Zug-Timers). Die Warteschlange ist nach Deadline
+ * sortiert, dringende Züge kommen also zuerst dran; jede Session hat höchstens einen offenen Auftrag und kann
+ * die Queue daher nicht fluten. Abgebrochene (Session beendet) oder abgelaufene Aufträge werden verworfen,
+ * laufende Bots werden per BotPlayer.cancel() gestoppt. Wartezeit und Rechenzeit pro Zug: Histogramme bots.queue
+ * und bots.compute.
+ * Konfiguration: -Dtictactoe.bot.workers (Threads), -Dtictactoe.bot.queue (max. wartende Aufträge).
+ */
+public class BotPool {
+
+    private static final int ST_QUEUED = 0;
+    private static final int ST_RUNNING = 1;
+    private static final int ST_DONE = 2;
+    private static final int ST_CANCELLED = 3;
+
+    public final class Ticket implements Comparable<Ticket> {
+        private final BotPlayer bot;
+        private final BoardGame board;
+        private final char me;
+        private final long deadline;
+        private final long seq;
+        private final long enqueuedAt = System.nanoTime();
+        private final IntConsumer onMove;
+        private final AtomicInteger state = new AtomicInteger(ST_QUEUED);
+
+        private Ticket(BotPlayer bot, BoardGame board, char me, long deadline, long seq, IntConsumer onMove) {
+            this.bot = bot;
+            this.board = board;
+            this.me = me;
+            this.deadline = deadline;
+            this.seq = seq;
+            this.onMove = onMove;
+        }
+
+        // Ergebnis wird danach nicht mehr zugestellt; ein laufender Bot wird zum Abbruch aufgefordert
+        public void cancel() {
+            if (state.compareAndSet(ST_QUEUED, ST_CANCELLED)) {
+                cancelled.increment();
+                lock.lock();
+                try {
+                    queue.remove(this);
+                } finally {
+                    lock.unlock();
+                }
+            } else if (state.compareAndSet(ST_RUNNING, ST_CANCELLED)) {
+                cancelled.increment();
+                bot.cancel();
+            }
+        }
+
+        @Override
+        public int compareTo(Ticket o) {
+            int c = Long.compare(deadline, o.deadline);
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>();
+    private final int maxQueued;
+    private final Thread[] workers;
+    private long seq; // unter lock
+
+    // Metriken (Export als Zähler bots.*_total bzw. Histogramme)
+    private final LongAdder submitted = Metrics.counter("bots.submitted");
+    private final LongAdder completed = Metrics.counter("bots.completed");
+    private final LongAdder cancelled = Metrics.counter("bots.cancelled");
+    private final LongAdder expired = Metrics.counter("bots.expired");
+    private final LongAdder rejected = Metrics.counter("bots.rejected");
+    private final LatencyHistogram queueLatency = Metrics.histogram("bots.queue");
+    private final LatencyHistogram computeLatency = Metrics.histogram("bots.compute");
+
+    public BotPool(String name, int workerCount, int maxQueued) {
+        this.maxQueued = Math.max(1, maxQueued);
+        this.workers = new Thread[Math.max(1, workerCount)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(this::runWorker, name + "-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Reiht einen Bot-Zug ein. onMove bekommt den Zellindex (oder -1) auf einem Worker-Thread,
+     * aber nur, wenn der Auftrag bis dahin nicht abgebrochen wurde. Liefert null, wenn die Queue voll ist.
+     */
+    public Ticket submit(BotPlayer bot, BoardGame board, char me, long timeout, TimeUnit unit, IntConsumer onMove) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        lock.lock();
+        try {
+            if (queue.size() >= maxQueued) {
+                rejected.increment();
+                return null;
+            }
+            Ticket t = new Ticket(bot, board, me, deadline, seq++, onMove);
+            queue.add(t);
+            submitted.increment();
+            notEmpty.signal();
+            return t;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runWorker() {
+        while (true) {
+            Ticket t;
+            lock.lock();
+            try {
+                while ((t = queue.poll()) == null) notEmpty.awaitUninterruptibly();
+            } finally {
+                lock.unlock();
+            }
+
+            long now = System.nanoTime();
+            if (now > t.deadline) {
+                if (t.state.compareAndSet(ST_QUEUED, ST_CANCELLED)) expired.increment();
+                continue;
+            }
+            // vor RUNNING zurücksetzen, sonst ginge ein cancel direkt nach dem Start verloren
+            t.bot.resetCancel();
+            if (!t.state.compareAndSet(ST_QUEUED, ST_RUNNING)) continue;
+            queueLatency.record(now - t.enqueuedAt);
+
+            int mv;
+            try {
+                mv = t.bot.pickMove(t.board, t.me);
+            } catch (Exception e) {
+                System.out.println("[BotPool] Fehler im Bot: " + e.getMessage());
+                mv = -1;
+            }
+            computeLatency.recordSince(now);
+
+            if (!t.state.compareAndSet(ST_RUNNING, ST_DONE)) continue;
+            completed.increment();
+            try {
+                t.onMove.accept(mv);
+            } catch (Exception e) {
+                System.out.println("[BotPool] Fehler beim Zustellen des Bot-Zugs: " + e.getMessage());
+            }
+        }
+    }
+
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -2,49 +2,123 @@ package server;
 
 import java.io.*;
 import java.net.Socket;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
-public class ClientHandler extends Thread {
+public class ClientHandler implements Runnable {
+
+    // Latenz (und damit Anzahl) pro Protokoll-Befehl; unbekannte Befehle zählen gemeinsam, damit Clients das
+    // Register nicht mit beliebigen Namen füllen können
+    private static final Map<String, LatencyHistogram> CMD_LATENCY = new ConcurrentHashMap<>();
+    private static final LatencyHistogram OTHER_LATENCY = Metrics.histogram("cmd.OTHER");
+    private static final LongAdder CMD_ERRORS = Metrics.counter("cmd.errors");
+
+    // Zuschauer, deren Ausgang so viele Zeilen hinterherhängt, werden aus der Partie genommen (statt getrennt)
+    private static final int SPECTATOR_MAX_QUEUED = Integer.getInteger("tictactoe.out.spectatorMax", 200);
+    private static final LongAdder SPECTATORS_DROPPED = Metrics.counter("out.spectatorsDropped");
 
-    private final Socket socket;
     private final TicTacToeServer server;
 
-    private PrintWriter out;
-    private BufferedReader in;
+    // Transport (Socket oder NIO); socketConn nur im Thread-pro-Client-Modus gesetzt
+    private Connection connection;
+    private SocketConnection socketConn;
+    private volatile boolean disconnected = false;
 
     private String playerName = "";
     private String mode = "HUMAN";
     private int timerSec = 15;
+    private String botLevel = "CLASSIC";
+    private GameVariant variant = GameVariant.CLASSIC;
 
     // session
     private volatile MatchSession session;
     private volatile char symbol = '?';
     private volatile ClientHandler opponent;
+    // Zuschauer: Zeilen des Board-Replays beim Einstieg, die nicht gegen SPECTATOR_MAX_QUEUED zählen
+    private volatile int replayLines;
 
     // rematch
     private boolean rematchOfferReceived = false;
+    // Variante des zuletzt beendeten Matches (Rematch spielt dieselbe, nicht die aktuelle Einstellung)
+    private volatile GameVariant lastVariant = GameVariant.CLASSIC;
+
+    // Zeitpunkte der gerade verarbeiteten Zeile für MoveTrace (nur der lesende Thread greift zu)
+    private long lineReadAt;
+    private long lineDispatchAt;
+    // Sicht auf die aktuelle Zeile, wird für jede Zeile wiederverwendet (Zeilen eines Clients kommen nacheinander)
+    private final ProtocolLine in = new ProtocolLine();
 
     public ClientHandler(Socket socket, TicTacToeServer server) {
-        this.socket = socket;
         this.server = server;
 
         if (socket != null) {
             try {
-                out = new PrintWriter(socket.getOutputStream(), true);
-                in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                sendMessage(Protocol.SRV_MESSAGE + Protocol.SEPARATOR + "Verbunden. Bitte LOGIN;DeinName senden.");
+                socketConn = new SocketConnection(socket);
+                connection = socketConn;
             } catch (IOException e) {
                 System.out.println("Init-Fehler: " + e.getMessage());
             }
         }
     }
 
+    // NIO-Modus: Lesen übernimmt der Event-Loop, der handleLine() aufruft
+    public ClientHandler(Connection connection, TicTacToeServer server) {
+        this.server = server;
+        this.connection = connection;
+    }
+
     // BotSentinel
     public static final class BotSentinel extends ClientHandler {
-        public BotSentinel() { super(null, null); }
+        public BotSentinel() { super((Connection) null, null); }
+    }
+
+    // erst nach dem Konstruktor: run() im Thread-Modus, NioServer.register im NIO-Modus
+    void sendGreeting() {
+        sendMessage(Protocol.SRV_MESSAGE + Protocol.SEPARATOR + "Verbunden. Bitte LOGIN;DeinName senden.");
     }
 
     public void sendMessage(String msg) {
-        if (out != null) out.println(msg);
+        if (connection != null) sendEncoded(MessageEncoder.encode(msg));
+    }
+
+    // fertig kodierte Zeile (MessageEncoder), z. B. einmal kodiert für alle Empfänger eines Broadcasts
+    public void sendEncoded(byte[] line) {
+        Connection c = connection;
+        if (c == null) return;
+        c.send(line);
+        if (symbol != 'S') return;
+        int queued = c.queued();
+        if (queued > SPECTATOR_MAX_QUEUED + replayLines) dropSlowSpectator();
+        else if (replayLines != 0 && queued <= SPECTATOR_MAX_QUEUED) replayLines = 0; // Replay abgeholt
+    }
+
+    // vor dem nächsten Teil einer großen Antwort warten, bis höchstens lines Zeilen anstehen; false = Verbindung weg
+    public boolean awaitOutbound(int lines) {
+        Connection c = connection;
+        return c == null || c.awaitQueuedBelow(lines);
+    }
+
+    // Board-Replay beim Einstieg als Zuschauer (MatchSession.addSpectator): die Zeilen laufen ohne Prüfung, und bis
+    // sie abgeholt sind, dürfen so viele Zeilen zusätzlich anstehen
+    void beginReplay(int lines) {
+        replayLines = lines;
+    }
+
+    void sendReplay(byte[] line) {
+        Connection c = connection;
+        if (c != null) c.send(line);
+    }
+
+    // läuft meist innerhalb von MatchSession.broadcast (spectators ist eine CopyOnWriteArrayList)
+    private void dropSlowSpectator() {
+        MatchSession s = session;
+        if (s == null) return;
+        s.removeSpectator(this);
+        clearSession();
+        SPECTATORS_DROPPED.increment();
+        connection.send(Protocol.SRV_MESSAGE + Protocol.SEPARATOR + "Zuschauen beendet: Verbindung zu langsam.");
     }
 
     public String getPlayerName() {
@@ -53,6 +127,8 @@ public class ClientHandler extends Thread {
 
     public String getMode() { return mode; }
     public int getTimerSec() { return timerSec; }
+    public String getBotLevel() { return botLevel; }
+    public GameVariant getVariant() { return variant; }
     public char getSymbol() { return symbol; }
 
     public void setSession(MatchSession s, char sym, ClientHandler opp) {
@@ -72,6 +148,8 @@ public class ClientHandler extends Thread {
 
     // Match vorbei aber Rematch soll noch gehen
     public void endMatchKeepOpponent() {
+        MatchSession s = session;
+        if (s != null) this.lastVariant = s.getVariant();
         this.session = null;
         this.rematchOfferReceived = false;
         // symbol + opponent bleiben absichtlich
@@ -79,132 +157,191 @@ public class ClientHandler extends Thread {
 
     @Override
     public void run() {
+        if (socketConn == null) return;
+        sendGreeting();
         try {
             String line;
-            while ((line = in.readLine()) != null) {
-                if (line.isBlank()) continue;
-
-                try {
-                    String[] parts = line.split(Protocol.SEPARATOR, -1);
-                    String cmd = parts[0];
-
-                    switch (cmd) {
-                        case Protocol.CMD_LOGIN -> handleLogin(parts);
-                        case Protocol.CMD_SETTINGS -> handleSettings(parts);
-
-                        case Protocol.CMD_LIST -> server.sendRoomsTo(this);
-                        case Protocol.CMD_HOST -> server.hostRoom(this, parts.length >= 2 ? parts[1] : "");
-                        case Protocol.CMD_JOIN -> {
-                            if (parts.length < 2) sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "JOIN braucht Room-ID.");
-                            else server.joinRoom(this, parts[1].trim());
-                        }
-
-                        case Protocol.CMD_SPECTATE -> {
-                            if (parts.length < 2) sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "SPECTATE braucht Session-ID.");
-                            else server.spectateSession(this, parts[1].trim());
-                        }
-
-                        case Protocol.CMD_SCORE_REQ -> server.sendScoreboardTo(this);
-
-                        case Protocol.CMD_HISTORY_REQ -> handleHistory(parts);
-
-                        case Protocol.CMD_MOVE -> handleMove(parts);
-                        case Protocol.CMD_CHAT -> handleChat(parts);
-
-                        case Protocol.CMD_REMATCH -> handleRematchOffer();
-                        case Protocol.CMD_REMATCH_ACCEPT -> handleRematchAccept();
-                        case Protocol.CMD_REMATCH_DECLINE -> handleRematchDecline("abgelehnt");
-
-                        case Protocol.CMD_LEAVE -> handleLeaveToLobby();
-
-                        // Tournament commands
-                        case Protocol.CMD_HOST_TOURNAMENT -> {
-                            String tName = parts.length >= 2 ? parts[1] : "Turnier";
-                            int maxP = 4;
-                            if (parts.length >= 3) {
-                                try { maxP = Integer.parseInt(parts[2].trim()); } catch (NumberFormatException ignored) {}
-                            }
-                            server.hostTournament(this, tName, maxP);
-                        }
-                        case Protocol.CMD_JOIN_TOURNAMENT -> {
-                            if (parts.length < 2) sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "TJOIN braucht Turnier-ID.");
-                            else server.joinTournament(this, parts[1].trim());
-                        }
-                        case Protocol.CMD_START_TOURNAMENT -> {
-                            if (parts.length < 2) sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "TSTART braucht Turnier-ID.");
-                            else server.startTournament(this, parts[1].trim());
-                        }
-                        case Protocol.CMD_LIST_TOURNAMENTS -> server.sendTournamentsTo(this);
-
-                        case Protocol.CMD_QUIT -> { close(); return; }
-                        default -> { /* ignore */ }
-                    }
-                } catch (Exception e) {
-                    System.out.println("[ClientHandler] Fehler bei Verarbeitung von '" + line + "': " + e.getMessage());
-                    sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "Interner Fehler bei der Verarbeitung.");
-                }
+            while ((line = socketConn.readLine()) != null) {
+                if (!handleLine(line, System.nanoTime())) return;
             }
         } catch (IOException ignored) {
         } finally {
-            // disconnect: Spectator oder Spieler?
-            if (symbol == 'S' && session != null) {
-                // Spectator: einfach entfernen
-                session.removeSpectator(this);
-            } else if (opponent != null) {
-                opponent.sendMessage(Protocol.SRV_OPPONENT_LEFT);
-                opponent.handleRematchDecline("Gegner getrennt");
-                opponent.clearSession();
+            onDisconnect();
+        }
+    }
+
+    // Verarbeitet eine Protokoll-Zeile; false = Verbindung soll beendet werden (QUIT). readAt: Zeile gelesen (nanoTime)
+    boolean handleLine(String line, long readAt) {
+        if (line.isBlank()) return true;
+        if (connection != null && mayBlock(in.reset(line).command())) {
+            connection.runBlocking(() -> processLine(line, readAt));
+            return true;
+        }
+        return processLine(line, readAt);
+    }
+
+    // Befehle mit Datei-I/O oder größeren Antworten (Historie, Rangliste, Spielstart liest den Spielstand ein)
+    private static boolean mayBlock(String cmd) {
+        if (cmd == null) return false;
+        return switch (cmd) {
+            case Protocol.CMD_HISTORY_REQ, Protocol.CMD_SCORE_REQ, Protocol.CMD_SCORE_PAGE, Protocol.CMD_SCORE_RANK,
+                 Protocol.CMD_SCORE_AROUND, Protocol.CMD_HOST, Protocol.CMD_JOIN, Protocol.CMD_REMATCH_ACCEPT,
+                 Protocol.CMD_START_TOURNAMENT -> true;
+            default -> false;
+        };
+    }
+
+    private boolean processLine(String line, long readAt) {
+        long t0 = System.nanoTime();
+        lineReadAt = readAt;
+        lineDispatchAt = t0;
+        String cmd = null;
+        try {
+            ProtocolLine parts = in.reset(line);
+            cmd = parts.command();
+            if (cmd == null) return true; // unbekannt: ignorieren (zählt unter cmd.OTHER)
+
+            switch (cmd) {
+                case Protocol.CMD_LOGIN -> handleLogin(parts);
+                case Protocol.CMD_SETTINGS -> handleSettings(parts);
+
+                case Protocol.CMD_LIST -> server.sendRoomsTo(this);
+                case Protocol.CMD_HOST -> server.hostRoom(this, parts.raw(1));
+                case Protocol.CMD_JOIN -> {
+                    if (!parts.has(1)) sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "JOIN braucht Room-ID.");
+                    else server.joinRoom(this, parts.text(1));
+                }
+
+                case Protocol.CMD_SPECTATE -> {
+                    if (!parts.has(1)) sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "SPECTATE braucht Session-ID.");
+                    else server.spectateSession(this, parts.text(1));
+                }
+
+                case Protocol.CMD_SCORE_REQ -> server.sendScoreboardTo(this);
+                case Protocol.CMD_SCORE_PAGE -> server.sendScorePageTo(this,
+                        parts.intAt(1, 0), Math.min(100, Math.max(1, parts.intAt(2, 20))));
+                case Protocol.CMD_SCORE_RANK -> server.sendScoreRankTo(this, nameOrSelf(parts, 1));
+                case Protocol.CMD_SCORE_AROUND -> server.sendScoresAroundTo(this, nameOrSelf(parts, 1),
+                        Math.min(50, Math.max(0, parts.intAt(2, 5))));
+
+                case Protocol.CMD_HISTORY_REQ -> handleHistory(parts);
+
+                case Protocol.CMD_MOVE -> handleMove(parts);
+                case Protocol.CMD_CHAT -> handleChat(parts);
+
+                case Protocol.CMD_REMATCH -> handleRematchOffer();
+                case Protocol.CMD_REMATCH_ACCEPT -> handleRematchAccept();
+                case Protocol.CMD_REMATCH_DECLINE -> handleRematchDecline("abgelehnt");
+
+                case Protocol.CMD_LEAVE -> handleLeaveToLobby();
+
+                // Tournament commands
+                case Protocol.CMD_HOST_TOURNAMENT ->
+                        server.hostTournament(this, parts.has(1) ? parts.raw(1) : "Turnier", parts.intAt(2, 4));
+                case Protocol.CMD_JOIN_TOURNAMENT -> {
+                    if (!parts.has(1)) sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "TJOIN braucht Turnier-ID.");
+                    else server.joinTournament(this, parts.text(1));
+                }
+                case Protocol.CMD_START_TOURNAMENT -> {
+                    if (!parts.has(1)) sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "TSTART braucht Turnier-ID.");
+                    else server.startTournament(this, parts.text(1));
+                }
+                case Protocol.CMD_LIST_TOURNAMENTS -> server.sendTournamentsTo(this);
+
+                case Protocol.CMD_QUIT -> { return false; }
+                default -> cmd = null; // ignorieren
             }
-            close();
-            if (server != null) server.unregister(this);
+        } catch (Exception e) {
+            CMD_ERRORS.increment();
+            System.out.println("[ClientHandler] Fehler bei Verarbeitung von '" + line + "': " + e.getMessage());
+            sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "Interner Fehler bei der Verarbeitung.");
+        } finally {
+            LatencyHistogram h = cmd == null ? OTHER_LATENCY
+                    : CMD_LATENCY.computeIfAbsent(cmd, c -> Metrics.histogram("cmd." + c));
+            h.recordSince(t0);
         }
+        return true;
     }
 
-    private void handleLogin(String[] parts) {
-        if (parts.length < 2 || parts[1].isBlank()) {
+    // Aufräumen nach Verbindungsende (wird genau einmal ausgeführt)
+    void onDisconnect() {
+        if (disconnected) return;
+        disconnected = true;
+
+        // disconnect: Spectator oder Spieler? (lokale Kopien, Felder können parallel geleert werden)
+        MatchSession s = session;
+        ClientHandler opp = opponent;
+        if (symbol == 'S' && s != null) {
+            // Spectator: einfach entfernen
+            s.removeSpectator(this);
+        } else if (opp != null) {
+            opp.sendMessage(Protocol.SRV_OPPONENT_LEFT);
+            opp.handleRematchDecline("Gegner getrennt");
+            opp.clearSession();
+        }
+        close();
+        if (server != null) server.unregister(this);
+    }
+
+    private void handleLogin(ProtocolLine parts) {
+        if (!parts.isPresent(1)) {
             playerName = "Spieler";
             sendMessage(Protocol.SRV_MESSAGE + Protocol.SEPARATOR + "Login ungültig. Du bist '" + playerName + "'.");
             return;
         }
-        playerName = parts[1].trim();
+        playerName = parts.text(1);
         sendMessage(Protocol.SRV_MESSAGE + Protocol.SEPARATOR + "Login erfolgreich: " + playerName);
     }
 
-    private void handleSettings(String[] parts) {
-        if (parts.length >= 2) mode = parts[1].trim();
-        if (parts.length >= 3) {
-            try { timerSec = Math.max(3, Integer.parseInt(parts[2].trim())); }
-            catch (NumberFormatException ignored) {}
-        }
-        sendMessage(Protocol.SRV_MESSAGE + Protocol.SEPARATOR + "Settings: " + mode + ", " + timerSec + "s");
+    private void handleSettings(ProtocolLine parts) {
+        if (parts.has(1)) mode = parts.text(1);
+        timerSec = Math.max(3, parts.intAt(2, timerSec));
+        if (parts.isPresent(3)) botLevel = parts.text(3).toUpperCase(Locale.ROOT);
+        if (parts.has(4)) variant = GameVariant.parse(parts.raw(4));
+        sendMessage(Protocol.SRV_MESSAGE + Protocol.SEPARATOR + "Settings: " + mode + ", " + timerSec + "s, " + variant
+                + ("BOT".equalsIgnoreCase(mode) ? ", Bot " + botLevel : ""));
     }
 
-    private void handleHistory(String[] parts) {
-        // HISTORY;player;from;to
-        String player = parts.length >= 2 ? parts[1] : "";
-        String from = parts.length >= 3 ? parts[2] : "";
-        String to = parts.length >= 4 ? parts[3] : "";
-        server.sendHistoryTo(this, player, from, to);
+    private String nameOrSelf(ProtocolLine parts, int idx) {
+        return parts.isPresent(idx) ? parts.text(idx) : getPlayerName();
     }
 
-    private void handleMove(String[] parts) {
+    private void handleHistory(ProtocolLine parts) {
+        // HISTORY;player;from;to[;limit[;cursor]]
+        String player = parts.raw(1);
+        String from = parts.raw(2);
+        String to = parts.raw(3);
+        int limit = parts.intAt(4, 0);
+        if (limit <= 0) {
+            // alter Client: alles, älteste zuerst
+            server.sendHistoryTo(this, player, from, to);
+            return;
+        }
+        long cursor = parts.longAt(5, -1);
+        server.sendHistoryPageTo(this, player, from, to, Math.min(limit, 500), cursor);
+    }
+
+    private void handleMove(ProtocolLine parts) {
         if (session == null) {
             sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "Du bist in keinem Match.");
             return;
         }
-        if (parts.length < 3) return;
-        try {
-            int r = Integer.parseInt(parts[1]);
-            int c = Integer.parseInt(parts[2]);
-            session.onMove(this, r, c);
-        } catch (NumberFormatException e) {
+        if (parts.fields() < 3) return;
+        int r = parts.intAt(1, Integer.MIN_VALUE);
+        int c = parts.intAt(2, Integer.MIN_VALUE);
+        if (r == Integer.MIN_VALUE || c == Integer.MIN_VALUE) {
             sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "Ungültiges Koordinatenformat.");
+            return;
         }
+        session.onMove(this, r, c, MoveTrace.begin(lineReadAt, lineDispatchAt));
+        // Spiel beendet und PersistencePipeline voll: erst jetzt (ohne Session-Lock) warten, bei NIO auf einem Worker
+        PersistencePipeline p = server.getPersistence();
+        if (p.isFull()) connection.runBlocking(p::awaitCapacity);
     }
 
-    private void handleChat(String[] parts) {
-        if (parts.length < 2) return;
-        String msg = parts[1].replace(";", ",").trim();
+    private void handleChat(ProtocolLine parts) {
+        if (!parts.has(1)) return;
+        String msg = parts.text(1);
         if (msg.isEmpty()) return;
 
         // Session aktiv? -> Chat über Session (inkl. Spectators)
@@ -260,7 +397,7 @@ public class ClientHandler extends Thread {
             sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "Kein Rematch-Angebot vorhanden.");
             return;
         }
-        server.startRematchSwapped(this, opponent);
+        server.startRematchSwapped(this, opponent, lastVariant);
     }
 
     void handleRematchDecline(String reason) {
@@ -271,8 +408,6 @@ public class ClientHandler extends Thread {
     }
 
     private void close() {
-        try { if (in != null) in.close(); } catch (IOException ignored) {}
-        if (out != null) out.close();
-        try { if (socket != null) socket.close(); } catch (IOException ignored) {}
+        if (connection != null) connection.close();
     }
 }
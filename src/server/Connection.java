@@ -0,0 +1,32 @@
+package server;
+
+/**
+ * Transport einer Client-Verbindung. Entkoppelt den ClientHandler davon,
+ * ob die Verbindung über einen blockierenden Socket oder einen NIO-Channel läuft.
+ */
+public interface Connection {
+
+    // Eine fertig kodierte Zeile inkl. '\n' (MessageEncoder) einreihen; darf von jedem Thread aufgerufen werden und
+    // blockiert nie. Das Array wird ohne Kopie geteilt (Broadcast) und darf danach nicht mehr verändert werden.
+    void send(byte[] line);
+
+    // Eine Protokoll-Zeile (ohne Zeilenumbruch) senden
+    default void send(String line) {
+        send(MessageEncoder.encode(line));
+    }
+
+    // noch nicht gesendete Zeilen
+    int queued();
+
+    // Wartet, bis höchstens lines Zeilen anstehen (große Antworten seitenweise); false = Verbindung geschlossen
+    // oder Client zu langsam (wird dann getrennt). Blockiert, bei NIO daher nur innerhalb von runBlocking().
+    boolean awaitQueuedBelow(int lines);
+
+    // Befehl, der blockieren darf (Datei-I/O); Socket-Modus: direkt im lesenden Thread, NIO: auf einem Worker,
+    // damit der Event-Loop frei bleibt. Weitere Zeilen dieser Verbindung werden erst danach verarbeitet.
+    default void runBlocking(Runnable task) {
+        task.run();
+    }
+
+    void close();
+}
@@ -2,55 +2,200 @@ package server;
 
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Spielstände laufender Matches (saves/<a>__<b>[__variante].csv, eine Zeile row;col;symbol pro Zug).
+ * Jede Session hält ein Journal: der Kanal bleibt offen, Züge werden angehängt und zusätzlich im Speicher
+ * gehalten (finish() muss die Datei nicht erneut lesen). Das fsync erledigt ein Flusher-Thread gesammelt
+ * für alle geänderten Journale (Group Commit, Intervall über -Dtictactoe.wal.flushMs).
+ * Beendete Spiele: retire() schließt das Journal sofort, gelöscht wird der Spielstand später per purge()
+ * (PersistencePipeline, nach dem fsync des Ergebnisses). Öffnet vorher ein neues Spiel derselben Spieler,
+ * verwirft open() den alten Spielstand selbst.
+ */
 public class GameStore {
+    private static final LatencyHistogram APPEND_LATENCY = Metrics.histogram("store.journal.append");
+    private static final LatencyHistogram SYNC_LATENCY = Metrics.histogram("store.journal.fsync");
+
     private final Path dir = Paths.get("saves");
 
+    // ReentrantLock statt synchronized: blockierende Datei-I/O pinnt sonst virtuelle Threads an ihren Carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Set<Journal> openJournals = ConcurrentHashMap.newKeySet();
+    // Spielstände beendeter Spiele, deren Löschen noch aussteht (unter lock)
+    private final Set<Path> retired = new HashSet<>();
+    private final long flushMillis = Math.max(1, Long.getLong("tictactoe.wal.flushMs", 20));
+
+    /** Zug-Journal einer Session; alle Methoden sind thread-sicher. */
+    public final class Journal {
+        private final Path file;
+        private final List<String[]> moves;
+        private final ReentrantLock jLock = new ReentrantLock();
+        private FileChannel channel; // erst beim ersten Zug geöffnet, damit leere Spiele keine Datei anlegen
+        private volatile boolean dirty;
+        private boolean closed;
+
+        private Journal(Path file, List<String[]> moves) {
+            this.file = file;
+            this.moves = moves;
+        }
+
+        // Kopie der bisherigen Züge (row, col, symbol)
+        public List<String[]> getMoves() {
+            jLock.lock();
+            try {
+                return new ArrayList<>(moves);
+            } finally {
+                jLock.unlock();
+            }
+        }
+
+        public void append(int row, int col, char sym) {
+            long t0 = System.nanoTime();
+            jLock.lock();
+            try {
+                if (closed) return;
+                moves.add(new String[]{String.valueOf(row), String.valueOf(col), String.valueOf(sym)});
+                if (channel == null) {
+                    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+                ByteBuffer buf = ByteBuffer.wrap((row + ";" + col + ";" + sym + "\n").getBytes(StandardCharsets.US_ASCII));
+                while (buf.hasRemaining()) channel.write(buf);
+                dirty = true;
+            } catch (IOException e) {
+                System.out.println("[GameStore] Zug konnte nicht gespeichert werden: " + e.getMessage());
+            } finally {
+                jLock.unlock();
+                APPEND_LATENCY.recordSince(t0);
+            }
+        }
+
+        // Spiel beendet: Journal schließen, der Spielstand bleibt bis purge() liegen (kein Datei-I/O außer close)
+        public void retire() {
+            close();
+            lock.lock();
+            try {
+                retired.add(file);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Spielstand nach retire() löschen, sofern open() ihn nicht schon verworfen hat
+        public void purge() {
+            lock.lock();
+            try {
+                if (retired.remove(file)) Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // ohne fsync: der Spielstand wird nach dem Spiel ohnehin gelöscht
+        private void close() {
+            jLock.lock();
+            try {
+                if (closed) return;
+                closed = true;
+                openJournals.remove(this);
+                if (channel != null) channel.close();
+            } catch (IOException ignored) {
+            } finally {
+                jLock.unlock();
+            }
+        }
+
+        private void sync() {
+            if (!dirty) return;
+            jLock.lock();
+            try {
+                if (closed || channel == null) return;
+                dirty = false;
+                long t0 = System.nanoTime();
+                channel.force(false);
+                SYNC_LATENCY.recordSince(t0);
+            } catch (IOException e) {
+                System.out.println("[GameStore] fsync fehlgeschlagen: " + e.getMessage());
+            } finally {
+                jLock.unlock();
+            }
+        }
+    }
+
     public GameStore() {
         try { Files.createDirectories(dir); } catch (IOException ignored) {}
-    }
 
-    private String key(String a, String b) {
-        String p1 = (a == null ? "" : a.trim());
-        String p2 = (b == null ? "" : b.trim());
-        if (p1.compareToIgnoreCase(p2) <= 0) return p1 + "__" + p2;
-        return p2 + "__" + p1;
+        Thread flusher = new Thread(this::runFlusher, "GameStoreFlusher");
+        flusher.setDaemon(true);
+        flusher.start();
     }
 
-    private Path file(String a, String b) {
-        return dir.resolve(key(a, b) + ".csv");
+    private void runFlusher() {
+        while (true) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(flushMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (Journal j : openJournals) j.sync();
+        }
     }
 
-    public synchronized List<String[]> loadMoves(String a, String b) {
-        Path f = file(a, b);
-        if (!Files.exists(f)) return Collections.emptyList();
-
-        List<String[]> moves = new ArrayList<>();
-        try (BufferedReader br = Files.newBufferedReader(f)) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                // row;col;symbol
-                String[] p = line.split(";");
-                if (p.length >= 3) moves.add(new String[]{p[0], p[1], p[2]});
-            }
-        } catch (IOException ignored) {}
-        return moves;
+    // Klassische Spiele behalten den alten Dateinamen, andere Varianten bekommen die Variante als Suffix
+    private String key(String a, String b, GameVariant variant) {
+        String p1 = (a == null ? "" : a.trim());
+        String p2 = (b == null ? "" : b.trim());
+        String k = (p1.compareToIgnoreCase(p2) <= 0) ? p1 + "__" + p2 : p2 + "__" + p1;
+        return (variant == null || variant.isClassic()) ? k : k + "__" + variant;
     }
 
-    public synchronized void appendMove(String a, String b, int row, int col, char sym) {
-        Path f = file(a, b);
-        try (PrintWriter pw = new PrintWriter(new FileWriter(f.toFile(), true))) {
-            pw.println(row + ";" + col + ";" + sym);
-        } catch (IOException ignored) {}
+    private Path file(String a, String b, GameVariant variant) {
+        return dir.resolve(key(a, b, variant) + ".csv");
     }
 
-    public synchronized void deleteSave(String a, String b) {
-        try { Files.deleteIfExists(file(a, b)); } catch (IOException ignored) {}
+    // Journal für ein Match öffnen; ein vorhandener Spielstand (abgebrochenes Spiel) wird dabei eingelesen
+    public Journal open(String a, String b, GameVariant variant) {
+        lock.lock();
+        try {
+            // Spielstand eines beendeten Spiels, dessen Löschen noch aussteht: gehört nicht zum neuen Spiel
+            Path f = file(a, b, variant);
+            if (retired.remove(f)) Files.deleteIfExists(f);
+        } catch (IOException ignored) {
+        } finally {
+            lock.unlock();
+        }
+        Journal j = new Journal(file(a, b, variant), new ArrayList<>(loadMoves(a, b, variant)));
+        openJournals.add(j);
+        return j;
     }
 
-    public synchronized boolean hasSave(String a, String b) {
-        return Files.exists(file(a, b));
+    public List<String[]> loadMoves(String a, String b, GameVariant variant) {
+        lock.lock();
+        try {
+            Path f = file(a, b, variant);
+            if (!Files.exists(f)) return Collections.emptyList();
+
+            List<String[]> moves = new ArrayList<>();
+            try (BufferedReader br = Files.newBufferedReader(f)) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    // row;col;symbol
+                    String[] p = line.split(";");
+                    if (p.length >= 3) moves.add(new String[]{p[0], p[1], p[2]});
+                }
+            } catch (IOException ignored) {}
+            return moves;
+        } finally {
+            lock.unlock();
+        }
     }
 }
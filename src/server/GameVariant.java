@@ -0,0 +1,64 @@
+package server;
+
+import java.util.Locale;
+
+/**
+ * Spielvariante als Board-Größe und Gewinnlänge, im Protokoll als "ZeilenxSpaltenxGewinnlänge" (z.B. 15x15x5).
+ * Namen: CLASSIC = 3x3x3, GOMOKU = 15x15x5. Ungültige Angaben fallen auf CLASSIC zurück.
+ */
+public final class GameVariant {
+
+    public static final int MIN_SIZE = 3;
+    public static final int MAX_SIZE = 19;
+
+    public static final GameVariant CLASSIC = new GameVariant(3, 3, 3);
+    public static final GameVariant GOMOKU = new GameVariant(15, 15, 5);
+
+    public final int rows;
+    public final int cols;
+    public final int winLength;
+
+    private GameVariant(int rows, int cols, int winLength) {
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+    }
+
+    public static GameVariant parse(String s) {
+        if (s == null || s.isBlank()) return CLASSIC;
+        String v = s.trim().toUpperCase(Locale.ROOT);
+        if (v.equals("CLASSIC")) return CLASSIC;
+        if (v.equals("GOMOKU")) return GOMOKU;
+
+        String[] p = v.split("X");
+        if (p.length == 0) return CLASSIC; // nur "X"
+        try {
+            int rows = Integer.parseInt(p[0].trim());
+            int cols = p.length >= 2 ? Integer.parseInt(p[1].trim()) : rows;
+            int k = p.length >= 3 ? Integer.parseInt(p[2].trim()) : Math.min(Math.max(rows, cols), 5);
+            return of(rows, cols, k);
+        } catch (NumberFormatException e) {
+            return CLASSIC;
+        }
+    }
+
+    public static GameVariant of(int rows, int cols, int winLength) {
+        if (rows < MIN_SIZE || rows > MAX_SIZE || cols < MIN_SIZE || cols > MAX_SIZE) return CLASSIC;
+        if (winLength < 3 || winLength > Math.max(rows, cols)) return CLASSIC;
+        if (rows == 3 && cols == 3 && winLength == 3) return CLASSIC;
+        return new GameVariant(rows, cols, winLength);
+    }
+
+    public boolean isClassic() {
+        return this == CLASSIC;
+    }
+
+    public BoardGame createGame() {
+        return isClassic() ? new TicTacToeGame() : new MnkGame(rows, cols, winLength);
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + cols + "x" + winLength;
+    }
+}
@@ -0,0 +1,773 @@
+package server;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binäres Ablageformat der Match-History: ein Ordner mit einer Segmentdatei pro Monat (yyyy-MM.seg) und den
+ * Spielernamen in players (ID = Zeilennummer).
+ * Segment: 24-Byte-Kopf (Magic, Version, Flags, kleinster/größter Tag, unkomprimierte Länge), danach Datensätze
+ * [varint Länge][Flags][varint Epoch-Sekunden der Ortszeit][varint Nanos][varint X-ID][varint O-ID][Gewinner][Züge].
+ * Züge: Art-Byte, varint Anzahl, dann bei 3x3 zwei Feldnummern pro Byte, bei Brettern bis 16x16 ein Byte
+ * (row << 4 | col) pro Zug, sonst der Text. Abwechselnde Symbole ab X bzw. O kosten nichts, sonst eine Bitmaske.
+ * Was sich nicht exakt zurückwandeln lässt (fremdes Zeitformat, anderer Zugtext), wird als Text gespeichert.
+ * Abgeschlossene Monate können beim Öffnen mit Deflate zu yyyy-MM.segz komprimiert werden. Über den Tagesbereich
+ * im Kopf überspringt scan() ganze Segmente. Schreiben: Aufrufer synchronisiert; read() und sync() sind
+ * thread-sicher. append() schreibt ohne fsync, sync() bringt alles bisher Angehängte auf die Platte.
+ * Gelesen wird aus FileChannel.map: Datensätze werden direkt aus dem gemappten Segment dekodiert, ohne Kopie
+ * in den Heap. Wächst das aktive Segment über das Mapping hinaus, wird es beim nächsten Zugriff neu gemappt.
+ * Position eines Datensatzes: (Monatsschlüssel << 40) | Offset im unkomprimierten Segment.
+ */
+public class HistorySegments {
+
+    private static final byte[] MAGIC = {'T', 'T', 'H', 'S'};
+    private static final int VERSION = 1;
+    public static final int HEADER = 24; // magic(4) version(1) flags(1) frei(2) minDay(4) maxDay(4) länge(8)
+    private static final int FLAG_COMPRESSED = 1;
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    private static final int OFFSET_BITS = 40;
+
+    // Datensatz-Flags
+    private static final int REC_RAW_TIME = 1;
+    private static final int REC_RAW_WINNER = 2;
+    // Zug-Arten (untere 2 Bit) und Symbol-Modus (Bit 2-3)
+    private static final int MOVES_CELL3 = 0;
+    private static final int MOVES_RC16 = 1;
+    private static final int MOVES_RAW = 3;
+    private static final int SYM_ALT_X = 0;
+    private static final int SYM_ALT_O = 1;
+    private static final int SYM_MASK = 2;
+
+    private static final DateTimeFormatter TS = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    /** Eine Partie; position/length werden von append() und scan() gesetzt. */
+    public static final class Record {
+        public final String time;
+        public final String playerX;
+        public final String playerO;
+        public final String winner;
+        public final String moves;
+        long position;
+        int length;
+        int xId;
+        int oId;
+        int day = Integer.MAX_VALUE; // noch nicht berechnet
+
+        public Record(String time, String playerX, String playerO, String winner, String moves) {
+            this.time = time;
+            this.playerX = playerX;
+            this.playerO = playerO;
+            this.winner = winner;
+            this.moves = moves;
+        }
+
+        // timestamp;X;O;winner;moves (HLINE- und CSV-Format)
+        public String toLine() {
+            return time + ";" + playerX + ";" + playerO + ";" + winner + ";" + moves;
+        }
+
+        // null bei weniger als 5 Feldern
+        public static Record parse(String line) {
+            String[] p = line.split(";", -1);
+            if (p.length < 5) return null;
+            return new Record(p[0], p[1], p[2], p[3], p[4]);
+        }
+
+        public long getPosition() { return position; }
+        public int getLength() { return length; }
+        public int getXId() { return xId; }
+        public int getOId() { return oId; }
+
+        // Tag (epochDay) oder Integer.MIN_VALUE, wenn der Zeitstempel nicht lesbar ist
+        public int day() {
+            if (day == Integer.MAX_VALUE) {
+                LocalDateTime t = parseTime(time);
+                day = t == null ? NO_DAY : (int) t.toLocalDate().toEpochDay();
+            }
+            return day;
+        }
+    }
+
+    private static final class Segment {
+        final int key; // Jahr * 12 + Monat - 1
+        Path file;
+        boolean compressed;
+        FileChannel channel; // nur unkomprimiert
+        volatile MappedByteBuffer map; // nur unkomprimiert, deckt [0, map.capacity()) ab
+        volatile boolean dirty; // seit dem letzten sync() beschrieben
+        int minDay;
+        int maxDay;
+        long size; // unkomprimierte Länge inkl. Kopf
+
+        Segment(int key) {
+            this.key = key;
+        }
+    }
+
+    private final Path dir;
+    private final Path playersFile;
+    private final ConcurrentHashMap<Integer, Segment> segments = new ConcurrentHashMap<>();
+    private final List<String> players = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> playerIds = new HashMap<>();
+    private FileChannel playersChannel;
+    private BufferedWriter playersOut;
+    private volatile boolean playersDirty;
+
+    // entpackte komprimierte Segmente, die zuletzt gelesen wurden
+    private final ReentrantLock cacheLock = new ReentrantLock();
+    private final LinkedHashMap<Integer, byte[]> inflated = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+            return size() > 4;
+        }
+    };
+
+    private final ReentrantLock mapLock = new ReentrantLock();
+
+    public HistorySegments(Path dir, boolean compress) throws IOException {
+        this.dir = dir;
+        this.playersFile = dir.resolve("players");
+        Files.createDirectories(dir);
+        if (Files.exists(playersFile)) {
+            try (BufferedReader r = Files.newBufferedReader(playersFile, StandardCharsets.UTF_8)) {
+                String name;
+                while ((name = r.readLine()) != null) {
+                    playerIds.put(name, players.size());
+                    players.add(name);
+                }
+            }
+        }
+        playersChannel = FileChannel.open(playersFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        playersOut = new BufferedWriter(Channels.newWriter(playersChannel, StandardCharsets.UTF_8));
+
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.{seg,segz}")) {
+            for (Path p : ds) openSegment(p);
+        }
+        if (compress) {
+            int latest = latestKey();
+            for (Segment s : new ArrayList<>(segments.values())) {
+                if (!s.compressed && s.key < latest) compress(s);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    public int playerCount() {
+        return players.size();
+    }
+
+    public String playerName(int id) {
+        return players.get(id);
+    }
+
+    public void flush() throws IOException {
+        playersOut.flush();
+    }
+
+    /** Bisher Angehängtes auf die Platte bringen (Spielernamen vor den Segmenten, die ihre IDs benutzen). */
+    public void sync() throws IOException {
+        if (playersDirty) {
+            playersDirty = false;
+            playersChannel.force(false);
+        }
+        for (Segment s : segments.values()) {
+            if (!s.dirty) continue;
+            s.dirty = false;
+            FileChannel ch = s.channel;
+            if (ch != null) ch.force(false);
+        }
+    }
+
+    public void close() throws IOException {
+        playersOut.close();
+        for (Segment s : segments.values()) {
+            if (s.channel != null) s.channel.close();
+        }
+    }
+
+    // ---- Schreiben (Aufrufer synchronisiert) ----
+
+    /** Hängt r an das Segment seines Monats an (bzw. an das jüngste, wenn dieses schon komprimiert ist). */
+    public void append(Record r) throws IOException {
+        r.xId = playerId(r.playerX);
+        r.oId = playerId(r.playerO);
+        byte[] payload = encode(r);
+
+        LocalDateTime t = parseTime(r.time);
+        int key = t == null ? latestKey() : t.getYear() * 12 + t.getMonthValue() - 1;
+        if (key == Integer.MIN_VALUE) key = monthKey(LocalDate.now());
+        Segment s = segments.get(key);
+        if (s != null && s.compressed) s = segments.get(latestKey());
+        if (s == null || s.compressed) s = createSegment(key);
+
+        // Tagesbereich im Kopf zuerst erweitern: ein Absturz danach lässt den Bereich höchstens zu groß
+        int day = r.day();
+        if (day != NO_DAY && (s.minDay == NO_DAY || day < s.minDay || day > s.maxDay)) {
+            s.minDay = s.minDay == NO_DAY ? day : Math.min(s.minDay, day);
+            s.maxDay = s.maxDay == NO_DAY ? day : Math.max(s.maxDay, day);
+            ByteBuffer h = ByteBuffer.allocate(8).putInt(s.minDay).putInt(s.maxDay).flip();
+            while (h.hasRemaining()) s.channel.write(h, 8 + h.position());
+        }
+
+        Buf b = new Buf(payload.length + 5);
+        b.putVarLong(payload.length);
+        int prefix = b.len;
+        b.put(payload, payload.length);
+        ByteBuffer buf = ByteBuffer.wrap(b.a, 0, b.len);
+        long pos = s.size;
+        while (buf.hasRemaining()) s.channel.write(buf, pos + buf.position());
+        s.size = pos + b.len;
+        s.dirty = true;
+        r.position = ((long) s.key << OFFSET_BITS) | (pos + prefix);
+        r.length = payload.length;
+    }
+
+    private int playerId(String name) throws IOException {
+        Integer id = playerIds.get(name);
+        if (id != null) return id;
+        int nid = players.size();
+        playerIds.put(name, nid);
+        players.add(name);
+        playersOut.write(name);
+        playersOut.write('\n');
+        playersOut.flush(); // vor dem ersten Datensatz mit dieser ID
+        playersDirty = true;
+        return nid;
+    }
+
+    private Segment createSegment(int key) throws IOException {
+        Segment s = new Segment(key);
+        s.file = dir.resolve(monthName(key) + ".seg");
+        s.channel = FileChannel.open(s.file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        s.minDay = NO_DAY;
+        s.maxDay = NO_DAY;
+        ByteBuffer h = header(0, NO_DAY, NO_DAY, HEADER);
+        while (h.hasRemaining()) s.channel.write(h, h.position());
+        s.size = HEADER;
+        segments.put(key, s);
+        return s;
+    }
+
+    private static ByteBuffer header(int flags, int minDay, int maxDay, long size) {
+        ByteBuffer h = ByteBuffer.allocate(HEADER);
+        h.put(MAGIC).put((byte) VERSION).put((byte) flags).putShort((short) 0).putInt(minDay).putInt(maxDay).putLong(size);
+        return h.flip();
+    }
+
+    // abgeschlossenes Segment als .segz schreiben (Temp-Datei + Rename), dann das .seg löschen
+    private void compress(Segment s) throws IOException {
+        byte[] body = new byte[(int) (s.size - HEADER)];
+        ByteBuffer bb = ByteBuffer.wrap(body);
+        while (bb.hasRemaining()) {
+            if (s.channel.read(bb, HEADER + bb.position()) < 0) break;
+        }
+        Deflater d = new Deflater(Deflater.BEST_COMPRESSION);
+        d.setInput(body);
+        d.finish();
+        Path tmp = dir.resolve(monthName(s.key) + ".segz.tmp");
+        Path target = dir.resolve(monthName(s.key) + ".segz");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+            out.write(header(FLAG_COMPRESSED, s.minDay, s.maxDay, s.size).array());
+            byte[] chunk = new byte[1 << 16];
+            while (!d.finished()) {
+                int n = d.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+        } finally {
+            d.end();
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        s.channel.close();
+        s.channel = null;
+        s.map = null;
+        Files.delete(s.file);
+        s.file = target;
+        s.compressed = true;
+        System.out.println("[HistorySegments] " + target.getFileName() + " komprimiert (" + s.size + " -> " + Files.size(target) + " Bytes)");
+    }
+
+    private void openSegment(Path p) throws IOException {
+        String fn = p.getFileName().toString();
+        int key;
+        try {
+            YearMonth ym = YearMonth.parse(fn.substring(0, fn.indexOf('.')), MONTH);
+            key = ym.getYear() * 12 + ym.getMonthValue() - 1;
+        } catch (RuntimeException e) {
+            return;
+        }
+        Segment s = new Segment(key);
+        s.file = p;
+        FileChannel ch = FileChannel.open(p, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer h = ByteBuffer.allocate(HEADER);
+        while (h.hasRemaining()) {
+            if (ch.read(h, h.position()) < 0) break;
+        }
+        h.flip();
+        byte[] magic = new byte[MAGIC.length];
+        if (h.remaining() == HEADER) h.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            ch.close();
+            System.out.println("[HistorySegments] Ungültiges Segment übersprungen: " + fn);
+            return;
+        }
+        h.get(); // Version
+        int flags = h.get();
+        h.getShort();
+        s.minDay = h.getInt();
+        s.maxDay = h.getInt();
+        long size = h.getLong();
+        s.compressed = (flags & FLAG_COMPRESSED) != 0;
+        if (s.compressed) {
+            ch.close();
+            s.size = size;
+        } else {
+            s.channel = ch;
+            s.size = validEnd(ch);
+            if (s.size < ch.size()) ch.truncate(s.size); // halber Datensatz nach Absturz
+        }
+        Segment old = segments.put(key, s);
+        if (old != null) {
+            // .seg und .segz desselben Monats (Absturz beim Komprimieren): das komprimierte gilt
+            Segment keep = old.compressed ? old : s;
+            Segment drop = keep == old ? s : old;
+            segments.put(key, keep);
+            if (drop.channel != null) drop.channel.close();
+            Files.deleteIfExists(drop.file);
+        }
+    }
+
+    // Ende des letzten vollständigen Datensatzes. Bewusst ohne Mapping: die Datei wird danach evtl. gekürzt
+    // oder nach dem Komprimieren gelöscht, was unter Windows bei bestehendem Mapping scheitert.
+    private static long validEnd(FileChannel ch) throws IOException {
+        long size = ch.size();
+        long pos = HEADER;
+        ByteBuffer win = ByteBuffer.allocate(1 << 16);
+        long winStart = 0;
+        int winLen = 0;
+        while (pos < size) {
+            // Fenster nachladen, wenn das Längenpräfix (höchstens 10 Bytes) nicht mehr sicher darin liegt
+            if (pos + 10 > winStart + winLen && winStart + winLen < size) {
+                win.clear();
+                while (win.hasRemaining() && ch.read(win, pos + win.position()) > 0) {}
+                winStart = pos;
+                winLen = win.position();
+            }
+            In in = new In(win, (int) (pos - winStart), winLen);
+            long len;
+            try {
+                len = in.getVarLong();
+            } catch (IndexOutOfBoundsException e) {
+                break;
+            }
+            long next = winStart + in.pos + len;
+            if (len <= 0 || next > size) break;
+            pos = next;
+        }
+        return Math.max(HEADER, Math.min(pos, size));
+    }
+
+    // Mapping, das mindestens [0, end) abdeckt; null, wenn das Segment dafür zu groß ist
+    private MappedByteBuffer mapped(Segment s, long end) throws IOException {
+        MappedByteBuffer m = s.map;
+        if (m != null && m.capacity() >= end) return m;
+        mapLock.lock();
+        try {
+            m = s.map;
+            if (m != null && m.capacity() >= end) return m;
+            FileChannel ch = s.channel;
+            if (ch == null) throw new IOException("Segment nicht geöffnet: " + s.file);
+            long size = ch.size();
+            if (size < end) throw new EOFException(s.file + ": " + end + " > " + size);
+            if (size > Integer.MAX_VALUE) return null;
+            m = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            s.map = m;
+            return m;
+        } finally {
+            mapLock.unlock();
+        }
+    }
+
+    // Bereich [from, end) eines Segments zum Dekodieren; Position im Ergebnis = Offset im Segment - base
+    private In source(Segment s, long from, long end) throws IOException {
+        if (s.compressed) return new In(ByteBuffer.wrap(inflate(s)), (int) from, (int) end);
+        MappedByteBuffer m = mapped(s, end);
+        if (m != null) return new In(m, (int) from, (int) end);
+        // Segment über 2 GB: nur den Bereich lesen
+        ByteBuffer bb = ByteBuffer.allocate((int) (end - from));
+        while (bb.hasRemaining()) {
+            if (s.channel.read(bb, from + bb.position()) < 0) throw new EOFException();
+        }
+        In in = new In(bb, 0, bb.capacity());
+        in.base = from;
+        return in;
+    }
+
+    // ---- Lesen ----
+
+    /** Datensatz an position (Länge aus dem Index); thread-sicher. */
+    public Record read(long position, int length) throws IOException {
+        int key = (int) (position >>> OFFSET_BITS);
+        long offset = position & ((1L << OFFSET_BITS) - 1);
+        Segment s = segments.get(key);
+        if (s == null) throw new IOException("Segment fehlt: " + monthName(key));
+        Record r = decode(source(s, offset, offset + length));
+        r.position = position;
+        r.length = length;
+        return r;
+    }
+
+    /** Ende der belegten Daten eines Segments (unkomprimierte Länge inkl. Kopf), für das Nachindizieren. */
+    public long endOf(int key) {
+        Segment s = segments.get(key);
+        return s == null ? HEADER : s.size;
+    }
+
+    // Monatsschlüssel aller Segmente, aufsteigend
+    public List<Integer> keys() {
+        List<Integer> keys = new ArrayList<>(segments.keySet());
+        Collections.sort(keys);
+        return keys;
+    }
+
+    public static int keyOf(long position) {
+        return (int) (position >>> OFFSET_BITS);
+    }
+
+    public static long offsetOf(long position) {
+        return position & ((1L << OFFSET_BITS) - 1);
+    }
+
+    /**
+     * Alle Datensätze eines Segments ab offset (Offset eines Längenpräfixes, HEADER = Anfang).
+     */
+    public void scanSegment(int key, long offset, Consumer<Record> visitor) throws IOException {
+        Segment s = segments.get(key);
+        if (s == null) return;
+        long from = Math.max(HEADER, offset);
+        In in = source(s, from, s.size);
+        while (in.pos < in.limit) {
+            int len = (int) in.getVarLong();
+            int start = in.pos;
+            in.limit(start + len);
+            Record r = decode(in);
+            r.position = ((long) key << OFFSET_BITS) | (in.base + start);
+            r.length = len;
+            visitor.accept(r);
+            in.pos = start + len;
+            in.limit(in.end);
+        }
+    }
+
+    /** Alle Datensätze im Tagesbereich (NO_DAY = offen) in Segment-Reihenfolge; Segmente außerhalb werden übersprungen. */
+    public void scan(int fromDay, int toDay, Consumer<Record> visitor) throws IOException {
+        for (int key : keys()) {
+            Segment s = segments.get(key);
+            boolean undatedOnly = s.minDay == NO_DAY;
+            if (!undatedOnly && fromDay != NO_DAY && s.maxDay < fromDay) continue;
+            if (!undatedOnly && toDay != NO_DAY && s.minDay > toDay) continue;
+            scanSegment(key, HEADER, r -> {
+                int d = r.day();
+                if (d != NO_DAY && ((fromDay != NO_DAY && d < fromDay) || (toDay != NO_DAY && d > toDay))) return;
+                visitor.accept(r);
+            });
+        }
+    }
+
+    private byte[] inflate(Segment s) throws IOException {
+        cacheLock.lock();
+        try {
+            byte[] data = inflated.get(s.key);
+            if (data != null) return data;
+            byte[] comp = Files.readAllBytes(s.file);
+            data = new byte[(int) s.size];
+            Inflater inf = new Inflater();
+            try {
+                inf.setInput(comp, HEADER, comp.length - HEADER);
+                int n = inf.inflate(data, HEADER, data.length - HEADER);
+                if (n != data.length - HEADER) throw new IOException("Segment unvollständig: " + s.file);
+            } catch (DataFormatException e) {
+                throw new IOException("Segment beschädigt: " + s.file, e);
+            } finally {
+                inf.end();
+            }
+            inflated.put(s.key, data);
+            return data;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private int latestKey() {
+        int max = Integer.MIN_VALUE;
+        for (int k : segments.keySet()) max = Math.max(max, k);
+        return max;
+    }
+
+    private static int monthKey(LocalDate d) {
+        return d.getYear() * 12 + d.getMonthValue() - 1;
+    }
+
+    private static String monthName(int key) {
+        return YearMonth.of(key / 12, key % 12 + 1).format(MONTH);
+    }
+
+    static LocalDateTime parseTime(String ts) {
+        try {
+            return LocalDateTime.parse(ts, TS);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // ---- Kodierung ----
+
+    private static byte[] encode(Record r) {
+        Buf b = new Buf(32);
+        LocalDateTime t = parseTime(r.time);
+        boolean rawTime = t == null || t.toEpochSecond(ZoneOffset.UTC) < 0 || !t.format(TS).equals(r.time);
+        boolean rawWinner = r.winner.length() != 1 || r.winner.charAt(0) > 0x7F || r.winner.charAt(0) == 0;
+        b.put((rawTime ? REC_RAW_TIME : 0) | (rawWinner ? REC_RAW_WINNER : 0));
+        if (rawTime) {
+            b.putString(r.time);
+        } else {
+            b.putVarLong(t.toEpochSecond(ZoneOffset.UTC));
+            b.putVarLong(t.getNano());
+        }
+        b.putVarLong(r.xId);
+        b.putVarLong(r.oId);
+        if (rawWinner) b.putString(r.winner);
+        else b.put(r.winner.charAt(0));
+        encodeMoves(b, r.moves);
+        return Arrays.copyOf(b.a, b.len);
+    }
+
+    private Record decode(In b) {
+        int flags = b.get();
+        String time;
+        long epochSec = 0;
+        if ((flags & REC_RAW_TIME) != 0) {
+            time = b.getString();
+        } else {
+            epochSec = b.getVarLong();
+            int nano = (int) b.getVarLong();
+            time = LocalDateTime.ofEpochSecond(epochSec, nano, ZoneOffset.UTC).format(TS);
+        }
+        int xId = (int) b.getVarLong();
+        int oId = (int) b.getVarLong();
+        String winner = (flags & REC_RAW_WINNER) != 0 ? b.getString() : String.valueOf((char) b.get());
+        Record r = new Record(time, players.get(xId), players.get(oId), winner, decodeMoves(b));
+        if ((flags & REC_RAW_TIME) == 0) r.day = (int) Math.floorDiv(epochSec, 86400L);
+        r.xId = xId;
+        r.oId = oId;
+        return r;
+    }
+
+    // "r:c:s,r:c:s,..." kompakt; nur wenn die Rückwandlung exakt denselben Text ergibt
+    private static void encodeMoves(Buf b, String moves) {
+        String[] parts = moves.isEmpty() ? new String[0] : moves.split(",", -1);
+        int n = parts.length;
+        int[] rows = new int[n];
+        int[] cols = new int[n];
+        char[] syms = new char[n];
+        boolean ok = true;
+        int max = 0;
+        for (int i = 0; i < n && ok; i++) {
+            String[] f = parts[i].split(":", -1);
+            if (f.length != 3 || f[2].length() != 1 || (f[2].charAt(0) != 'X' && f[2].charAt(0) != 'O')) {
+                ok = false;
+                break;
+            }
+            try {
+                rows[i] = Integer.parseInt(f[0]);
+                cols[i] = Integer.parseInt(f[1]);
+            } catch (NumberFormatException e) {
+                ok = false;
+                break;
+            }
+            syms[i] = f[2].charAt(0);
+            max = Math.max(max, Math.max(rows[i], cols[i]));
+            if (rows[i] < 0 || cols[i] < 0) ok = false;
+        }
+        if (ok && n > 0 && !movesText(rows, cols, syms).equals(moves)) ok = false;
+        if (!ok || max >= 16) {
+            b.put(MOVES_RAW);
+            b.putString(moves);
+            return;
+        }
+        boolean altX = true;
+        boolean altO = true;
+        for (int i = 0; i < n; i++) {
+            char even = (i % 2 == 0) ? 'X' : 'O';
+            if (syms[i] != even) altX = false;
+            if (syms[i] == even) altO = false;
+        }
+        int symMode = altX ? SYM_ALT_X : altO ? SYM_ALT_O : SYM_MASK;
+        int kind = max < 3 ? MOVES_CELL3 : MOVES_RC16;
+        b.put(kind | (symMode << 2));
+        b.putVarLong(n);
+        if (kind == MOVES_CELL3) {
+            for (int i = 0; i < n; i += 2) {
+                int lo = rows[i] * 3 + cols[i];
+                int hi = i + 1 < n ? rows[i + 1] * 3 + cols[i + 1] : 0;
+                b.put(lo | (hi << 4));
+            }
+        } else {
+            for (int i = 0; i < n; i++) b.put((rows[i] << 4) | cols[i]);
+        }
+        if (symMode == SYM_MASK) {
+            for (int i = 0; i < n; i += 8) {
+                int m = 0;
+                for (int j = i; j < Math.min(n, i + 8); j++) {
+                    if (syms[j] == 'O') m |= 1 << (j - i);
+                }
+                b.put(m);
+            }
+        }
+    }
+
+    private static String decodeMoves(In b) {
+        int head = b.get();
+        int kind = head & 3;
+        if (kind == MOVES_RAW) return b.getString();
+        int symMode = (head >> 2) & 3;
+        int n = (int) b.getVarLong();
+        int[] rows = new int[n];
+        int[] cols = new int[n];
+        char[] syms = new char[n];
+        if (kind == MOVES_CELL3) {
+            for (int i = 0; i < n; i += 2) {
+                int v = b.get();
+                rows[i] = (v & 15) / 3;
+                cols[i] = (v & 15) % 3;
+                if (i + 1 < n) {
+                    rows[i + 1] = (v >> 4) / 3;
+                    cols[i + 1] = (v >> 4) % 3;
+                }
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                int v = b.get();
+                rows[i] = v >> 4;
+                cols[i] = v & 15;
+            }
+        }
+        if (symMode == SYM_MASK) {
+            for (int i = 0; i < n; i += 8) {
+                int m = b.get();
+                for (int j = i; j < Math.min(n, i + 8); j++) syms[j] = ((m >> (j - i)) & 1) != 0 ? 'O' : 'X';
+            }
+        } else {
+            for (int i = 0; i < n; i++) syms[i] = ((i % 2 == 0) == (symMode == SYM_ALT_X)) ? 'X' : 'O';
+        }
+        return movesText(rows, cols, syms);
+    }
+
+    private static String movesText(int[] rows, int[] cols, char[] syms) {
+        StringBuilder sb = new StringBuilder(rows.length * 6);
+        for (int i = 0; i < rows.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(rows[i]).append(':').append(cols[i]).append(':').append(syms[i]);
+        }
+        return sb.toString();
+    }
+
+    // wachsender Byte-Puffer mit varint-Kodierung (Schreiben)
+    private static final class Buf {
+        byte[] a;
+        int len;
+
+        Buf(int capacity) {
+            a = new byte[capacity];
+        }
+
+        void put(int v) {
+            if (len == a.length) a = Arrays.copyOf(a, Math.max(16, len * 2));
+            a[len++] = (byte) v;
+        }
+
+        void put(byte[] src, int n) {
+            if (len + n > a.length) a = Arrays.copyOf(a, Math.max(len + n, len * 2));
+            System.arraycopy(src, 0, a, len, n);
+            len += n;
+        }
+
+        void putVarLong(long v) {
+            while ((v & ~0x7FL) != 0) {
+                put((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            put((int) v);
+        }
+
+        void putString(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putVarLong(bytes.length);
+            put(bytes, bytes.length);
+        }
+    }
+
+    // Lesezeiger auf einen (meist gemappten) Puffer; nur absolute Zugriffe, der Puffer selbst bleibt unverändert
+    // und kann von mehreren Threads gleichzeitig gelesen werden
+    private static final class In {
+        final ByteBuffer b;
+        final int end;
+        int limit;
+        int pos;
+        long base; // Segment-Offset von Index 0 (nur beim Lesen ohne Mapping ungleich 0)
+
+        In(ByteBuffer b, int pos, int end) {
+            this.b = b;
+            this.pos = pos;
+            this.end = end;
+            this.limit = end;
+        }
+
+        void limit(int l) {
+            if (l > end) throw new IndexOutOfBoundsException();
+            limit = l;
+        }
+
+        int get() {
+            if (pos >= limit) throw new IndexOutOfBoundsException();
+            return b.get(pos++) & 0xFF;
+        }
+
+        long getVarLong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int x = get();
+                v |= (long) (x & 0x7F) << shift;
+                if ((x & 0x80) == 0) return v;
+            }
+            throw new IndexOutOfBoundsException();
+        }
+
+        String getString() {
+            int n = (int) getVarLong();
+            if (n < 0 || pos + n > limit) throw new IndexOutOfBoundsException();
+            byte[] bytes = new byte[n];
+            b.get(pos, bytes);
+            pos += n;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
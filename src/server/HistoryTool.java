@@ -0,0 +1,80 @@
+package server;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+
+/**
+ * Umwandlung zwischen match_history.csv und den binären History-Segmenten (HistorySegments).
+ * Aufruf (Server dabei nicht laufen lassen):
+ *   java server.HistoryTool import match_history.csv [history]
+ *   java server.HistoryTool export ziel.csv [history] [von yyyy-MM-dd] [bis yyyy-MM-dd]
+ * Der Server importiert eine vorhandene match_history.csv beim ersten Start automatisch.
+ */
+public class HistoryTool {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || !(args[0].equals("import") || args[0].equals("export"))) {
+            System.out.println("Aufruf: HistoryTool import <csv> [historyDir] | export <csv> [historyDir] [von] [bis]");
+            return;
+        }
+        Path csv = Paths.get(args[1]);
+        Path dir = Paths.get(args.length > 2 ? args[2] : "history");
+        HistorySegments segments = new HistorySegments(dir, false);
+        try {
+            if (args[0].equals("import")) {
+                int n = importCsv(segments, csv);
+                System.out.println("[HistoryTool] " + n + " Zeilen importiert nach " + dir);
+            } else {
+                int from = args.length > 3 ? (int) LocalDate.parse(args[3]).toEpochDay() : Integer.MIN_VALUE;
+                int to = args.length > 4 ? (int) LocalDate.parse(args[4]).toEpochDay() : Integer.MIN_VALUE;
+                int n = exportCsv(segments, csv, from, to);
+                System.out.println("[HistoryTool] " + n + " Zeilen exportiert nach " + csv);
+            }
+        } finally {
+            segments.close();
+        }
+        System.out.println("[HistoryTool] Hinweis: der Server baut seinen Index beim nächsten Start selbst nach.");
+    }
+
+    // jede Zeile mit mindestens 5 Feldern wird übernommen (CSV gemappt gelesen); liefert die Anzahl
+    public static int importCsv(HistorySegments segments, Path csv) throws IOException {
+        int[] n = {0};
+        try {
+            MappedCsv.forEach(csv, ';', row -> {
+                if (row.fieldCount() < 5) return;
+                try {
+                    segments.append(new HistorySegments.Record(row.string(0), row.string(1), row.string(2),
+                            row.string(3), row.string(4)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                n[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        segments.flush();
+        return n[0];
+    }
+
+    // Tagesgrenzen Integer.MIN_VALUE = offen; ganze Segmente außerhalb des Bereichs werden nicht gelesen
+    public static int exportCsv(HistorySegments segments, Path csv, int fromDay, int toDay) throws IOException {
+        int[] n = {0};
+        try (BufferedWriter w = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            segments.scan(fromDay, toDay, r -> {
+                try {
+                    w.write(r.toLine());
+                    w.write(System.lineSeparator());
+                    n[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return n[0];
+    }
+}
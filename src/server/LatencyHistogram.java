@@ -0,0 +1,91 @@
+package server;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latenz-Histogramm in Nanosekunden nach HDR-Art: pro Zweierpotenz 32 lineare Unterbuckets, der relative Fehler
+ * eines Perzentils liegt damit unter 3 %. Werte bis 2^40 ns (ca. 18 Minuten), größere landen im obersten Bucket.
+ * record() ist lock-frei (ein Zähler pro Bucket), Perzentile werden aus einer Kopie der Zähler berechnet.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_EXP = 40;
+    private static final int BUCKETS = (MAX_EXP - SUB_BITS + 2) << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(v));
+        count.increment();
+        sum.add(v);
+        if (v > max.get()) max.accumulateAndGet(v, Math::max);
+    }
+
+    // Dauer seit startNanos (System.nanoTime()) eintragen
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() { return count.sum(); }
+    public long getSum() { return sum.sum(); }
+    public long getMax() { return max.get(); }
+
+    public long getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : getSum() / n;
+    }
+
+    /** Obergrenze des Buckets, in dem das Perzentil p (0..100) liegt; 0 ohne Werte. */
+    public long percentile(double p) {
+        long[] snap = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snap[i] = counts.get(i);
+            total += snap[i];
+        }
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, p)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snap[i];
+            if (seen >= rank) return Math.min(upperBound(i), getMax());
+        }
+        return getMax();
+    }
+
+    // kurze Zusammenfassung in Millisekunden für Log-Zeilen
+    public String summary() {
+        return "n=" + getCount() + " meanMs=" + ms(getMean()) + " p50Ms=" + ms(percentile(50))
+                + " p99Ms=" + ms(percentile(99)) + " maxMs=" + ms(getMax());
+    }
+
+    private static String ms(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    static int bucket(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        if (exp > MAX_EXP) return BUCKETS - 1;
+        int shift = exp - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) | (int) ((v >>> shift) & (SUB - 1));
+    }
+
+    // größter Wert, der noch in Bucket i fällt
+    static long upperBound(int i) {
+        if (i < SUB) return i;
+        int shift = (i >>> SUB_BITS) - 1;
+        long lower = (long) (SUB | (i & (SUB - 1))) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
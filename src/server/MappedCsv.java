@@ -0,0 +1,140 @@
+package server;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Liest Textdateien mit Trennzeichen über FileChannel.map: der gemappte Bereich wird blockweise (64 KB, eine
+ * Massenkopie) in einen wiederverwendeten Puffer übernommen, Zeilen und Felder werden in einem Durchlauf darin
+ * gefunden, Zahlen ohne Zwischen-String geparst. Strings entstehen nur für Felder, die der Aufrufer wirklich
+ * braucht. Große Dateien werden in Fenstern gemappt. \n und \r\n als Zeilenende.
+ */
+public final class MappedCsv {
+
+    private static final long WINDOW = 1L << 30;
+    private static final int BLOCK = 1 << 16;
+    private static final int MAX_FIELDS = 16;
+
+    @FunctionalInterface
+    public interface RowHandler {
+        void row(Row row);
+    }
+
+    /** Eine Zeile; nur während des Aufrufs von RowHandler.row gültig. */
+    public static final class Row {
+        private byte[] a = new byte[BLOCK];
+        private final int[] start = new int[MAX_FIELDS];
+        private final int[] end = new int[MAX_FIELDS];
+        private int fields;
+
+        public int fieldCount() {
+            return fields;
+        }
+
+        public String string(int i) {
+            return new String(a, start[i], end[i] - start[i], StandardCharsets.UTF_8);
+        }
+
+        // ganze Zahl mit optionalem Vorzeichen; NumberFormatException wie Integer.parseInt
+        public int parseInt(int i) {
+            int p = start[i];
+            int e = end[i];
+            if (p >= e) throw new NumberFormatException("leeres Feld");
+            boolean neg = a[p] == '-';
+            if (neg || a[p] == '+') p++;
+            if (p >= e) throw new NumberFormatException("nur Vorzeichen");
+            long v = 0;
+            for (; p < e; p++) {
+                int d = a[p] - '0';
+                if (d < 0 || d > 9) throw new NumberFormatException("keine Zahl in Feld " + i);
+                v = v * 10 + d;
+                if (v > (long) Integer.MAX_VALUE + 1) throw new NumberFormatException("zu groß");
+            }
+            v = neg ? -v : v;
+            if (v > Integer.MAX_VALUE) throw new NumberFormatException("zu groß");
+            return (int) v;
+        }
+
+        // ganze Zeile als String (z. B. für Datensätze, die ohnehin alle Felder brauchen)
+        public String line() {
+            return new String(a, start[0], end[fields - 1] - start[0], StandardCharsets.UTF_8);
+        }
+    }
+
+    private MappedCsv() {}
+
+    /**
+     * Ruft handler für jede nicht leere Zeile auf (höchstens 16 Felder, weitere hängen am letzten Feld).
+     * Eine letzte Zeile ohne Zeilenende wird mitgelesen. Liefert die Anzahl der Zeilen.
+     */
+    public static long forEach(Path file, char separator, RowHandler handler) throws IOException {
+        if (!Files.exists(file)) return 0;
+        byte sep = (byte) separator;
+        Row row = new Row();
+        long rows = 0;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            int carry = 0; // Anfang einer Zeile aus dem vorigen Block, liegt vorne in row.a
+            for (long mapped = 0; mapped < size; mapped += WINDOW) {
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, mapped, Math.min(WINDOW, size - mapped));
+                for (int at = 0; at < buf.capacity(); ) {
+                    int n = Math.min(BLOCK, buf.capacity() - at);
+                    if (row.a.length < carry + n) row.a = Arrays.copyOf(row.a, Math.max(carry + n, row.a.length * 2));
+                    buf.get(at, row.a, carry, n);
+                    at += n;
+                    int limit = carry + n;
+                    int lineStart = 0;
+                    int f = 0;
+                    byte[] a = row.a;
+                    int[] start = row.start;
+                    int[] end = row.end;
+                    start[0] = 0;
+                    // Felder der angefangenen Zeile neu bestimmen (carry ist meist kurz)
+                    for (int i = 0; i < limit; i++) {
+                        byte b = a[i];
+                        if (b == sep) {
+                            if (f < MAX_FIELDS - 1) {
+                                end[f++] = i;
+                                start[f] = i + 1;
+                            }
+                        } else if (b == '\n') {
+                            if (emit(row, lineStart, i, f, handler)) rows++;
+                            lineStart = i + 1;
+                            f = 0;
+                            start[0] = lineStart;
+                        }
+                    }
+                    carry = limit - lineStart;
+                    System.arraycopy(a, lineStart, a, 0, carry);
+                }
+            }
+            // letzte Zeile ohne Zeilenende
+            if (carry > 0) {
+                int f = 0;
+                row.start[0] = 0;
+                for (int i = 0; i < carry; i++) {
+                    if (row.a[i] == sep && f < MAX_FIELDS - 1) {
+                        row.end[f++] = i;
+                        row.start[f] = i + 1;
+                    }
+                }
+                if (emit(row, 0, carry, f, handler)) rows++;
+            }
+        }
+        return rows;
+    }
+
+    // Zeile [from, to) mit f Trennzeichen; row.start/row.end sind bis auf das letzte Feld gesetzt
+    private static boolean emit(Row row, int from, int to, int f, RowHandler handler) {
+        if (to > from && row.a[to - 1] == '\r') to--;
+        if (to <= from) return false;
+        row.end[f] = to;
+        row.fields = f + 1;
+        handler.row(row);
+        return true;
+    }
+}
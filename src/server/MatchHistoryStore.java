@@ -1,66 +1,409 @@
 package server;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
+/**
+ * Match-History (timestamp;X;O;winner;moves) in binären Monatssegmenten (HistorySegments, Ordner history/)
+ * mit Index im Speicher: pro Partie Position, Länge und Tag, pro Spielername (klein geschrieben) die Liste
+ * seiner Partien, pro Tag die Partien dieses Tages. Filter lösen sich so in die passenden Partien auf,
+ * gelesen werden nur diese. Der Index wird in history/index (feste 24-Byte-Einträge) mitgeschrieben; beim Start
+ * wird er geladen und nur noch nicht indizierte Segmentenden nachgelesen, passt er nicht, wird er neu aufgebaut.
+ * Eine alte match_history.csv wird beim ersten Start importiert (siehe HistoryTool).
+ * Komprimierung abgeschlossener Monate: -Dtictactoe.history.compress=true.
+ */
 public class MatchHistoryStore {
 
-    private final File file = new File("match_history.csv");
+    private static final byte[] IDX_MAGIC = "TTTHIDX2".getBytes(StandardCharsets.US_ASCII);
+    private static final int IDX_RECORD = 24; // position(8) length(4) day(4) x(4) o(4)
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final LatencyHistogram APPEND_LATENCY = Metrics.histogram("history.append");
+    private static final LatencyHistogram SYNC_LATENCY = Metrics.histogram("history.fsync");
+
+    // wachsende int-Liste ohne Boxing
+    private static final class IntList {
+        int[] a = new int[4];
+        int n;
+
+        void add(int v) {
+            if (n == a.length) a = Arrays.copyOf(a, n * 2);
+            a[n++] = v;
+        }
+    }
+
+    private final Path csvFile;
+    private final Path indexFile;
     private final DateTimeFormatter tsFmt = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
-    public synchronized void append(String playerX, String playerO, String winner, String movesCompact) {
-        String ts = LocalDateTime.now().format(tsFmt);
-        try (PrintWriter pw = new PrintWriter(new FileWriter(file, true))) {
-            // timestamp;X;O;winner;moves
-            pw.println(escape(ts) + ";" + escape(playerX) + ";" + escape(playerO) + ";" + escape(winner) + ";" + escape(movesCompact));
-        } catch (IOException ignored) {}
+    // ReentrantLock statt synchronized, damit virtuelle Threads bei Datei-I/O nicht gepinnt werden
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private HistorySegments segments; // read() und sync() ohne lock, alles andere unter lock
+
+    // Index, unter lock
+    private long[] positions = new long[1024];
+    private int[] lengths = new int[1024];
+    private int[] days = new int[1024];
+    private int count;
+    private final List<String> names = new ArrayList<>();          // ID -> Name (klein geschrieben)
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final IntList nameOfPlayer = new IntList();            // Spieler-ID der Segmente -> Namens-ID
+    private final List<IntList> byPlayer = new ArrayList<>();      // Namens-ID -> Partien
+    private final TreeMap<Integer, IntList> byDay = new TreeMap<>(); // epochDay -> Partien
+    private final IntList undated = new IntList();                 // Zeitstempel nicht lesbar: passt zu jedem Datumsfilter
+
+    private FileChannel idxOut;
+    private final ByteBuffer idxPending = ByteBuffer.allocate(IDX_RECORD * 2048);
+
+    public MatchHistoryStore() {
+        this(Paths.get(""));
+    }
+
+    public MatchHistoryStore(Path dir) {
+        this.csvFile = dir.resolve("match_history.csv");
+        Path segDir = dir.resolve("history");
+        this.indexFile = segDir.resolve("index");
+        lock.lock();
+        try {
+            segments = new HistorySegments(segDir, Boolean.getBoolean("tictactoe.history.compress"));
+            if (segments.isEmpty() && Files.exists(csvFile)) {
+                int n = HistoryTool.importCsv(segments, csvFile);
+                // Index aus der CSV-Zeit gilt nicht mehr
+                Files.deleteIfExists(dir.resolve("match_history.idx"));
+                Files.deleteIfExists(dir.resolve("match_history.names"));
+                System.out.println("[MatchHistoryStore] " + n + " Zeilen aus " + csvFile.getFileName()
+                        + " nach history/ übernommen (die CSV wird nicht mehr geschrieben).");
+            }
+            openIndex();
+        } catch (IOException e) {
+            System.out.println("[MatchHistoryStore] History konnte nicht geöffnet werden: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean append(String playerX, String playerO, String winner, String movesCompact) {
+        return append(playerX, playerO, winner, movesCompact, LocalDateTime.now());
+    }
+
+    // Partie mit dem Zeitpunkt des Spielendes anhängen (ohne fsync, siehe sync()); false = nicht gespeichert
+    public boolean append(String playerX, String playerO, String winner, String movesCompact, LocalDateTime finishedAt) {
+        long t0 = System.nanoTime();
+        String ts = finishedAt.format(tsFmt);
+        HistorySegments.Record r = new HistorySegments.Record(escape(ts), escape(playerX), escape(playerO),
+                escape(winner), escape(movesCompact));
+        lock.lock();
+        try {
+            if (segments == null) return false;
+            segments.append(r);
+            index(r, true);
+            flushIndex();
+            return true;
+        } catch (IOException e) {
+            System.out.println("[MatchHistoryStore] Partie konnte nicht gespeichert werden: " + e.getMessage());
+            return false;
+        } finally {
+            lock.unlock();
+            APPEND_LATENCY.recordSince(t0);
+        }
     }
 
-    public synchronized List<String> query(String playerFilter, String from, String to) {
-        if (!file.exists()) return Collections.emptyList();
+    // angehängte Partien auf die Platte bringen; ohne lock, Abfragen und append() laufen weiter. false = fehlgeschlagen
+    public boolean sync() {
+        HistorySegments seg = segments;
+        if (seg == null) return false;
+        long t0 = System.nanoTime();
+        try {
+            seg.sync();
+            SYNC_LATENCY.recordSince(t0);
+            return true;
+        } catch (IOException e) {
+            System.out.println("[MatchHistoryStore] fsync fehlgeschlagen: " + e.getMessage());
+            return false;
+        }
+    }
 
+    // alle Treffer in Ablagereihenfolge (für Werkzeuge/Benchmark; der Server streamt über page())
+    public List<String> query(String playerFilter, String from, String to) {
+        List<String> out = new ArrayList<>();
+        long cursor = 0;
+        while (cursor >= 0) cursor = page(playerFilter, from, to, cursor, 1024, false, out::add);
+        return out;
+    }
+
+    /**
+     * Höchstens limit Treffer an sink übergeben, ohne das Gesamtergebnis zu sammeln.
+     * newestFirst: Zeilen mit Nummer < cursor (cursor < 0: ab der neuesten), sonst Zeilen mit Nummer >= cursor.
+     * Liefert den Cursor für die nächste Seite oder -1, wenn keine weiteren Treffer folgen.
+     */
+    public long page(String playerFilter, String from, String to, long cursor, int limit, boolean newestFirst, Consumer<String> sink) {
         LocalDate fromD = parseDate(from);
         LocalDate toD = parseDate(to);
-
         String pf = (playerFilter == null) ? "" : playerFilter.trim().toLowerCase(Locale.ROOT);
+        int fromDay = fromD == null ? NO_DAY : (int) fromD.toEpochDay();
+        int toDay = toD == null ? NO_DAY : (int) toD.toEpochDay();
+        limit = Math.max(1, limit);
 
-        List<String> out = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(";", -1);
-                if (p.length < 5) continue;
-
-                String ts = unescape(p[0]);
-                String x = unescape(p[1]);
-                String o = unescape(p[2]);
-
-                if (!pf.isEmpty()) {
-                    if (!(x.toLowerCase(Locale.ROOT).contains(pf) || o.toLowerCase(Locale.ROOT).contains(pf))) continue;
-                }
+        // unter lock nur die Treffer der Seite bestimmen, gelesen und gesendet wird danach ohne lock
+        long[] hitPositions;
+        int[] hitLengths;
+        long next;
+        lock.lock();
+        try {
+            int[] rows = new int[limit + 1];
+            int found = collect(pf, fromDay, toDay, cursor, newestFirst, rows);
+            int n = Math.min(found, limit);
+            hitPositions = new long[n];
+            hitLengths = new int[n];
+            for (int i = 0; i < n; i++) {
+                hitPositions[i] = positions[rows[i]];
+                hitLengths[i] = lengths[rows[i]];
+            }
+            next = found <= limit ? -1 : newestFirst ? rows[limit - 1] : rows[limit];
+        } finally {
+            lock.unlock();
+        }
+        if (segments == null) return -1;
+
+        try {
+            for (int i = 0; i < hitPositions.length; i++) sink.accept(segments.read(hitPositions[i], hitLengths[i]).toLine());
+        } catch (IOException e) {
+            System.out.println("[MatchHistoryStore] Fehler beim Lesen: " + e.getMessage());
+            return -1;
+        }
+        return next;
+    }
 
-                LocalDate d = parseDateFromTs(ts);
-                if (fromD != null && d != null && d.isBefore(fromD)) continue;
-                if (toD != null && d != null && d.isAfter(toD)) continue;
+    // bis zu out.length Zeilennummern ab cursor in der gewünschten Richtung; unter lock
+    private int collect(String pf, int fromDay, int toDay, long cursor, boolean desc, int[] out) {
+        boolean dated = fromDay != NO_DAY || toDay != NO_DAY;
+        // desc: Zeilen < bound, sonst Zeilen >= bound
+        int bound = desc ? (cursor < 0 || cursor > count ? count : (int) cursor) : (int) Math.min(Math.max(0, cursor), count);
+        if (pf.isEmpty() && !dated) {
+            int k = 0;
+            if (desc) {
+                for (int r = bound - 1; r >= 0 && k < out.length; r--) out[k++] = r;
+            } else {
+                for (int r = bound; r < count && k < out.length; r++) out[k++] = r;
+            }
+            return k;
+        }
 
-                out.add(line);
+        List<IntList> sources = new ArrayList<>();
+        if (!pf.isEmpty()) {
+            // über die (wenigen) verschiedenen Namen suchen, nicht über alle Zeilen; Datum pro Zeile prüfen
+            for (int id = 0; id < names.size(); id++) {
+                if (names.get(id).contains(pf)) sources.add(byPlayer.get(id));
             }
-        } catch (IOException ignored) {}
-        return out;
+        } else {
+            NavigableMap<Integer, IntList> range = byDay;
+            if (fromDay != NO_DAY) range = range.tailMap(fromDay, true);
+            if (toDay != NO_DAY) range = range.headMap(toDay, true);
+            sources.addAll(range.values());
+            if (undated.n > 0) sources.add(undated);
+            dated = false; // Tage passen bereits
+        }
+        return merge(sources, bound, desc, dated, fromDay, toDay, out);
     }
 
-    private LocalDate parseDate(String s) {
+    // k-Wege-Merge über aufsteigend sortierte Zeilenlisten; doppelte Zeilen (X und O passen) nur einmal
+    private int merge(List<IntList> sources, int bound, boolean desc, boolean checkDays, int fromDay, int toDay, int[] out) {
+        // {aktuelle Zeile, Quelle, Position}
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                desc ? (x, y) -> Integer.compare(y[0], x[0]) : (x, y) -> Integer.compare(x[0], y[0]));
+        for (int s = 0; s < sources.size(); s++) {
+            IntList l = sources.get(s);
+            int pos = lowerBound(l, bound); // erste Position mit Zeile >= bound
+            if (desc) pos--;
+            if (pos >= 0 && pos < l.n) heads.add(new int[]{l.a[pos], s, pos});
+        }
+        int k = 0;
+        int last = -1;
+        while (k < out.length && !heads.isEmpty()) {
+            int[] h = heads.poll();
+            int row = h[0];
+            if (row != last && (!checkDays || inRange(days[row], fromDay, toDay))) out[k++] = row;
+            last = row;
+            IntList l = sources.get(h[1]);
+            int pos = desc ? h[2] - 1 : h[2] + 1;
+            if (pos >= 0 && pos < l.n) {
+                h[0] = l.a[pos];
+                h[2] = pos;
+                heads.add(h);
+            }
+        }
+        return k;
+    }
+
+    private static int lowerBound(IntList l, int v) {
+        int lo = 0;
+        int hi = l.n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (l.a[mid] < v) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static boolean inRange(int day, int fromDay, int toDay) {
+        if (day == NO_DAY) return true;
+        if (fromDay != NO_DAY && day < fromDay) return false;
+        return toDay == NO_DAY || day <= toDay;
+    }
+
+    // ---- Index ----
+
+    // Partie in den Index aufnehmen (unter lock); persist: auch in history/index schreiben
+    private void index(HistorySegments.Record r, boolean persist) throws IOException {
+        int day = r.day();
+        addRow(r.getPosition(), r.getLength(), day, r.getXId(), r.getOId());
+        if (persist && idxOut != null) {
+            if (idxPending.remaining() < IDX_RECORD) flushIndex();
+            idxPending.putLong(r.getPosition()).putInt(r.getLength()).putInt(day).putInt(r.getXId()).putInt(r.getOId());
+        }
+    }
+
+    private void flushIndex() throws IOException {
+        idxPending.flip();
+        while (idxPending.hasRemaining()) idxOut.write(idxPending);
+        idxPending.clear();
+    }
+
+    private void addRow(long position, int length, int day, int xId, int oId) {
+        if (count == positions.length) {
+            int n = count * 2;
+            positions = Arrays.copyOf(positions, n);
+            lengths = Arrays.copyOf(lengths, n);
+            days = Arrays.copyOf(days, n);
+        }
+        int row = count++;
+        positions[row] = position;
+        lengths[row] = length;
+        days[row] = day;
+        int x = nameId(xId);
+        int o = nameId(oId);
+        byPlayer.get(x).add(row);
+        if (o != x) byPlayer.get(o).add(row);
+        if (day == NO_DAY) undated.add(row);
+        else byDay.computeIfAbsent(day, k -> new IntList()).add(row);
+    }
+
+    // Spieler-ID der Segmente -> ID des klein geschriebenen Namens (Filter ignoriert Groß/Klein)
+    private int nameId(int playerId) {
+        while (nameOfPlayer.n <= playerId) {
+            String name = segments.playerName(nameOfPlayer.n).toLowerCase(Locale.ROOT);
+            Integer id = nameIds.get(name);
+            if (id == null) {
+                id = names.size();
+                names.add(name);
+                nameIds.put(name, id);
+                byPlayer.add(new IntList());
+            }
+            nameOfPlayer.add(id);
+        }
+        return nameOfPlayer.a[playerId];
+    }
+
+    private void openIndex() throws IOException {
+        Map<Integer, Long> indexedEnd = new HashMap<>();
+        if (!loadIndex(indexedEnd)) {
+            resetIndex();
+            indexedEnd.clear();
+            Files.deleteIfExists(indexFile);
+        }
+        boolean fresh = !Files.exists(indexFile);
+        idxOut = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        idxOut.truncate(IDX_MAGIC.length + (long) count * IDX_RECORD); // halben Eintrag nach Absturz abschneiden
+        idxOut.position(idxOut.size());
+        if (fresh) idxOut.write(ByteBuffer.wrap(IDX_MAGIC));
+
+        // Segmente, die hinter dem Index liegen (Absturz, HistoryTool import), nachindizieren
+        int before = count;
+        for (int key : segments.keys()) {
+            long from = indexedEnd.getOrDefault(key, (long) HistorySegments.HEADER);
+            if (from >= segments.endOf(key)) continue;
+            IOException[] err = {null};
+            segments.scanSegment(key, from, r -> {
+                try {
+                    index(r, true);
+                } catch (IOException e) {
+                    err[0] = e;
+                }
+            });
+            if (err[0] != null) throw err[0];
+        }
+        flushIndex();
+        if (count > before) System.out.println("[MatchHistoryStore] " + (count - before) + " Partien indiziert.");
+    }
+
+    // history/index laden (gemappt, in Fenstern aus ganzen Einträgen); false, wenn er fehlt oder nicht zu den Segmenten passt
+    private boolean loadIndex(Map<Integer, Long> indexedEnd) throws IOException {
+        if (!Files.exists(indexFile)) return false;
+        int players = segments.playerCount();
+        int lastX = -1;
+        try (FileChannel ch = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            if (ch.size() < IDX_MAGIC.length) return false;
+            ByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, IDX_MAGIC.length);
+            for (byte b : IDX_MAGIC) {
+                if (head.get() != b) return false;
+            }
+            long records = (ch.size() - IDX_MAGIC.length) / IDX_RECORD;
+            long window = Integer.MAX_VALUE / IDX_RECORD;
+            for (long first = 0; first < records; first += window) {
+                int n = (int) Math.min(window, records - first);
+                ByteBuffer m = ch.map(FileChannel.MapMode.READ_ONLY, IDX_MAGIC.length + first * IDX_RECORD, (long) n * IDX_RECORD);
+                for (int i = 0, at = 0; i < n; i++, at += IDX_RECORD) {
+                    long position = m.getLong(at);
+                    int length = m.getInt(at + 8);
+                    int day = m.getInt(at + 12);
+                    int xId = m.getInt(at + 16);
+                    int oId = m.getInt(at + 20);
+                    if (xId < 0 || xId >= players || oId < 0 || oId >= players) return false;
+                    int key = HistorySegments.keyOf(position);
+                    long end = HistorySegments.offsetOf(position) + length;
+                    if (end > segments.endOf(key)) return false;
+                    indexedEnd.merge(key, end, Math::max);
+                    addRow(position, length, day, xId, oId);
+                    lastX = xId;
+                }
+            }
+        }
+        if (count == 0) return true;
+        // Stichprobe: die letzte indizierte Partie muss noch denselben Spieler X haben
+        int last = count - 1;
+        HistorySegments.Record r;
         try {
-            if (s == null || s.isBlank()) return null;
-            return LocalDate.parse(s.trim());
-        } catch (Exception e) { return null; }
+            r = segments.read(positions[last], lengths[last]);
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+        return r.getXId() == lastX;
+    }
+
+    private void resetIndex() {
+        count = 0;
+        names.clear();
+        nameIds.clear();
+        nameOfPlayer.n = 0;
+        byPlayer.clear();
+        byDay.clear();
+        undated.n = 0;
     }
 
-    private LocalDate parseDateFromTs(String ts) {
+    private LocalDate parseDate(String s) {
         try {
-            return LocalDateTime.parse(ts, tsFmt).toLocalDate();
+            if (s == null || s.isBlank()) return null;
+            return LocalDate.parse(s.trim());
         } catch (Exception e) { return null; }
     }
 
@@ -68,7 +411,4 @@ public class MatchHistoryStore {
         if (s == null) return "";
         return s.replace("\n", " ").replace("\r", " ");
     }
-    private String unescape(String s) {
-        return s == null ? "" : s;
-    }
 }
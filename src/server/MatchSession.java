@@ -1,22 +1,45 @@
 package server;
 
 import java.util.List;
-import java.util.concurrent.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 
 public class MatchSession {
 
+    // zustandslos, daher ein gemeinsamer Sentinel statt einer Instanz pro Bot-Zug
+    private static final ClientHandler BOT_SENTINEL = new ClientHandler.BotSentinel();
+
+    // kurze "Denkpause", bevor der Bot-Zug eingereiht wird
+    private static final long BOT_DELAY_MS = 400;
+    // Ersatzzug, wenn der Bot-Pool keinen Zug liefert (Random ist threadsicher)
+    private static final HeuristicBot FALLBACK_BOT = new HeuristicBot();
+
+    // Ablauf-Metriken aller Sessions
+    private static final LatencyHistogram START_LATENCY = Metrics.histogram("match.start");
+    private static final LatencyHistogram FIRST_MOVE = Metrics.histogram("match.firstMove");
+    private static final LatencyHistogram MOVE_TO_BROADCAST = Metrics.histogram("match.moveToBroadcast");
+    private static final LatencyHistogram FINISH_LATENCY = Metrics.histogram("match.finish");
+    private static final LatencyHistogram DURATION = Metrics.histogram("match.duration");
+    private static final LongAdder STARTED = Metrics.counter("match.started");
+    private static final LongAdder FINISHED_NORMAL = Metrics.counter("match.finished.normal");
+    private static final LongAdder FINISHED_TIMEOUT = Metrics.counter("match.finished.timeout");
+
     private final TicTacToeServer server;
     private final ScoreManager score;
     private final GameStore store;
-    private final MatchHistoryStore history;
+    // Ergebnisse (History, Score-Log, Aufräumen der Spielstände) schreibt die Pipeline des Servers
+    private final PersistencePipeline persistence;
 
     private final ClientHandler x;
     private final ClientHandler o; // kann null sein bei Bot
     private final boolean botMode;
-    private final BotPlayer bot = new BotPlayer();
+    private BotPlayer bot;
 
-    private final TicTacToeGame game = new TicTacToeGame();
+    private final GameVariant variant;
+    private final BoardGame game;
     private final String mode;
     private final int timerSec;
     private final String sessionId;
@@ -29,32 +52,54 @@ public class MatchSession {
 
     private volatile boolean finished = false;
 
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-        Thread t = new Thread(r, "MatchTimer");
-        t.setDaemon(true);
-        return t;
-    });
+    // Session-Lock (ReentrantLock statt Monitor, damit Datei-I/O unter dem Lock virtuelle Threads nicht pinnt)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // gemeinsames Timing Wheel des Servers (kein eigener Timer-Thread pro Match)
+    private final TimerWheel timers;
 
-    private ScheduledFuture<?> timeoutTask;
+    private TimerWheel.Timeout timeoutTask;
 
-    public MatchSession(TicTacToeServer server, ScoreManager score, GameStore store, MatchHistoryStore history,
+    // gemeinsamer Bot-Pool des Servers und der offene Auftrag dieser Session (unter lock)
+    private final BotPool botPool;
+    private BotPool.Ticket botTicket;
+
+    // Zug-Journal (in start() geöffnet, in finish() gelöscht)
+    private GameStore.Journal journal;
+
+    // für match.firstMove / match.duration (System.nanoTime(), 0 = noch nicht gestartet)
+    private long startedAt;
+    private boolean firstMoveSeen; // unter lock
+
+    public MatchSession(TicTacToeServer server, ScoreManager score, GameStore store,
                         ClientHandler x, ClientHandler o, String mode, int timerSec, String sessionId) {
+        this(server, score, store, x, o, mode, timerSec, sessionId, GameVariant.CLASSIC);
+    }
+
+    public MatchSession(TicTacToeServer server, ScoreManager score, GameStore store,
+                        ClientHandler x, ClientHandler o, String mode, int timerSec, String sessionId,
+                        GameVariant variant) {
         this.server = server;
         this.score = score;
         this.store = store;
-        this.history = history;
+        this.persistence = server.getPersistence(); // schreibt auch die History
         this.x = x;
         this.o = o;
         this.mode = mode;
         this.timerSec = Math.max(3, timerSec);
         this.botMode = "BOT".equalsIgnoreCase(mode) && o == null;
         this.sessionId = sessionId;
+        this.timers = server.getTimerWheel();
+        this.botPool = server.getBotPool();
+        this.variant = variant == null ? GameVariant.CLASSIC : variant;
+        this.game = this.variant.createGame();
+        this.bot = BotPlayer.forLevel("CLASSIC", this.variant, this.timerSec);
     }
 
     // Legacy-Konstruktor (ohne sessionId) – kompatibel mit altem Code
-    public MatchSession(TicTacToeServer server, ScoreManager score, GameStore store, MatchHistoryStore history,
+    public MatchSession(TicTacToeServer server, ScoreManager score, GameStore store,
                         ClientHandler x, ClientHandler o, String mode, int timerSec) {
-        this(server, score, store, history, x, o, mode, timerSec, "");
+        this(server, score, store, x, o, mode, timerSec, "");
     }
 
     public String getSessionId() { return sessionId; }
@@ -64,47 +109,64 @@ public class MatchSession {
 
     public boolean isFinished() { return finished; }
 
+    public GameVariant getVariant() { return variant; }
+
+    // vor start() setzen; Standard ist der klassische Heuristik-Bot (bzw. Such-Bot auf großen Boards)
+    public void setBotPlayer(BotPlayer bot) {
+        if (bot != null) this.bot = bot;
+    }
+
     public void setFinishListener(BiConsumer<MatchSession, Character> listener) {
         this.finishListener = listener;
     }
 
     // Spectator hinzufügen: sendet aktuellen Board-State und Turn
-    public synchronized void addSpectator(ClientHandler spec) {
-        spectators.add(spec);
-
-        String px = x.getPlayerName();
-        String po = botMode ? "BOT" : (o != null ? o.getPlayerName() : "?");
-
-        // Spectator bekommt START-Nachricht mit Symbol 'S'
-        spec.sendMessage(Protocol.SRV_SPECTATE_START + Protocol.SEPARATOR
-                + sessionId + Protocol.SEPARATOR + px + Protocol.SEPARATOR + po);
-
-        // Board-State verzögert senden, damit Client Zeit hat die Scene zu wechseln
-        final char[][] snap = game.snapshot();
-        final char winner = game.checkWinner();
-        final char currentPlayer = game.getCurrentPlayer();
-
-        scheduler.schedule(() -> {
-            // Aktuellen Board-State senden
-            for (int r = 0; r < 3; r++) {
-                for (int c = 0; c < 3; c++) {
-                    if (snap[r][c] != '\0') {
-                        spec.sendMessage(Protocol.SRV_VALID_MOVE + Protocol.SEPARATOR
-                                + r + Protocol.SEPARATOR + c + Protocol.SEPARATOR + snap[r][c]);
+    public void addSpectator(ClientHandler spec) {
+        lock.lock();
+        try {
+            spectators.add(spec);
+
+            String px = x.getPlayerName();
+            String po = botMode ? "BOT" : (o != null ? o.getPlayerName() : "?");
+
+            // Spectator bekommt START-Nachricht mit Symbol 'S'
+            spec.sendMessage(Protocol.SRV_SPECTATE_START + Protocol.SEPARATOR
+                    + sessionId + Protocol.SEPARATOR + px + Protocol.SEPARATOR + po + Protocol.SEPARATOR + variant);
+
+            // Board-State verzögert senden, damit Client Zeit hat die Scene zu wechseln
+            final int rows = game.getRows();
+            final int cols = game.getCols();
+            final char[] cells = new char[rows * cols];
+            for (int r = 0; r < rows; r++) for (int c = 0; c < cols; c++) cells[r * cols + c] = game.getCell(r, c);
+            final char winner = game.checkWinner();
+            final char currentPlayer = game.getCurrentPlayer();
+
+            timers.schedule(() -> {
+                // Replay (bis zu ein VALID_MOVE pro Feld) darf das Zuschauer-Limit nicht auslösen
+                int replay = 2;
+                for (char cell : cells) if (cell != '\0') replay++;
+                spec.beginReplay(replay);
+
+                // Aktuellen Board-State senden
+                for (int i = 0; i < cells.length; i++) {
+                    if (cells[i] != '\0') {
+                        spec.sendReplay(MessageEncoder.validMove(i / cols, i % cols, cells[i]));
                     }
                 }
-            }
 
-            // Aktuellen Turn senden
-            if (winner != ' ') {
-                spec.sendMessage(Protocol.SRV_GAME_OVER + Protocol.SEPARATOR + winner);
-            } else {
-                spec.sendMessage(Protocol.SRV_TURN + Protocol.SEPARATOR + currentPlayer);
-            }
+                // Aktuellen Turn senden
+                if (winner != ' ') {
+                    spec.sendReplay(MessageEncoder.gameOver(winner));
+                } else {
+                    spec.sendReplay(MessageEncoder.turn(currentPlayer));
+                }
 
-            // Mitspieler informieren
-            broadcast(Protocol.SRV_SPECTATOR_JOINED + Protocol.SEPARATOR + spec.getPlayerName());
-        }, 500, TimeUnit.MILLISECONDS);
+                // Mitspieler informieren
+                broadcast(Protocol.SRV_SPECTATOR_JOINED + Protocol.SEPARATOR + spec.getPlayerName());
+            }, 500, TimeUnit.MILLISECONDS);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void removeSpectator(ClientHandler spec) {
@@ -112,114 +174,229 @@ public class MatchSession {
     }
 
     public void start() {
+        long t0 = System.nanoTime();
+        startedAt = t0;
+        STARTED.increment();
         String px = x.getPlayerName();
         String po = botMode ? "BOT" : (o != null ? o.getPlayerName() : "?");
 
-        List<String[]> moves = store.loadMoves(px, po);
-        for (String[] m : moves) {
+        journal = store.open(px, po, variant);
+        for (String[] m : journal.getMoves()) {
             try {
                 int r = Integer.parseInt(m[0]);
                 int c = Integer.parseInt(m[1]);
                 char s = m[2].charAt(0);
 
                 game.makeMove(r, c, s);
-                broadcast(Protocol.SRV_VALID_MOVE + Protocol.SEPARATOR + r + Protocol.SEPARATOR + c + Protocol.SEPARATOR + s);
+                broadcast(MessageEncoder.validMove(r, c, s));
             } catch (Exception e) {
                 System.out.println("[MatchSession] Fehler beim Laden eines Zuges: " + e.getMessage());
             }
         }
 
         char turn = game.getCurrentPlayer();
-        broadcast(Protocol.SRV_TURN + Protocol.SEPARATOR + turn);
+        broadcast(MessageEncoder.turn(turn));
         resetTimer(turn);
 
         if (botMode && turn == 'O') scheduleBotMove();
+        START_LATENCY.recordSince(t0);
     }
 
     public void onChat(ClientHandler from, String msg) {
-        String out = Protocol.SRV_CHAT + Protocol.SEPARATOR + from.getPlayerName() + Protocol.SEPARATOR + msg;
-        broadcast(out);
+        broadcast(MessageEncoder.local().begin(Protocol.SRV_CHAT).field(from.getPlayerName()).field(msg).toLine());
     }
 
-    public synchronized void onMove(ClientHandler from, int row, int col) {
-        boolean isBot = isBotSentinel(from);
+    public void onMove(ClientHandler from, int row, int col) {
+        onMove(from, row, col, null);
+    }
 
-        // Spectators dürfen keine Züge machen
-        if (!isBot && from != x && from != o) {
-            if (from != null) from.sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "Zuschauer dürfen nicht ziehen.");
-            return;
-        }
+    // trace: Zeitstempel des Zugs (MoveTrace, null = ohne Tracing)
+    public void onMove(ClientHandler from, int row, int col, MoveTrace trace) {
+        long t0 = System.nanoTime();
+        lock.lock();
+        try {
+            if (trace != null) trace.locked();
+            boolean isBot = isBotSentinel(from);
+
+            // Spectators dürfen keine Züge machen
+            if (!isBot && from != x && from != o) {
+                if (from != null) from.sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "Zuschauer dürfen nicht ziehen.");
+                return;
+            }
 
-        if (botMode && !isBot && from != x) return;
-        if (game.checkWinner() != ' ') return;
+            if (botMode && !isBot && from != x) return;
+            if (game.checkWinner() != ' ') return;
 
-        char sym = isBot ? 'O' : (from == x ? 'X' : 'O');
+            char sym = isBot ? 'O' : (from == x ? 'X' : 'O');
 
-        if (!game.makeMove(row, col, sym)) {
-            if (!isBot && from != null) {
-                from.sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "Ungültiger Zug.");
+            if (!game.makeMove(row, col, sym)) {
+                if (!isBot && from != null) {
+                    from.sendMessage(Protocol.SRV_ERROR + Protocol.SEPARATOR + "Ungültiger Zug.");
+                }
+                return;
             }
-            return;
-        }
+            if (trace != null) trace.validated();
 
-        String px = x.getPlayerName();
-        String po = botMode ? "BOT" : (o != null ? o.getPlayerName() : "?");
-        store.appendMove(px, po, row, col, sym);
+            journal.append(row, col, sym);
+            if (trace != null) trace.journaled();
 
-        broadcast(Protocol.SRV_VALID_MOVE + Protocol.SEPARATOR + row + Protocol.SEPARATOR + col + Protocol.SEPARATOR + sym);
+            broadcast(MessageEncoder.validMove(row, col, sym), trace);
+            MOVE_TO_BROADCAST.recordSince(t0);
+            if (!firstMoveSeen) {
+                firstMoveSeen = true;
+                if (startedAt != 0) FIRST_MOVE.recordSince(startedAt);
+            }
 
-        char winner = game.checkWinner();
-        if (winner != ' ') {
-            finish(winner, "normal");
-            return;
-        }
+            char winner = game.checkWinner();
+            if (winner != ' ') {
+                long f0 = System.nanoTime();
+                finish(winner, "normal");
+                if (trace != null) trace.finished(f0);
+                return;
+            }
 
-        char turn = game.getCurrentPlayer();
-        broadcast(Protocol.SRV_TURN + Protocol.SEPARATOR + turn);
-        resetTimer(turn);
+            char turn = game.getCurrentPlayer();
+            broadcast(MessageEncoder.turn(turn), trace);
+            resetTimer(turn);
 
-        if (botMode && turn == 'O') scheduleBotMove();
+            if (botMode && turn == 'O') scheduleBotMove();
+        } finally {
+            lock.unlock();
+            if (trace != null) trace.complete(sessionId, from, row, col);
+        }
     }
 
+    // Der Bot rechnet im gemeinsamen Bot-Pool auf einer Kopie des Boards, außerhalb des Session-Locks,
+    // damit ein langsamer Bot weder diese Session noch andere Matches blockiert.
     private void scheduleBotMove() {
-        scheduler.schedule(() -> {
-            synchronized (MatchSession.this) {
-                if (game.checkWinner() != ' ') return;
+        timers.schedule(() -> {
+            boolean ended = false;
+            lock.lock();
+            try {
+                if (finished || game.checkWinner() != ' ') return;
+                BoardGame snapshot = game.copy();
+
+                if (botTicket != null) botTicket.cancel();
+                // Deadline = Ablauf des Zug-Timers; danach wäre der Zug ohnehin verloren
+                botTicket = botPool.submit(bot, snapshot, 'O', timerSec * 1000L - BOT_DELAY_MS, TimeUnit.MILLISECONDS,
+                        mv -> applyBotMove(snapshot, mv));
+                if (botTicket == null) {
+                    System.out.println("[MatchSession] Bot-Pool voll, Ersatzzug für " + sessionId + ".");
+                    ended = playBotMove(fallbackMove());
+                }
+            } finally {
+                lock.unlock();
+                if (ended) awaitPersistence();
+            }
+        }, BOT_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
 
-                char[][] b = game.snapshot();
-                int[] mv = bot.pickMove(b, 'O', 'X');
-                if (mv == null) return;
+    private void applyBotMove(BoardGame snapshot, int mv) {
+        boolean ended = false;
+        lock.lock();
+        try {
+            // inzwischen beendet (Timeout, Disconnect) oder Stellung verändert -> Ergebnis verwerfen
+            if (finished || game.getMoveCount() != snapshot.getMoveCount()) return;
+            botTicket = null;
+            if (mv < 0) System.out.println("[MatchSession] Bot ohne Zug, Ersatzzug für " + sessionId + ".");
+            ended = playBotMove(mv < 0 ? fallbackMove() : mv);
+        } finally {
+            lock.unlock();
+            if (ended) awaitPersistence();
+        }
+    }
+
+    // unter dem Session-Lock; true, wenn das Spiel damit beendet ist
+    private boolean playBotMove(int mv) {
+        if (mv < 0) return false;
+        onMove(BOT_SENTINEL, mv / game.getCols(), mv % game.getCols());
+        return finished;
+    }
 
-                onMove(new ClientHandler.BotSentinel(), mv[0], mv[1]);
+    // Ersatz, wenn der Pool voll ist oder der Bot nichts liefert, damit der Mensch nicht per Timeout gewinnt:
+    // Heuristik auf 3x3, sonst das freie Feld am nächsten zur Mitte
+    private int fallbackMove() {
+        if (variant.isClassic()) return FALLBACK_BOT.pickMove(game, 'O');
+        int rows = game.getRows(), cols = game.getCols();
+        int best = -1, bestDist = Integer.MAX_VALUE;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (game.getCell(r, c) != '\0') continue;
+                int dist = Math.abs(2 * r - (rows - 1)) + Math.abs(2 * c - (cols - 1));
+                if (dist < bestDist) {
+                    best = r * cols + c;
+                    bestDist = dist;
+                }
             }
-        }, 400, TimeUnit.MILLISECONDS);
+        }
+        return best;
     }
 
     private void resetTimer(char turn) {
-        if (timeoutTask != null) timeoutTask.cancel(false);
+        if (timeoutTask != null) timeoutTask.cancel();
 
-        timeoutTask = scheduler.schedule(() -> {
-            synchronized (MatchSession.this) {
+        timeoutTask = timers.schedule(() -> {
+            boolean ended = false;
+            lock.lock();
+            try {
                 if (game.checkWinner() != ' ') return;
                 char winner = (turn == 'X') ? 'O' : 'X';
                 finish(winner, "timeout");
+                ended = true;
+            } finally {
+                lock.unlock();
+                if (ended) awaitPersistence();
             }
         }, timerSec, TimeUnit.SECONDS);
     }
 
+    // Backpressure der PersistencePipeline erst nach GAME_OVER und ohne Session-Lock (Bot-Pool, Timer);
+    // Züge eines Spielers wartet der ClientHandler ab, damit der NIO-Loop nicht blockiert
+    private void awaitPersistence() {
+        persistence.awaitCapacity();
+    }
+
+    // einmal kodiert für alle Empfänger
     private void broadcast(String msg) {
-        x.sendMessage(msg);
-        if (o != null) o.sendMessage(msg);
-        for (ClientHandler s : spectators) s.sendMessage(msg);
+        broadcast(MessageEncoder.encode(msg));
+    }
+
+    private void broadcast(byte[] line) {
+        x.sendEncoded(line);
+        if (o != null) o.sendEncoded(line);
+        for (ClientHandler s : spectators) s.sendEncoded(line);
+    }
+
+    // wie broadcast(), aber mit Dauer jedes einzelnen Versands im Trace
+    private void broadcast(byte[] msg, MoveTrace trace) {
+        if (trace == null) {
+            broadcast(msg);
+            return;
+        }
+        send(x, msg, trace);
+        if (o != null) send(o, msg, trace);
+        for (ClientHandler s : spectators) send(s, msg, trace);
+    }
+
+    private static void send(ClientHandler to, byte[] msg, MoveTrace trace) {
+        long t0 = System.nanoTime();
+        to.sendEncoded(msg);
+        trace.sent(to, System.nanoTime() - t0);
     }
 
     private void finish(char winner, String reason) {
-        if (timeoutTask != null) timeoutTask.cancel(false);
+        long t0 = System.nanoTime();
+        if (timeoutTask != null) timeoutTask.cancel();
+        if (botTicket != null) {
+            botTicket.cancel();
+            botTicket = null;
+        }
         finished = true;
 
         String px = x.getPlayerName();
         String po = botMode ? "BOT" : (o != null ? o.getPlayerName() : "?");
 
+        // Scores nur im Speicher verbuchen (Log-Zeilen schreibt die PersistencePipeline gebündelt)
         if (winner == 'D') {
             score.recordDraw(px, po);
         } else if (winner == 'X') {
@@ -228,18 +405,16 @@ public class MatchSession {
             score.recordGameResult(po, px);
         }
 
-        // Züge für die History zusammenbauen
-        List<String[]> savedMoves = store.loadMoves(px, po);
+        // Züge für die History zusammenbauen (aus dem Journal im Speicher, ohne die Datei neu zu lesen)
         StringBuilder movesSb = new StringBuilder();
-        for (String[] m : savedMoves) {
+        for (String[] m : journal.getMoves()) {
             if (movesSb.length() > 0) movesSb.append(",");
             movesSb.append(m[0]).append(":").append(m[1]).append(":").append(m[2]);
         }
-        history.append(px, po, String.valueOf(winner), movesSb.toString());
+        journal.retire();
+        persistence.submitResult(px, po, winner, movesSb.toString(), journal);
 
-        store.deleteSave(px, po);
-
-        broadcast(Protocol.SRV_GAME_OVER + Protocol.SEPARATOR + winner);
+        broadcast(MessageEncoder.gameOver(winner));
 
         // Spectators aufräumen
         for (ClientHandler s : spectators) s.clearSession();
@@ -255,9 +430,13 @@ public class MatchSession {
         }
 
         // Raum automatisch nach 5 Sekunden auflösen
-        scheduler.schedule(() -> {
+        timers.schedule(() -> {
             server.removeActiveSession(sessionId);
         }, 5, TimeUnit.SECONDS);
+
+        ("timeout".equals(reason) ? FINISHED_TIMEOUT : FINISHED_NORMAL).increment();
+        if (startedAt != 0) DURATION.recordSince(startedAt);
+        FINISH_LATENCY.recordSince(t0);
     }
 
     public static boolean isBotSentinel(Object h) {
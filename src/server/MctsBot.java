@@ -0,0 +1,456 @@
+package server;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monte-Carlo-Tree-Search-Bot für große Boards (z.B. 15x15), auf denen eine vollständige Suche nicht machbar ist.
+ * Root-Parallelisierung: jeder Worker des gemeinsamen ForkJoinPools baut bis zur Deadline einen eigenen Baum,
+ * am Ende werden die Besuchszahlen der Wurzelzüge addiert. Das Zeitbudget pro Zug kommt vom Zug-Timer des Raums.
+ * Vorher wird taktisch geprüft: sofortiger eigener Gewinn, sonst Blocken eines sofortigen Gegner-Gewinns.
+ */
+public class MctsBot implements BotPlayer {
+
+    private static final double UCT_C = Math.sqrt(2.0);
+
+    // Kandidaten sind leere Zellen mit höchstens diesem Abstand zu einem Stein (auf kleinen Boards alle leeren Zellen)
+    private static final int NEIGHBOR_RADIUS = 2;
+    private static final int SMALL_BOARD_CELLS = 25;
+    private static final int PLAYOUT_LOCAL_TRIES = 8;
+
+    private static final int[][] DIRS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    // gemeinsamer Pool für alle MCTS-Bots (Daemon-Threads, eigene Namen für Thread-Dumps)
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+            Math.max(1, Integer.getInteger("tictactoe.mcts.threads", Runtime.getRuntime().availableProcessors())),
+            pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("MctsWorker-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            },
+            null, false);
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    private final long budgetNanos;
+
+    // Statistik des letzten Zuges
+    private volatile long lastPlayouts;
+    private volatile long lastNanos;
+
+    private volatile boolean cancelled;
+
+    public MctsBot(int rows, int cols, int winLength, long budget, TimeUnit unit) {
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = Math.min(winLength, Math.max(rows, cols));
+        this.budgetNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(10), unit.toNanos(budget));
+    }
+
+    // Budget aus dem Zug-Timer: ein Fünftel der Zugzeit, höchstens 2 s
+    public static long budgetMillisFor(int timerSec) {
+        return Math.max(100, Math.min(2000, timerSec * 1000L / 5));
+    }
+
+    @Override
+    public void cancel() { cancelled = true; }
+
+    @Override
+    public void resetCancel() { cancelled = false; }
+
+    public long getLastPlayouts() { return lastPlayouts; }
+    public long getLastNanos() { return lastNanos; }
+
+    @Override
+    public int pickMove(BoardGame game, char me) {
+        if (game.getRows() != rows || game.getCols() != cols) return -1;
+        long start = System.nanoTime();
+
+        byte[] cells = new byte[rows * cols];
+        int stones = 0;
+        for (int r = 0, i = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++, i++) {
+                char ch = game.getCell(r, c);
+                cells[i] = ch == 'X' ? (byte) 1 : ch == 'O' ? (byte) 2 : (byte) 0;
+                if (cells[i] != 0) stones++;
+            }
+        }
+        if (stones == cells.length) return -1;
+        byte self = me == 'X' ? (byte) 1 : (byte) 2;
+
+        Board root = new Board(rows, cols, winLength, cells, stones, self);
+        int tactical = root.tacticalMove();
+        if (tactical >= 0) {
+            lastPlayouts = 0;
+            lastNanos = System.nanoTime() - start;
+            return tactical;
+        }
+
+        root.initThreats();
+        long deadline = start + budgetNanos;
+        int workers = POOL.getParallelism();
+        List<Search> tasks = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            Search s = new Search(this, root, deadline);
+            POOL.execute(s);
+            tasks.add(s);
+        }
+
+        long[] visits = new long[cells.length];
+        long playouts = 0;
+        for (Search s : tasks) {
+            Result res = s.join();
+            for (int i = 0; i < visits.length; i++) visits[i] += res.visits[i];
+            playouts += res.playouts;
+        }
+
+        int best = -1;
+        for (int i = 0; i < visits.length; i++) {
+            if (cells[i] == 0 && (best < 0 || visits[i] > visits[best])) best = i;
+        }
+        lastPlayouts = playouts;
+        lastNanos = System.nanoTime() - start;
+        return best;
+    }
+
+    private record Result(long[] visits, long playouts) {}
+
+    // ein Baum pro Worker, nur Wurzel-Statistik wird zurückgegeben
+    private static final class Search extends RecursiveTask<Result> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        // wird nie serialisiert, nur von RecursiveTask geerbt
+        private final transient MctsBot owner;
+        private final transient Board root;
+        private final long deadline;
+
+        Search(MctsBot owner, Board root, long deadline) {
+            this.owner = owner;
+            this.root = root;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Result compute() {
+            SplittableRandom rnd = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+            Node tree = new Node(-1, null, root.toMove == 1 ? (byte) 2 : (byte) 1, root.candidates());
+            Board b = root.copy();
+            long playouts = 0;
+
+            // mindestens ein paar Playouts, auch wenn die Deadline schon knapp ist
+            while (playouts < 16 || (System.nanoTime() < deadline && !owner.cancelled)) {
+                b.reset(root);
+                Node node = tree;
+
+                // Selektion
+                while (node.untried == 0 && node.children != null && !node.children.isEmpty() && node.terminal == 0) {
+                    node = node.select();
+                    b.play(node.move);
+                }
+
+                // Expansion
+                if (node.terminal == 0 && node.untried > 0) {
+                    int k = rnd.nextInt(node.untried);
+                    int mv = node.moves[k];
+                    node.moves[k] = node.moves[--node.untried];
+                    byte mover = b.toMove;
+                    byte result = b.play(mv);
+                    Node child = new Node(mv, node, mover, result == 0 ? b.candidates() : new int[0]);
+                    child.terminal = result;
+                    node.addChild(child);
+                    node = child;
+                }
+
+                // Simulation
+                byte result = node.terminal != 0 ? node.terminal : b.playout(rnd);
+
+                // Backpropagation (Gewinn aus Sicht des Spielers, der in den Knoten gezogen hat)
+                for (Node n = node; n != null; n = n.parent) {
+                    n.visits++;
+                    if (result == 3) n.wins += 0.5;
+                    else if (result == n.mover) n.wins += 1.0;
+                }
+                playouts++;
+            }
+
+            long[] visits = new long[root.cells.length];
+            if (tree.children != null) {
+                for (Node c : tree.children) visits[c.move] = c.visits;
+            }
+            return new Result(visits, playouts);
+        }
+    }
+
+    private static final class Node {
+        final int move;
+        final Node parent;
+        final byte mover;
+        final int[] moves;
+        int untried;
+        List<Node> children;
+        byte terminal; // 0 offen, 1/2 Gewinner, 3 Remis
+
+        long visits;
+        double wins;
+
+        Node(int move, Node parent, byte mover, int[] moves) {
+            this.move = move;
+            this.parent = parent;
+            this.mover = mover;
+            this.moves = moves;
+            this.untried = moves.length;
+        }
+
+        void addChild(Node c) {
+            if (children == null) children = new ArrayList<>();
+            children.add(c);
+        }
+
+        Node select() {
+            double logN = Math.log(visits);
+            Node best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (Node c : children) {
+                double s = c.wins / c.visits + UCT_C * Math.sqrt(logN / c.visits);
+                if (s > bestScore) {
+                    bestScore = s;
+                    best = c;
+                }
+            }
+            return best;
+        }
+    }
+
+    // schlankes Board für Simulationen (0 leer, 1 X, 2 O)
+    private static final class Board {
+        final int rows;
+        final int cols;
+        final int winLength;
+        final byte[] cells;
+        int stones;
+        byte toMove;
+
+        // leere Zellen für zufällige Playouts (Swap-Remove, pos = Index einer Zelle in empty)
+        private final int[] empty;
+        private final int[] pos;
+
+        // offene Gewinnfelder je Spieler, beim Setzen entlang der Linien durch den Stein gesammelt
+        private final int[][] threats = new int[3][];
+        private final int[] threatCount = new int[3];
+
+        Board(int rows, int cols, int winLength, byte[] cells, int stones, byte toMove) {
+            this.rows = rows;
+            this.cols = cols;
+            this.winLength = winLength;
+            this.cells = cells;
+            this.stones = stones;
+            this.toMove = toMove;
+            this.empty = new int[cells.length];
+            this.pos = new int[cells.length];
+            this.threats[1] = new int[cells.length * 4];
+            this.threats[2] = new int[cells.length * 4];
+        }
+
+        Board copy() {
+            return new Board(rows, cols, winLength, cells.clone(), stones, toMove);
+        }
+
+        void reset(Board from) {
+            System.arraycopy(from.cells, 0, cells, 0, cells.length);
+            stones = from.stones;
+            toMove = from.toMove;
+            for (int p = 1; p <= 2; p++) {
+                threatCount[p] = from.threatCount[p];
+                System.arraycopy(from.threats[p], 0, threats[p], 0, threatCount[p]);
+            }
+        }
+
+        // Gewinnfelder der Ausgangsstellung aus allen Steinen, einmal pro Zug; reset übernimmt sie
+        void initThreats() {
+            threatCount[1] = 0;
+            threatCount[2] = 0;
+            for (int j = 0; j < cells.length; j++) {
+                if (cells[j] != 0) continue;
+                for (byte p = 1; p <= 2; p++) {
+                    cells[j] = p;
+                    if (isWinAt(j, p)) threats[p][threatCount[p]++] = j;
+                }
+                cells[j] = 0;
+            }
+        }
+
+        // setzt den Stein und liefert 0 (offen), den Gewinner oder 3 (Remis)
+        byte play(int i) {
+            byte p = toMove;
+            cells[i] = p;
+            stones++;
+            toMove = (byte) (3 - p);
+            if (isWinAt(i, p)) return p;
+            recordThreats(i, p);
+            return stones == cells.length ? (byte) 3 : 0;
+        }
+
+        // Playout-Regel: eigenen Gewinn nehmen, sonst Gegner-Gewinn blocken, sonst zufälliger Zug nahe den Steinen
+        byte playout(SplittableRandom rnd) {
+            int n = 0;
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] == 0) {
+                    pos[i] = n;
+                    empty[n++] = i;
+                }
+            }
+            while (n > 0) {
+                byte p = toMove;
+                int mv = openThreat(p);
+                if (mv < 0) mv = openThreat((byte) (3 - p));
+                if (mv < 0) {
+                    // bevorzugt Zellen direkt neben einem Stein (zufällige Züge "ins Leere" verwässern die Bewertung)
+                    int k = rnd.nextInt(n);
+                    for (int tries = 0; tries < PLAYOUT_LOCAL_TRIES && !hasNeighbor(empty[k], 1); tries++) k = rnd.nextInt(n);
+                    mv = empty[k];
+                }
+                int last = empty[--n];
+                empty[pos[mv]] = last;
+                pos[last] = pos[mv];
+
+                byte res = play(mv);
+                if (res != 0) return res;
+            }
+            return 3;
+        }
+
+        // ein noch freies Gewinnfeld von p oder -1 (belegte Felder werden dabei verworfen)
+        private int openThreat(byte p) {
+            int[] t = threats[p];
+            while (threatCount[p] > 0) {
+                int j = t[threatCount[p] - 1];
+                if (cells[j] == 0) return j;
+                threatCount[p]--;
+            }
+            return -1;
+        }
+
+        // leere Felder auf den Linien durch i, die p jetzt den Gewinn bringen würden
+        private void recordThreats(int i, byte p) {
+            int row = i / cols, col = i % cols;
+            for (int[] d : DIRS) {
+                for (int s = -(winLength - 1); s <= winLength - 1; s++) {
+                    int r = row + d[0] * s, c = col + d[1] * s;
+                    if (s == 0 || r < 0 || r >= rows || c < 0 || c >= cols) continue;
+                    int j = r * cols + c;
+                    if (cells[j] != 0) continue;
+                    if (count(r, c, d[0], d[1], p) >= winLength && threatCount[p] < threats[p].length) {
+                        threats[p][threatCount[p]++] = j;
+                    }
+                }
+            }
+        }
+
+        // Taktik vor der Suche, in dieser Reihenfolge: eigener Gewinn, Gegner-Gewinn blocken,
+        // eigene Doppeldrohung (zwei Gewinnfelder auf einmal), einzige Doppeldrohung des Gegners besetzen; sonst -1
+        int tacticalMove() {
+            byte me = toMove;
+            byte opp = (byte) (3 - me);
+            int block = -1;
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] != 0) continue;
+                cells[i] = me;
+                boolean win = isWinAt(i, me);
+                cells[i] = opp;
+                boolean oppWin = isWinAt(i, opp);
+                cells[i] = 0;
+                if (win) return i;
+                if (oppWin && block < 0) block = i;
+            }
+            if (block >= 0) return block;
+
+            // mehrere mögliche Doppeldrohungen lassen sich nicht alle besetzen, das entscheidet dann die Suche
+            int oppFork = -1;
+            int oppForks = 0;
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] != 0) continue;
+                if (threatsAfter(i, me) >= 2) return i;
+                if (threatsAfter(i, opp) >= 2 && oppForks++ == 0) oppFork = i;
+            }
+            return oppForks == 1 ? oppFork : -1;
+        }
+
+        // Anzahl verschiedener Gewinnfelder für p, nachdem p auf i gesetzt hat (nur Linien durch i)
+        private int threatsAfter(int i, byte p) {
+            int row = i / cols, col = i % cols;
+            cells[i] = p;
+            int first = -1;
+            int count = 0;
+            for (int d = 0; d < 4 && count < 2; d++) {
+                int dr = DIRS[d][0], dc = DIRS[d][1];
+                for (int s = -(winLength - 1); s <= winLength - 1 && count < 2; s++) {
+                    int r = row + dr * s, c = col + dc * s;
+                    if (s == 0 || r < 0 || r >= rows || c < 0 || c >= cols) continue;
+                    int j = r * cols + c;
+                    if (cells[j] != 0 || j == first) continue;
+                    cells[j] = p;
+                    boolean w = isWinAt(j, p);
+                    cells[j] = 0;
+                    if (w) {
+                        if (count == 0) first = j;
+                        count++;
+                    }
+                }
+            }
+            cells[i] = 0;
+            return count;
+        }
+
+        int[] candidates() {
+            int[] buf = new int[cells.length];
+            int n = 0;
+            boolean all = cells.length <= SMALL_BOARD_CELLS || stones == 0;
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] != 0) continue;
+                if (all || hasNeighbor(i, NEIGHBOR_RADIUS)) buf[n++] = i;
+            }
+            if (stones == 0 && cells.length > SMALL_BOARD_CELLS) {
+                // leeres großes Board: Mitte
+                return new int[]{(rows / 2) * cols + cols / 2};
+            }
+            int[] out = new int[n];
+            System.arraycopy(buf, 0, out, 0, n);
+            return out;
+        }
+
+        private boolean hasNeighbor(int i, int radius) {
+            int row = i / cols, col = i % cols;
+            for (int r = Math.max(0, row - radius); r <= Math.min(rows - 1, row + radius); r++) {
+                for (int c = Math.max(0, col - radius); c <= Math.min(cols - 1, col + radius); c++) {
+                    if (cells[r * cols + c] != 0) return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isWinAt(int i, byte p) {
+            int row = i / cols, col = i % cols;
+            return count(row, col, 0, 1, p) >= winLength
+                    || count(row, col, 1, 0, p) >= winLength
+                    || count(row, col, 1, 1, p) >= winLength
+                    || count(row, col, 1, -1, p) >= winLength;
+        }
+
+        private int count(int row, int col, int dr, int dc, byte p) {
+            int n = 1;
+            for (int r = row + dr, c = col + dc; r >= 0 && r < rows && c >= 0 && c < cols && cells[r * cols + c] == p; r += dr, c += dc) n++;
+            for (int r = row - dr, c = col - dc; r >= 0 && r < rows && c >= 0 && c < cols && cells[r * cols + c] == p; r -= dr, c -= dc) n++;
+            return n;
+        }
+    }
+}
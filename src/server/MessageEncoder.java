@@ -0,0 +1,181 @@
+package server;
+
+import java.util.Arrays;
+
+/**
+ * Baut Server-Nachrichten direkt als UTF-8-Bytes in einem wiederverwendeten Puffer, statt sie mit '+' als String
+ * zusammenzusetzen und je Empfänger erneut zu kodieren: begin(Befehl).field(...)...toLine() liefert die fertige
+ * Zeile inkl. '\n', die unverändert an alle Empfänger geht (Connection.send(byte[])). Die häufigsten Nachrichten
+ * im 3x3-Spiel (VALID_MOVE, TURN, GAME_OVER) liegen fertig kodiert vor. Ein Encoder pro Thread (local()).
+ */
+public final class MessageEncoder {
+
+    private static final ThreadLocal<MessageEncoder> LOCAL = ThreadLocal.withInitial(MessageEncoder::new);
+
+    private static final int CACHED_SIZE = 3;
+    // [(row * 3 + col) * 2 + (sym == 'O' ? 1 : 0)]
+    private static final byte[][] VALID_MOVES = new byte[CACHED_SIZE * CACHED_SIZE * 2][];
+    private static final byte[] TURN_X;
+    private static final byte[] TURN_O;
+    private static final byte[] GAME_OVER_X;
+    private static final byte[] GAME_OVER_O;
+    private static final byte[] GAME_OVER_DRAW;
+
+    static {
+        MessageEncoder e = new MessageEncoder();
+        for (int r = 0; r < CACHED_SIZE; r++) {
+            for (int c = 0; c < CACHED_SIZE; c++) {
+                VALID_MOVES[(r * CACHED_SIZE + c) * 2] = e.begin(Protocol.SRV_VALID_MOVE).field(r).field(c).field('X').toLine();
+                VALID_MOVES[(r * CACHED_SIZE + c) * 2 + 1] = e.begin(Protocol.SRV_VALID_MOVE).field(r).field(c).field('O').toLine();
+            }
+        }
+        TURN_X = e.begin(Protocol.SRV_TURN).field('X').toLine();
+        TURN_O = e.begin(Protocol.SRV_TURN).field('O').toLine();
+        GAME_OVER_X = e.begin(Protocol.SRV_GAME_OVER).field('X').toLine();
+        GAME_OVER_O = e.begin(Protocol.SRV_GAME_OVER).field('O').toLine();
+        GAME_OVER_DRAW = e.begin(Protocol.SRV_GAME_OVER).field('D').toLine();
+    }
+
+    private byte[] buf = new byte[256];
+    private int len;
+
+    /** Encoder des aktuellen Threads; zwischen begin() und toLine() nicht anderweitig benutzen. */
+    public static MessageEncoder local() {
+        return LOCAL.get();
+    }
+
+    public MessageEncoder begin(String command) {
+        len = 0;
+        return append(command);
+    }
+
+    public MessageEncoder field(CharSequence value) {
+        return separator().append(value);
+    }
+
+    public MessageEncoder field(int value) {
+        return separator().append(value);
+    }
+
+    public MessageEncoder field(char value) {
+        return separator().append(value);
+    }
+
+    /** Nur das Trennzeichen (z. B. vor einer Liste, die mit append() folgt). */
+    public MessageEncoder separator() {
+        ensure(1);
+        buf[len++] = ';';
+        return this;
+    }
+
+    /** Text ohne Trennzeichen anhängen (z. B. Einträge einer Liste "a|b,c|d"); null wie StringBuilder als "null". */
+    public MessageEncoder append(CharSequence s) {
+        if (s == null) s = "null";
+        int n = s.length();
+        ensure(n);
+        byte[] b = buf;
+        int p = len;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                len = p;
+                return appendNonAscii(s, i);
+            }
+            b[p++] = (byte) c;
+        }
+        len = p;
+        return this;
+    }
+
+    public MessageEncoder append(char c) {
+        if (c < 0x80) {
+            ensure(1);
+            buf[len++] = (byte) c;
+            return this;
+        }
+        return append(String.valueOf(c));
+    }
+
+    public MessageEncoder append(int v) {
+        if (v < 0) {
+            if (v == Integer.MIN_VALUE) return append(Integer.toString(v));
+            append('-');
+            v = -v;
+        }
+        int digits = 1;
+        for (int t = v; t >= 10; t /= 10) digits++;
+        ensure(digits);
+        for (int p = len + digits - 1; p >= len; p--) {
+            buf[p] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        len += digits;
+        return this;
+    }
+
+    // Rest ab dem ersten Nicht-ASCII-Zeichen als UTF-8 (seltener Fall: Umlaute in Namen/Chat)
+    private MessageEncoder appendNonAscii(CharSequence s, int from) {
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+            // append() hat nur ein Byte pro Zeichen reserviert
+            ensure(4 + s.length() - i);
+            if (c < 0x80) {
+                buf[len++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[len++] = (byte) (0xC0 | c >> 6);
+                buf[len++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[len++] = (byte) (0xF0 | cp >> 18);
+                buf[len++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                buf[len++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                buf[len++] = (byte) (0x80 | cp & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                buf[len++] = '?'; // einzelnes Surrogat, wie String.getBytes
+            } else {
+                buf[len++] = (byte) (0xE0 | c >> 12);
+                buf[len++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buf[len++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return this;
+    }
+
+    private void ensure(int extra) {
+        // +1: Platz für den Zeilenumbruch in toLine()
+        if (len + extra + 1 > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra + 1));
+    }
+
+    /** Fertige Zeile mit '\n' als eigenes Array (wird geteilt und nicht mehr verändert). */
+    public byte[] toLine() {
+        buf[len] = '\n';
+        return Arrays.copyOf(buf, len + 1);
+    }
+
+    /** Beliebige Nachricht (ohne Zeilenumbruch) kodieren. */
+    public static byte[] encode(String message) {
+        return local().begin(message).toLine();
+    }
+
+    public static byte[] validMove(int row, int col, char sym) {
+        if (row >= 0 && row < CACHED_SIZE && col >= 0 && col < CACHED_SIZE && (sym == 'X' || sym == 'O')) {
+            return VALID_MOVES[(row * CACHED_SIZE + col) * 2 + (sym == 'O' ? 1 : 0)];
+        }
+        return local().begin(Protocol.SRV_VALID_MOVE).field(row).field(col).field(sym).toLine();
+    }
+
+    public static byte[] turn(char sym) {
+        if (sym == 'X') return TURN_X;
+        if (sym == 'O') return TURN_O;
+        return local().begin(Protocol.SRV_TURN).field(sym).toLine();
+    }
+
+    public static byte[] gameOver(char winner) {
+        return switch (winner) {
+            case 'X' -> GAME_OVER_X;
+            case 'O' -> GAME_OVER_O;
+            case 'D' -> GAME_OVER_DRAW;
+            default -> local().begin(Protocol.SRV_GAME_OVER).field(winner).toLine();
+        };
+    }
+}
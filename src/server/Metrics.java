@@ -0,0 +1,57 @@
+package server;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Serverweite Metriken: Zähler, Latenz-Histogramme und Gauges unter Namen wie "cmd.MOVE" oder "history.append".
+ * Bewusst ein statisches Register, damit Stores ohne Server-Referenz (GameStore, ScoreManager, ...) messen
+ * können. Aufrufer holen Zähler und Histogramme einmal (static final) und zählen danach ohne Map-Zugriff.
+ * Gauges werden erst beim Auslesen abgefragt; ein neuer Gauge mit gleichem Namen ersetzt den alten.
+ */
+public final class Metrics {
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    public static void gauge(String name, LongSupplier value) {
+        GAUGES.put(name, value);
+    }
+
+    // Kopien nach Namen sortiert (für Ausgabe)
+    public static Map<String, Long> counters() {
+        Map<String, Long> out = new TreeMap<>();
+        COUNTERS.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+
+    public static Map<String, LatencyHistogram> histograms() {
+        return new TreeMap<>(HISTOGRAMS);
+    }
+
+    public static Map<String, Long> gauges() {
+        Map<String, Long> out = new TreeMap<>();
+        GAUGES.forEach((k, v) -> {
+            try {
+                out.put(k, v.getAsLong());
+            } catch (RuntimeException e) {
+                out.put(k, -1L);
+            }
+        });
+        return out;
+    }
+}
@@ -0,0 +1,88 @@
+package server;
+
+/**
+ * Allgemeines m,n,k-Spiel (z.B. 15x15, fünf in einer Reihe).
+ * Gewinn-Erkennung prüft nur die vier Linien durch den zuletzt gesetzten Stein: O(k) pro Zug statt O(n²).
+ */
+public class MnkGame implements BoardGame {
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    private final char[] cells;
+
+    private int moveCount;
+    private char currentPlayer = 'X';
+    private char winner = ' ';
+
+    public MnkGame(int rows, int cols, int winLength) {
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+        this.cells = new char[rows * cols];
+    }
+
+    @Override
+    public boolean makeMove(int row, int col, char player) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) return false;
+        int i = row * cols + col;
+        if (cells[i] != '\0') return false;
+        if (player != currentPlayer) return false;
+
+        cells[i] = player;
+        moveCount++;
+        currentPlayer = (currentPlayer == 'X') ? 'O' : 'X';
+
+        if (winner == ' ') {
+            if (isWinAt(row, col, player)) winner = player;
+            else if (moveCount == cells.length) winner = 'D';
+        }
+        return true;
+    }
+
+    private boolean isWinAt(int row, int col, char p) {
+        return count(row, col, 0, 1, p) >= winLength
+                || count(row, col, 1, 0, p) >= winLength
+                || count(row, col, 1, 1, p) >= winLength
+                || count(row, col, 1, -1, p) >= winLength;
+    }
+
+    // Steine von p in beide Richtungen entlang (dr, dc), inklusive (row, col)
+    private int count(int row, int col, int dr, int dc, char p) {
+        int n = 1;
+        for (int r = row + dr, c = col + dc; r >= 0 && r < rows && c >= 0 && c < cols && cells[r * cols + c] == p; r += dr, c += dc) n++;
+        for (int r = row - dr, c = col - dc; r >= 0 && r < rows && c >= 0 && c < cols && cells[r * cols + c] == p; r -= dr, c -= dc) n++;
+        return n;
+    }
+
+    @Override
+    public char getCurrentPlayer() { return currentPlayer; }
+
+    @Override
+    public char checkWinner() { return winner; }
+
+    @Override
+    public char getCell(int row, int col) { return cells[row * cols + col]; }
+
+    @Override
+    public int getRows() { return rows; }
+
+    @Override
+    public int getCols() { return cols; }
+
+    @Override
+    public int getWinLength() { return winLength; }
+
+    @Override
+    public int getMoveCount() { return moveCount; }
+
+    @Override
+    public MnkGame copy() {
+        MnkGame g = new MnkGame(rows, cols, winLength);
+        System.arraycopy(cells, 0, g.cells, 0, cells.length);
+        g.moveCount = moveCount;
+        g.currentPlayer = currentPlayer;
+        g.winner = winner;
+        return g;
+    }
+}
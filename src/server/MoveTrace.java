@@ -0,0 +1,92 @@
+package server;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zeitstempel eines Spielerzugs von der gelesenen MOVE-Zeile bis zum letzten Versand an Spieler und Zuschauer
+ * (nur mit -Dtictactoe.trace.moves=true, sonst wird kein Objekt angelegt). Abschnitte als Histogramme
+ * trace.move.* (queue, lock, validate, journal, broadcast, send je Empfänger, finish, total); Züge über
+ * -Dtictactoe.trace.slowMs (Standard 50) werden mit ihrer Aufteilung geloggt.
+ * Ein Trace gehört dem Thread, der den Zug verarbeitet (Handler-Thread bzw. Event-Loop), daher ohne Sperren.
+ */
+final class MoveTrace {
+
+    static final boolean ENABLED = Boolean.getBoolean("tictactoe.trace.moves");
+    private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("tictactoe.trace.slowMs", 50));
+
+    // erst beim ersten Zug angelegt, damit ohne Tracing keine leeren Histogramme exportiert werden
+    private static final class Stages {
+        static final LatencyHistogram QUEUE = Metrics.histogram("trace.move.queue");
+        static final LatencyHistogram LOCK = Metrics.histogram("trace.move.lock");
+        static final LatencyHistogram VALIDATE = Metrics.histogram("trace.move.validate");
+        static final LatencyHistogram JOURNAL = Metrics.histogram("trace.move.journal");
+        static final LatencyHistogram BROADCAST = Metrics.histogram("trace.move.broadcast");
+        static final LatencyHistogram SEND = Metrics.histogram("trace.move.send");
+        static final LatencyHistogram FINISH = Metrics.histogram("trace.move.finish");
+        static final LatencyHistogram TOTAL = Metrics.histogram("trace.move.total");
+    }
+
+    private final long readAt;     // Zeile vom Socket gelesen
+    private final long dispatchAt; // handleLine() beginnt
+    private long lockedAt;
+    private long validatedAt;      // 0 = Zug abgelehnt, wird nicht erfasst
+    private long journaledAt;
+    private long broadcastNanos;
+    private int sends;
+    private long slowestSend;
+    private String slowestRecipient;
+    private long finishNanos;
+
+    private MoveTrace(long readAt, long dispatchAt) {
+        this.readAt = readAt;
+        this.dispatchAt = dispatchAt;
+    }
+
+    // null, wenn Tracing aus ist (alle Aufrufer prüfen auf null)
+    static MoveTrace begin(long readAt, long dispatchAt) {
+        return ENABLED ? new MoveTrace(readAt, dispatchAt) : null;
+    }
+
+    void locked() { lockedAt = System.nanoTime(); }
+    void validated() { validatedAt = System.nanoTime(); }
+    void journaled() { journaledAt = System.nanoTime(); }
+
+    void sent(ClientHandler to, long nanos) {
+        Stages.SEND.record(nanos);
+        broadcastNanos += nanos;
+        sends++;
+        if (nanos > slowestSend) {
+            slowestSend = nanos;
+            slowestRecipient = to.getPlayerName();
+        }
+    }
+
+    void finished(long startNanos) { finishNanos = System.nanoTime() - startNanos; }
+
+    /** Nach dem Zug (außerhalb des Session-Locks): Abschnitte verbuchen, langsame Züge loggen. */
+    void complete(String sessionId, ClientHandler from, int row, int col) {
+        if (validatedAt == 0) return;
+        long total = System.nanoTime() - readAt;
+        Stages.QUEUE.record(dispatchAt - readAt);
+        Stages.LOCK.record(lockedAt - dispatchAt);
+        Stages.VALIDATE.record(validatedAt - lockedAt);
+        Stages.JOURNAL.record(journaledAt - validatedAt);
+        Stages.BROADCAST.record(broadcastNanos);
+        if (finishNanos > 0) Stages.FINISH.record(finishNanos);
+        Stages.TOTAL.record(total);
+
+        if (total >= SLOW_NANOS) {
+            System.out.println(String.format(Locale.ROOT,
+                    "[MoveTrace] langsamer Zug %.1f ms session=%s spieler=%s zug=%d,%d: warten=%.2f lock=%.2f"
+                            + " prüfen=%.2f journal=%.2f senden=%.2f (%d Empfänger, langsamster %s %.2f) ende=%.2f",
+                    ms(total), sessionId, from.getPlayerName(), row, col, ms(dispatchAt - readAt),
+                    ms(lockedAt - dispatchAt), ms(validatedAt - lockedAt), ms(journaledAt - validatedAt),
+                    ms(broadcastNanos), sends, slowestRecipient, ms(slowestSend), ms(finishNanos)));
+        }
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+}
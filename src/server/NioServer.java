@@ -0,0 +1,320 @@
+package server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optionaler Server-Modus auf Basis von java.nio: wenige Event-Loop-Threads bedienen
+ * beliebig viele Verbindungen. Das ';'-Zeilenprotokoll bleibt unverändert, Clients merken keinen Unterschied.
+ * Aktivierung: -Dtictactoe.server.io=nio (Anzahl Loops über -Dtictactoe.nio.threads).
+ * Befehle, die blockieren dürfen (Historie, Rangliste, Spielstart mit Einlesen des Spielstands), übergibt der
+ * ClientHandler per runBlocking() an einen virtuellen Worker; bis er fertig ist, liest der Loop von dieser
+ * Verbindung nichts weiter, damit die Reihenfolge der Befehle erhalten bleibt. Im Loop bleiben nur kurze Aufgaben,
+ * bewusst auch das Anhängen eines Zugs an das Journal (ein write, das fsync läuft im GameStore-Flusher).
+ */
+public class NioServer {
+
+    // Schutz gegen Clients, die nie einen Zeilenumbruch schicken
+    private static final int MAX_LINE_BYTES = 8 * 1024;
+    // close(): so lange dürfen noch wartende Zeilen brauchen, danach wird hart geschlossen
+    private static final long CLOSE_LINGER_MS = 5_000;
+
+    private final TicTacToeServer server;
+    private final int port;
+    private final EventLoop[] loops;
+
+    public NioServer(TicTacToeServer server, int port, int loopCount) throws IOException {
+        this.server = server;
+        this.port = port;
+        this.loops = new EventLoop[Math.max(1, loopCount)];
+        for (int i = 0; i < loops.length; i++) loops[i] = new EventLoop("NioLoop-" + i);
+    }
+
+    public void run() throws IOException {
+        for (EventLoop l : loops) l.start();
+
+        try (ServerSocketChannel ssc = ServerSocketChannel.open()) {
+            ssc.bind(new InetSocketAddress(port));
+            System.out.println("Server gestartet (NIO, " + loops.length + " Event-Loops). Warte auf Spieler auf Port " + port + "...");
+
+            int next = 0;
+            while (true) {
+                // Accept blockierend im Aufrufer-Thread, danach Round-Robin auf die Loops verteilen
+                SocketChannel ch = ssc.accept();
+                ch.configureBlocking(false);
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                loops[next].register(ch);
+                next = (next + 1) % loops.length;
+            }
+        }
+    }
+
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuf = ByteBuffer.allocateDirect(4096);
+
+        EventLoop(String name) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, name);
+        }
+
+        void start() { thread.start(); }
+
+        void register(SocketChannel ch) {
+            execute(() -> {
+                try {
+                    NioConnection c = new NioConnection(this, ch);
+                    c.key = ch.register(selector, SelectionKey.OP_READ, c);
+                    c.handler = new ClientHandler(c, server);
+                    c.handler.sendGreeting();
+                    server.register(c.handler);
+                } catch (IOException e) {
+                    System.out.println("[NioServer] Registrierung fehlgeschlagen: " + e.getMessage());
+                    try { ch.close(); } catch (IOException ignored) {}
+                }
+            });
+        }
+
+        // Aufgaben immer im Loop-Thread ausführen (Channel/Key werden nur hier angefasst)
+        void execute(Runnable task) {
+            tasks.add(task);
+            if (Thread.currentThread() != thread) selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        System.out.println("[NioServer] Fehler in Loop-Task: " + e.getMessage());
+                    }
+                }
+
+                try {
+                    // Neue Aufgaben aus dem eigenen Thread (z.B. Antworten) nicht bis zum nächsten Event liegen lassen
+                    if (tasks.isEmpty()) selector.select();
+                    else selector.selectNow();
+                } catch (IOException e) {
+                    System.out.println("[NioServer] Selector-Fehler: " + e.getMessage());
+                    continue;
+                }
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    NioConnection c = (NioConnection) key.attachment();
+                    if (key.isValid() && key.isReadable()) read(c);
+                    if (key.isValid() && key.isWritable()) flush(c);
+                }
+            }
+        }
+
+        private void read(NioConnection c) {
+            int n;
+            try {
+                readBuf.clear();
+                n = c.channel.read(readBuf);
+            } catch (IOException e) {
+                closeNow(c);
+                return;
+            }
+            if (n < 0) {
+                closeNow(c);
+                return;
+            }
+
+            // gemeinsamer Lesezeitpunkt aller Zeilen dieses Blocks (MoveTrace misst die Wartezeit dahinter)
+            readBuf.flip();
+            consume(c, readBuf, System.nanoTime());
+        }
+
+        // Zeilen aus src verarbeiten; übernimmt ein Worker einen Befehl, wird der Rest für resume() aufgehoben
+        private void consume(NioConnection c, ByteBuffer src, long readAt) {
+            while (src.hasRemaining()) {
+                byte b = src.get();
+                if (b != '\n') {
+                    c.lineBuf.write(b);
+                    if (c.lineBuf.size() > MAX_LINE_BYTES) {
+                        System.out.println("[NioServer] Zeile zu lang, Verbindung wird getrennt.");
+                        closeNow(c);
+                        return;
+                    }
+                    continue;
+                }
+
+                String line = c.lineBuf.toString(Protocol.CHARSET);
+                c.lineBuf.reset();
+                if (line.endsWith("\r")) line = line.substring(0, line.length() - 1);
+
+                if (!c.handler.handleLine(line, readAt)) {
+                    closeNow(c);
+                    return;
+                }
+                if (c.channelClosed) return;
+                if (c.readPaused) {
+                    if (src.hasRemaining()) c.heldInput = ByteBuffer.allocate(src.remaining()).put(src).flip();
+                    return;
+                }
+            }
+        }
+
+        // Worker fertig: aufgehobene Zeilen verarbeiten und wieder lesen
+        private void resume(NioConnection c) {
+            if (c.channelClosed) return;
+            c.readPaused = false;
+            ByteBuffer held = c.heldInput;
+            c.heldInput = null;
+            if (held != null) {
+                consume(c, held, System.nanoTime());
+                if (c.channelClosed) return;
+            }
+            updateInterest(c);
+        }
+
+        // OP_READ außer während ein Worker läuft, OP_WRITE solange ein Puffer nur teilweise geschrieben ist
+        private void updateInterest(NioConnection c) {
+            if (c.channelClosed) return;
+            boolean writing = c.pending != null && c.pending.hasRemaining();
+            c.key.interestOps((c.readPaused ? 0 : SelectionKey.OP_READ) | (writing ? SelectionKey.OP_WRITE : 0));
+        }
+
+        // alle wartenden Zeilen als ein Puffer, der Rest eines nur teilweise geschriebenen Puffers zuerst
+        private void flush(NioConnection c) {
+            if (c.channelClosed) return;
+            try {
+                while (true) {
+                    if (c.pending == null || !c.pending.hasRemaining()) c.pending = c.outbound.drainTo(c.pending);
+                    if (c.pending != null && c.pending.hasRemaining()) {
+                        c.channel.write(c.pending);
+                        if (c.pending.hasRemaining()) {
+                            // Socket-Puffer voll -> auf OP_WRITE warten
+                            updateInterest(c);
+                            return;
+                        }
+                        continue;
+                    }
+                    if (c.closeWhenFlushed) {
+                        closeNow(c);
+                        return;
+                    }
+                    updateInterest(c);
+                    c.flushScheduled.set(false);
+                    // Race: zwischen leerer Queue und set(false) kann ein send() dazwischengekommen sein
+                    if (c.outbound.size() == 0 || !c.flushScheduled.compareAndSet(false, true)) return;
+                }
+            } catch (IOException | CancelledKeyException e) {
+                closeNow(c);
+            }
+        }
+
+        private void closeLater(NioConnection c) {
+            server.getTimerWheel().schedule(() -> execute(() -> closeNow(c)), CLOSE_LINGER_MS, TimeUnit.MILLISECONDS);
+        }
+
+        private void closeNow(NioConnection c) {
+            if (c.channelClosed) return;
+            c.channelClosed = true;
+            c.closing = true;
+            if (c.key != null) c.key.cancel();
+            try { c.channel.close(); } catch (IOException ignored) {}
+            c.outbound.abort();
+            c.pending = null;
+            c.heldInput = null;
+            if (c.handler != null) c.handler.onDisconnect();
+        }
+    }
+
+    private static final class NioConnection implements Connection {
+        private final EventLoop loop;
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private ClientHandler handler;
+
+        private final ByteArrayOutputStream lineBuf = new ByteArrayOutputStream(128);
+        private final OutboundQueue outbound = new OutboundQueue();
+        private ByteBuffer pending; // Schreibpuffer, wird wiederverwendet; nur im Loop-Thread
+        private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+        // nur im Loop-Thread: Worker läuft (nicht lesen), bis dahin schon gelesene Bytes, close() wartet auf flush
+        private boolean readPaused;
+        private ByteBuffer heldInput;
+        private boolean closeWhenFlushed;
+
+        private volatile boolean closing = false;
+        private boolean channelClosed = false; // nur im Loop-Thread
+
+        NioConnection(EventLoop loop, SocketChannel channel) {
+            this.loop = loop;
+            this.channel = channel;
+        }
+
+        @Override
+        public void send(byte[] line) {
+            if (closing) return;
+            if (!outbound.offer(line)) {
+                System.out.println("[NioServer] Client zu langsam, Verbindung wird getrennt.");
+                closing = true;
+                loop.execute(() -> loop.closeNow(this));
+                return;
+            }
+            if (flushScheduled.compareAndSet(false, true)) loop.execute(() -> loop.flush(this));
+        }
+
+        @Override
+        public int queued() {
+            return outbound.size();
+        }
+
+        @Override
+        public boolean awaitQueuedBelow(int lines) {
+            if (outbound.awaitBelow(lines)) return true;
+            if (!closing) {
+                closing = true;
+                loop.execute(() -> loop.closeNow(this));
+            }
+            return false;
+        }
+
+        // wird aus handleLine() im Loop-Thread aufgerufen
+        @Override
+        public void runBlocking(Runnable task) {
+            readPaused = true;
+            loop.updateInterest(this);
+            Thread.ofVirtual().name("NioWorker").start(() -> {
+                try {
+                    task.run();
+                } finally {
+                    loop.execute(() -> loop.resume(this));
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            if (closing) return;
+            closing = true;
+            outbound.close();
+            // bereits eingereihte Nachrichten noch senden (ein Rest wartet auf OP_WRITE), erst dann schließen;
+            // liest der Client nicht mehr, wird nach CLOSE_LINGER_MS trotzdem geschlossen
+            loop.execute(() -> {
+                closeWhenFlushed = true;
+                loop.flush(this);
+                if (!channelClosed) loop.closeLater(this);
+            });
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Begrenzte Queue ausgehender (fertig kodierter) Zeilen einer Verbindung. offer() blockiert nie, damit ein hängender Client weder
+ * MatchSession.broadcast (unter dem Session-Lock) noch die Mitspieler aufhält; geleert wird sie von genau einem
+ * Schreiber (Writer-Thread im Socket-Modus, Event-Loop bei NIO), der alle wartenden Zeilen mit einem Schreib-
+ * vorgang sendet. Raum- und Turnierlisten (ROOMS/TROOMS) ersetzen eine noch nicht gesendete Liste gleicher Art.
+ * Stehen mehr als -Dtictactoe.out.maxQueued Zeilen an (Standard 1000) oder wartet die älteste länger als
+ * -Dtictactoe.out.maxStallMs (Standard 10000), lehnt offer() ab und der Aufrufer trennt die Verbindung.
+ * Große Antworten (HISTORY ohne limit) reihen seitenweise ein und warten dazwischen mit awaitBelow().
+ */
+final class OutboundQueue {
+
+    private static final int MAX_LINES = Math.max(1, Integer.getInteger("tictactoe.out.maxQueued", 1000));
+    private static final long MAX_STALL_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("tictactoe.out.maxStallMs", 10_000));
+
+    private static final byte[] ROOMS_PREFIX = (Protocol.SRV_ROOMS + Protocol.SEPARATOR).getBytes(Protocol.CHARSET);
+    private static final byte[] TROOMS_PREFIX = (Protocol.SRV_TOURNAMENTS + Protocol.SEPARATOR).getBytes(Protocol.CHARSET);
+    // Schreibpuffer über dieser Größe werden nach einem kleinen Durchlauf wieder freigegeben
+    private static final int KEEP_BUFFER_BYTES = 64 * 1024;
+
+    private static final LongAdder LINES = Metrics.counter("out.lines");
+    private static final LongAdder WRITES = Metrics.counter("out.writes");
+    private static final LongAdder CONFLATED = Metrics.counter("out.conflated");
+    private static final LongAdder SLOW_DISCONNECTS = Metrics.counter("out.slowDisconnects");
+    // über alle Verbindungen: aktuell wartende Zeilen und größte Queue-Länge seit Start
+    private static final LongAdder QUEUED = new LongAdder();
+    private static final AtomicLong MAX_DEPTH = new AtomicLong();
+
+    private static final class Entry {
+        byte[] line;
+        final long queuedAt;
+
+        Entry(byte[] line, long queuedAt) {
+            this.line = line;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    // noch nicht gesendete Listen, die von einer neueren ersetzt werden dürfen
+    private Entry pendingRooms;
+    private Entry pendingTournaments;
+    private int bytes;
+    private boolean closed;
+
+    /**
+     * Zeile einreihen. false = Verbindung zu langsam (Grenze erreicht); sie muss dann getrennt werden.
+     * Nach close() werden Zeilen stillschweigend verworfen.
+     */
+    boolean offer(byte[] line) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            if (closed) return true;
+            // auch ersetzte Listen prüfen: ein Client, der gar nicht mehr liest, bekäme sonst nie ein Limit zu spüren
+            Entry head = entries.peekFirst();
+            if (head != null && now - head.queuedAt > MAX_STALL_NANOS) return overflow();
+            boolean rooms = startsWith(line, ROOMS_PREFIX);
+            boolean tournaments = !rooms && startsWith(line, TROOMS_PREFIX);
+            Entry replace = rooms ? pendingRooms : tournaments ? pendingTournaments : null;
+            if (replace != null) {
+                bytes += line.length - replace.line.length;
+                replace.line = line;
+                CONFLATED.increment();
+                return true;
+            }
+
+            if (entries.size() >= MAX_LINES) return overflow();
+
+            Entry e = new Entry(line, now);
+            entries.addLast(e);
+            bytes += line.length;
+            if (rooms) pendingRooms = e;
+            else if (tournaments) pendingTournaments = e;
+            QUEUED.increment();
+            MAX_DEPTH.accumulateAndGet(entries.size(), Math::max);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Kopiert alle wartenden Zeilen hintereinander in buf (wird bei Bedarf ersetzt, null = neu anlegen) und gibt
+     * den Puffer lesebereit zurück; ohne wartende Zeilen leer (oder null, wenn buf null war).
+     */
+    ByteBuffer drainTo(ByteBuffer buf) {
+        lock.lock();
+        try {
+            int n = entries.size();
+            if (n == 0) {
+                if (buf != null) buf.clear().limit(0);
+                return buf;
+            }
+            if (buf == null || buf.capacity() < bytes || (buf.capacity() > KEEP_BUFFER_BYTES && bytes <= KEEP_BUFFER_BYTES / 4)) {
+                buf = ByteBuffer.allocate(Math.max(bytes, 1024));
+            }
+            buf.clear();
+            for (Entry e : entries) buf.put(e.line);
+            buf.flip();
+            entries.clear();
+            bytes = 0;
+            pendingRooms = null;
+            pendingTournaments = null;
+            QUEUED.add(-n);
+            LINES.add(n);
+            WRITES.increment();
+            drained.signalAll();
+            return buf;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writer-Thread: wartet auf Zeilen; false, sobald geschlossen und alles abgeholt ist
+    boolean awaitLines() throws InterruptedException {
+        lock.lock();
+        try {
+            while (entries.isEmpty() && !closed) notEmpty.await();
+            return !entries.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wartet, bis höchstens lines Zeilen anstehen. false = geschlossen, oder die älteste Zeile wartet länger als
+     * maxStallMs (dann wie bei offer() abgelehnt; der Aufrufer trennt die Verbindung).
+     */
+    boolean awaitBelow(int lines) {
+        lock.lock();
+        try {
+            while (!closed && entries.size() > lines) {
+                long waited = System.nanoTime() - entries.peekFirst().queuedAt;
+                if (waited > MAX_STALL_NANOS) return overflow();
+                drained.awaitNanos(MAX_STALL_NANOS - waited);
+            }
+            return !closed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Keine neuen Zeilen mehr annehmen; bereits wartende darf der Schreiber noch abholen. */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Schließen und alle wartenden Zeilen verwerfen (Verbindung ist weg). */
+    void abort() {
+        lock.lock();
+        try {
+            discard();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // unter lock
+    private boolean overflow() {
+        SLOW_DISCONNECTS.increment();
+        discard();
+        return false;
+    }
+
+    // unter lock
+    private void discard() {
+        closed = true;
+        QUEUED.add(-entries.size());
+        entries.clear();
+        bytes = 0;
+        pendingRooms = null;
+        pendingTournaments = null;
+        notEmpty.signalAll();
+        drained.signalAll();
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean startsWith(byte[] line, byte[] prefix) {
+        if (line.length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    static int maxLines() { return MAX_LINES; }
+    static long totalQueued() { return QUEUED.sum(); }
+    static long maxDepth() { return MAX_DEPTH.get(); }
+}
@@ -0,0 +1,73 @@
+package server;
+
+import java.util.Arrays;
+
+/**
+ * Unschlagbarer Bot: beim Laden der Klasse werden alle erreichbaren 3x3-Stellungen (5478) per Minimax gelöst
+ * und der beste Zug je Stellung in einer Tabelle abgelegt. pickMove ist danach ein einzelner Array-Zugriff
+ * ohne Allokation. Index = (xMask << 9) | oMask.
+ */
+public final class PerfectBot implements BotPlayer {
+
+    public static final PerfectBot INSTANCE = new PerfectBot();
+
+    private static final int FULL = TicTacToeGame.FULL_MASK;
+    private static final byte UNKNOWN = Byte.MIN_VALUE;
+
+    // Zugreihenfolge bei Gleichstand: Mitte, Ecken, Kanten (spielt sich natürlicher)
+    private static final int[] ORDER = {4, 0, 2, 6, 8, 1, 3, 5, 7};
+
+    private static final byte[] BEST = new byte[1 << 18];
+
+    static {
+        Arrays.fill(BEST, (byte) -1);
+        byte[] value = new byte[1 << 18];
+        Arrays.fill(value, UNKNOWN);
+        solve(0, 0, value);
+    }
+
+    private PerfectBot() {}
+
+    @Override
+    public int pickMove(BoardGame game, char me) {
+        if (!(game instanceof TicTacToeGame t)) return -1; // Tabelle gibt es nur für 3x3
+        return BEST[(t.getXMask() << 9) | t.getOMask()];
+    }
+
+    // Wert aus Sicht des Spielers am Zug: > 0 Gewinn (schneller = höher), 0 Remis, < 0 Niederlage
+    private static int solve(int x, int o, byte[] value) {
+        int key = (x << 9) | o;
+        if (value[key] != UNKNOWN) return value[key];
+
+        boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+        int mine = xToMove ? x : o;
+        int theirs = xToMove ? o : x;
+        int occupied = x | o;
+
+        int best = Integer.MIN_VALUE;
+        int bestCell = -1;
+        for (int cell : ORDER) {
+            int bit = 1 << cell;
+            if ((occupied & bit) != 0) continue;
+
+            int next = mine | bit;
+            int v;
+            if (TicTacToeGame.isWin(next)) {
+                v = 10 - Integer.bitCount(occupied);
+            } else if ((next | theirs) == FULL) {
+                v = 0;
+            } else {
+                v = xToMove ? -solve(next, o, value) : -solve(x, next, value);
+            }
+
+            if (v > best) {
+                best = v;
+                bestCell = cell;
+            }
+        }
+
+        value[key] = (byte) best;
+        BEST[key] = (byte) bestCell;
+        return best;
+    }
+}
@@ -0,0 +1,250 @@
+package server;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Schreibt Spielergebnisse abseits von MatchSession.finish(): finish() übernimmt das Ergebnis nur in den Speicher
+ * (Scoreboard) und reiht ein Ereignis ein. Ein Schreib-Thread hängt die Partien an die History, schreibt die
+ * gesammelten Score-Log-Zeilen und bringt beides mit je einem fsync pro Datei auf die Platte (Group Commit über
+ * alle Ergebnisse, die seit dem letzten Durchlauf anstanden). Erst danach werden die Spielstände gelöscht, ein
+ * Spielstand verschwindet also nie vor seinem Ergebnis. Schlägt Schreiben oder fsync fehl, wird derselbe Durchlauf
+ * nach einer Pause wiederholt; bis dahin bleiben die Spielstände liegen und flush() meldet keinen Erfolg.
+ * Haltbarkeit: -Dtictactoe.persist.durability=batch (Standard, ein fsync pro Durchlauf) oder event (fsync nach
+ * jedem Ergebnis). Die Queue ist begrenzt (-Dtictactoe.persist.queue, Standard 1024): submitResult() reiht immer
+ * sofort ein (wird unter dem Session-Lock aufgerufen), awaitCapacity() lässt den Aufrufer danach ohne Lock warten,
+ * bis der Schreib-Thread aufgeholt hat. Beim Beenden der JVM wird die Queue noch geleert.
+ */
+public class PersistencePipeline {
+
+    private static final LatencyHistogram SYNC_LATENCY = Metrics.histogram("persist.fsync");
+    // Spielende bis Ergebnis auf der Platte
+    private static final LatencyHistogram LAG = Metrics.histogram("persist.lag");
+    private static final LongAdder ERRORS = Metrics.counter("persist.errors");
+    // Pause vor einem neuen Versuch nach einem Schreibfehler
+    private static final long RETRY_MS = 1000;
+
+    private static final class MatchResult {
+        final String playerX;
+        final String playerO;
+        final char winner;
+        final String moves;
+        final GameStore.Journal journal;
+        final LocalDateTime finishedAt = LocalDateTime.now();
+        final long submittedAt = System.nanoTime();
+        boolean appended; // schon in der History (nur Schreib-Thread), bei Wiederholung nicht doppelt anhängen
+
+        MatchResult(String playerX, String playerO, char winner, String moves, GameStore.Journal journal) {
+            this.playerX = playerX;
+            this.playerO = playerO;
+            this.winner = winner;
+            this.moves = moves;
+            this.journal = journal;
+        }
+    }
+
+    private final ScoreManager scores;
+    private final MatchHistoryStore history;
+    private final boolean perEvent;
+    private final int maxQueued;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final ArrayDeque<MatchResult> queue = new ArrayDeque<>();
+    // Aufträge (Ergebnisse, Score-Weckrufe, flush) werden fortlaufend gezählt; unter lock
+    private long requested;
+    private long taken;
+    private long durable;
+    // mehr als maxQueued Ergebnisse offen (für isFull() ohne lock)
+    private volatile boolean full;
+
+    // results/batches = mittlere Größe eines Durchlaufs; Dauer der fsyncs in persist.fsync
+    private static final LongAdder RESULTS = Metrics.counter("persist.results");
+    private static final LongAdder BATCHES = Metrics.counter("persist.batches");
+    private static final LongAdder FULL_WAITS = Metrics.counter("persist.fullWaits");
+
+    public PersistencePipeline(ScoreManager scores, MatchHistoryStore history) {
+        this.scores = scores;
+        this.history = history;
+        String mode = System.getProperty("tictactoe.persist.durability", "batch").trim().toLowerCase(Locale.ROOT);
+        this.perEvent = "event".equals(mode);
+        this.maxQueued = Math.max(1, Integer.getInteger("tictactoe.persist.queue", 1024));
+    }
+
+    /** Schreib-Thread starten und das Score-Log übernehmen; einmal nach dem Konstruktor aufrufen. */
+    public void start() {
+        scores.deferLog(this::wakeup);
+        Thread writer = new Thread(this::runWriter, "PersistenceWriter");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(5, TimeUnit.SECONDS), "PersistenceShutdown"));
+    }
+
+    /**
+     * Ergebnis einer beendeten Partie einreihen (Scores müssen schon im ScoreManager verbucht, das Journal mit
+     * retire() geschlossen sein). Blockiert nie; die Begrenzung greift erst in awaitCapacity().
+     */
+    public void submitResult(String playerX, String playerO, char winner, String moves, GameStore.Journal journal) {
+        MatchResult r = new MatchResult(playerX, playerO, winner, moves, journal);
+        lock.lock();
+        try {
+            queue.add(r);
+            if (queue.size() > maxQueued) full = true;
+            requested++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wartet, solange mehr als -Dtictactoe.persist.queue Ergebnisse anstehen. Nach submitResult() aufrufen, sobald
+     * der Aufrufer keine Locks mehr hält; die Queue wächst so höchstens um die Zahl gleichzeitig endender Spiele.
+     */
+    public void awaitCapacity() {
+        lock.lock();
+        try {
+            if (queue.size() <= maxQueued) return;
+            FULL_WAITS.increment();
+            while (queue.size() > maxQueued) notFull.awaitUninterruptibly();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // vom ScoreManager nach jeder vorgemerkten Log-Zeile (z. B. Turniersieg ohne eigenes Ereignis)
+    private void wakeup() {
+        lock.lock();
+        try {
+            if (requested == taken) {
+                requested++;
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Wartet, bis alles bisher Eingereichte auf der Platte ist; false bei Zeitüberschreitung. */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        lock.lock();
+        try {
+            long target = ++requested;
+            notEmpty.signal();
+            while (durable < target) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) return false;
+                synced.awaitNanos(left);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runWriter() {
+        List<MatchResult> batch = new ArrayList<>();
+        long upTo = 0;
+        boolean retry = false;
+        while (true) {
+            if (retry) {
+                // neue Ergebnisse bleiben solange in der Queue (ist sie voll, bremst awaitCapacity())
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            } else {
+                lock.lock();
+                try {
+                    while (taken == requested) notEmpty.awaitUninterruptibly();
+                    batch.addAll(queue);
+                    queue.clear();
+                    full = false;
+                    upTo = requested;
+                    taken = upTo;
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            boolean ok;
+            try {
+                ok = writeBatch(batch);
+            } catch (RuntimeException e) {
+                System.out.println("[PersistencePipeline] Fehler beim Schreiben: " + e.getMessage());
+                ok = false;
+            }
+            retry = !ok;
+            if (retry) {
+                ERRORS.increment();
+                System.out.println("[PersistencePipeline] " + batch.size() + " Ergebnis(se) nicht gesichert, neuer Versuch in "
+                        + RETRY_MS + " ms.");
+                continue;
+            }
+            batch.clear();
+
+            lock.lock();
+            try {
+                durable = upTo;
+                synced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // true = alle Ergebnisse des Durchlaufs sind auf der Platte und ihre Spielstände gelöscht
+    private boolean writeBatch(List<MatchResult> batch) {
+        for (MatchResult r : batch) {
+            if (!r.appended) {
+                if (!history.append(r.playerX, r.playerO, String.valueOf(r.winner), r.moves, r.finishedAt)) return false;
+                r.appended = true;
+            }
+            if (perEvent && !sync()) return false;
+        }
+        if ((!perEvent || batch.isEmpty()) && !sync()) return false;
+        // Spielstände erst löschen, wenn ihre Ergebnisse sicher sind
+        for (MatchResult r : batch) {
+            if (r.journal != null) r.journal.purge();
+            LAG.recordSince(r.submittedAt);
+        }
+        RESULTS.add(batch.size());
+        BATCHES.increment();
+        return true;
+    }
+
+    // beide Dateien auch dann versuchen, wenn die erste fehlschlägt
+    private boolean sync() {
+        long t0 = System.nanoTime();
+        boolean ok = scores.syncLog();
+        ok &= history.sync();
+        SYNC_LATENCY.recordSince(t0);
+        return ok;
+    }
+
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isFull() { return full; }
+}
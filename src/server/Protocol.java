@@ -1,19 +1,29 @@
 package server;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 public final class Protocol {
     private Protocol() {}
     public static final String SEPARATOR = ";";
 
+    // Kodierung der Zeilen in beide Richtungen (MessageEncoder schreibt UTF-8)
+    public static final Charset CHARSET = StandardCharsets.UTF_8;
+
     // Client -> Server
     public static final String CMD_LOGIN = "LOGIN";               // LOGIN;name
-    public static final String CMD_SETTINGS = "SETTINGS";         // SETTINGS;mode;timerSec
+    public static final String CMD_SETTINGS = "SETTINGS";         // SETTINGS;mode;timerSec[;botLevel[;variant]] botLevel: CLASSIC|PERFECT|EASY|MEDIUM|HARD|MCTS, variant: RxCxK|CLASSIC|GOMOKU
     public static final String CMD_LIST = "LIST";                 // LIST
     public static final String CMD_HOST = "HOST";                 // HOST;roomName
     public static final String CMD_JOIN = "JOIN";                 // JOIN;roomId
     public static final String CMD_MOVE = "MOVE";                 // MOVE;row;col
     public static final String CMD_CHAT = "CHAT";                 // CHAT;msg
     public static final String CMD_SCORE_REQ = "SCORES";          // SCORES
-    public static final String CMD_HISTORY_REQ = "HISTORY";       // HISTORY;playerFilter;from(yyyy-MM-dd);to(yyyy-MM-dd)
+    public static final String CMD_SCORE_PAGE = "SPAGE";          // SPAGE;offset;limit (limit max. 100)
+    public static final String CMD_SCORE_RANK = "SRANK";          // SRANK[;name] (ohne Name: eigener Platz)
+    public static final String CMD_SCORE_AROUND = "SAROUND";      // SAROUND[;name[;radius]] (Spieler um name herum, radius max. 50)
+    public static final String CMD_HISTORY_REQ = "HISTORY";       // HISTORY;playerFilter;from(yyyy-MM-dd);to(yyyy-MM-dd)[;limit[;cursor]]
+                                                                  // mit limit: neueste zuerst, seitenweise (cursor aus HEND)
 
     public static final String CMD_LEAVE = "LEAVE";               // LEAVE (zur Lobby zurück, Verbindung bleibt)
 
@@ -36,9 +46,9 @@ public final class Protocol {
     public static final String SRV_MESSAGE = "MESSAGE";           // MESSAGE;text
     public static final String SRV_ERROR = "ERROR";               // ERROR;text
 
-    public static final String SRV_ROOMS = "ROOMS";               // ROOMS;id|name|host|mode|timer,id|...
+    public static final String SRV_ROOMS = "ROOMS";               // ROOMS;id|name|host|mode|timer|status|variant,id|...
     public static final String SRV_HOSTED = "HOSTED";             // HOSTED;roomId
-    public static final String SRV_START = "START";               // START;sessionId;mySymbol;opponent;mode;timerSec
+    public static final String SRV_START = "START";               // START;sessionId;mySymbol;opponent;mode;timerSec;variant
 
     public static final String SRV_TURN = "TURN";                 // TURN;X|O
     public static final String SRV_VALID_MOVE = "VALID_MOVE";     // VALID_MOVE;row;col;symbol
@@ -51,12 +61,14 @@ public final class Protocol {
     public static final String SRV_OPPONENT_LEFT = "OLEFT";       // OLEFT
 
     public static final String SRV_SCOREBOARD = "SCOREBOARD";     // SCOREBOARD;name|w|l|d|elo,name|...
+    public static final String SRV_SCORE_PAGE = "SCOREPAGE";      // SCOREPAGE;offset;total;rank|name|w|l|d|elo|twins,...
+    public static final String SRV_SCORE_RANK = "SCORERANK";      // SCORERANK;name;rank;total;elo (rank 0 = noch kein Ergebnis)
 
     public static final String SRV_HISTORY_LINE = "HLINE";        // HLINE;timestamp;X;O;winner;moves
-    public static final String SRV_HISTORY_END = "HEND";          // HEND
+    public static final String SRV_HISTORY_END = "HEND";          // HEND (ohne limit) bzw. HEND;nextCursor (leer = keine weiteren)
 
     public static final String SRV_SPECTATOR_JOINED = "SJOIN";    // SJOIN;name
-    public static final String SRV_SPECTATE_START = "SSTART";     // SSTART;sessionId;playerX;playerO
+    public static final String SRV_SPECTATE_START = "SSTART";     // SSTART;sessionId;playerX;playerO;variant
 
     // Tournament Server -> Client
     public static final String SRV_TOURNAMENTS = "TROOMS";        // TROOMS;id|name|host|max|current,...
@@ -0,0 +1,182 @@
+package server;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Wiederverwendbare Sicht auf eine Protokoll-Zeile (Server und Client): reset() merkt sich nur die Grenzen der
+ * ';'-Felder, statt wie split() ein Array und einen String pro Feld anzulegen. command() liefert die passende
+ * Protocol-Konstante (für switch), Zahlen werden direkt aus der Zeile gelesen; Strings entstehen nur für Felder,
+ * die der Aufrufer wirklich als Text braucht. Nicht threadsicher: ein Objekt pro Leser (Handler, Controller).
+ */
+public final class ProtocolLine {
+
+    // alle CMD_*/SRV_*-Namen aus Protocol, nach Länge sortiert (für command() ohne substring)
+    private static final String[][] COMMANDS_BY_LENGTH = commandTable();
+
+    private String line = "";
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int count;
+
+    /** Neue Zeile zerlegen (entspricht split(SEPARATOR, -1): leere Felder bleiben erhalten). */
+    public ProtocolLine reset(String line) {
+        this.line = line;
+        count = 0;
+        int start = 0;
+        char sep = Protocol.SEPARATOR.charAt(0);
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == sep) {
+                add(start, i);
+                start = i + 1;
+            }
+        }
+        add(start, line.length());
+        return this;
+    }
+
+    private void add(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    public String line() { return line; }
+
+    public int fields() { return count; }
+
+    /** Befehl (Feld 0) als Protocol-Konstante, null bei unbekanntem Befehl. */
+    public String command() {
+        int len = ends[0] - starts[0];
+        if (len >= COMMANDS_BY_LENGTH.length) return null;
+        for (String c : COMMANDS_BY_LENGTH[len]) {
+            if (line.regionMatches(starts[0], c, 0, len)) return c;
+        }
+        return null;
+    }
+
+    public boolean has(int i) {
+        return i < count;
+    }
+
+    /** Feld vorhanden und nicht nur Leerzeichen. */
+    public boolean isPresent(int i) {
+        if (i >= count) return false;
+        for (int p = starts[i]; p < ends[i]; p++) {
+            if (!Character.isWhitespace(line.charAt(p))) return true;
+        }
+        return false;
+    }
+
+    public boolean is(int i, String value) {
+        return i < count && ends[i] - starts[i] == value.length()
+                && line.regionMatches(starts[i], value, 0, value.length());
+    }
+
+    /** Feld unverändert, "" wenn es fehlt. */
+    public String raw(int i) {
+        return i < count ? line.substring(starts[i], ends[i]) : "";
+    }
+
+    /** Feld ohne Leerzeichen am Rand, "" wenn es fehlt. */
+    public String text(int i) {
+        if (i >= count) return "";
+        int s = starts[i];
+        int e = ends[i];
+        while (s < e && line.charAt(s) <= ' ') s++;
+        while (e > s && line.charAt(e - 1) <= ' ') e--;
+        return line.substring(s, e);
+    }
+
+    /** Alles ab Feld i bis zum Zeilenende (inkl. weiterer ';'), "" wenn es fehlt. */
+    public String rest(int i) {
+        return i < count ? line.substring(starts[i]) : "";
+    }
+
+    /** Erstes Zeichen des Felds, '\0' wenn es fehlt oder leer ist. */
+    public char charAt(int i) {
+        return i < count && ends[i] > starts[i] ? line.charAt(starts[i]) : '\0';
+    }
+
+    /** Ganzzahl (Leerzeichen am Rand erlaubt), def wenn das Feld fehlt oder keine Zahl ist. */
+    public int intAt(int i, int def) {
+        long v = longAt(i, Long.MIN_VALUE);
+        return v < Integer.MIN_VALUE || v > Integer.MAX_VALUE ? def : (int) v;
+    }
+
+    public long longAt(int i, long def) {
+        if (i >= count) return def;
+        int p = starts[i];
+        int e = ends[i];
+        while (p < e && line.charAt(p) <= ' ') p++;
+        while (e > p && line.charAt(e - 1) <= ' ') e--;
+        if (p == e) return def;
+
+        boolean negative = line.charAt(p) == '-';
+        if (negative || line.charAt(p) == '+') {
+            if (++p == e) return def;
+        }
+        long v = 0;
+        for (; p < e; p++) {
+            int d = line.charAt(p) - '0';
+            if (d < 0 || d > 9) return def;
+            // Überlauf -> keine gültige Zahl
+            if (v > (Long.MAX_VALUE - d) / 10) return def;
+            v = v * 10 + d;
+        }
+        return negative ? -v : v;
+    }
+
+    /** Einträge eines Listenfelds ("a|b,c|d" mit sep ','), leere Einträge werden übersprungen. */
+    public void forEachItem(int i, char sep, Consumer<String> action) {
+        if (i >= count) return;
+        int s = starts[i];
+        for (int p = s; p <= ends[i]; p++) {
+            if (p == ends[i] || line.charAt(p) == sep) {
+                if (p > s) action.accept(line.substring(s, p));
+                s = p + 1;
+            }
+        }
+    }
+
+    /** Teil idx eines mit sep getrennten Texts, ohne Leerzeichen am Rand ("" wenn es ihn nicht gibt). */
+    public static String part(String s, char sep, int idx) {
+        int start = 0;
+        for (int n = 0; n < idx; n++) {
+            start = s.indexOf(sep, start) + 1;
+            if (start == 0) return "";
+        }
+        int end = s.indexOf(sep, start);
+        return s.substring(start, end < 0 ? s.length() : end).trim();
+    }
+
+    private static String[][] commandTable() {
+        List<String> names = new ArrayList<>();
+        int max = 0;
+        for (Field f : Protocol.class.getFields()) {
+            if (f.getType() != String.class || !Modifier.isStatic(f.getModifiers())) continue;
+            if (!f.getName().startsWith("CMD_") && !f.getName().startsWith("SRV_")) continue;
+            try {
+                String v = (String) f.get(null);
+                if (!names.contains(v)) names.add(v);
+                max = Math.max(max, v.length());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        String[][] table = new String[max + 1][];
+        for (int len = 0; len <= max; len++) {
+            final int l = len;
+            table[len] = names.stream().filter(n -> n.length() == l).toArray(String[]::new);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,171 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Rangliste als Order-Statistic-Treap: Schlüssel (Elo absteigend, Name aufsteigend), jeder Knoten kennt die
+ * Größe seines Teilbaums und trägt einen Wert. Einfügen, Entfernen, Rang eines Spielers und Spieler auf Platz k
+ * kosten O(log n), eine Seite mit limit Einträgen O(log n + limit).
+ * Unveränderlich: with()/without() kopieren nur den Pfad zur Wurzel und liefern einen neuen Index, ältere
+ * Versionen bleiben gültig. Leser können eine Version daher ohne Sperre benutzen.
+ */
+public final class RankIndex<V> {
+
+    private static final class Node<V> {
+        final int elo;
+        final String name;
+        final int prio;
+        final int size;
+        final V value;
+        final Node<V> left;
+        final Node<V> right;
+
+        Node(int elo, String name, int prio, V value, Node<V> left, Node<V> right) {
+            this.elo = elo;
+            this.name = name;
+            this.prio = prio;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+
+        Node<V> withChildren(Node<V> l, Node<V> r) {
+            return new Node<>(elo, name, prio, value, l, r);
+        }
+    }
+
+    private static final RankIndex<?> EMPTY = new RankIndex<>(null);
+
+    private final Node<V> root;
+
+    private RankIndex(Node<V> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> RankIndex<V> empty() {
+        return (RankIndex<V>) EMPTY;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    // Schlüssel darf noch nicht enthalten sein (vorher without() aufrufen)
+    public RankIndex<V> with(int elo, String name, V value) {
+        return new RankIndex<>(insert(root, new Node<>(elo, name, priority(name), value, null, null)));
+    }
+
+    public RankIndex<V> without(int elo, String name) {
+        return new RankIndex<>(remove(root, elo, name));
+    }
+
+    // 0-basierter Platz oder -1, wenn der Schlüssel nicht enthalten ist
+    public int rank(int elo, String name) {
+        int r = 0;
+        Node<V> t = root;
+        while (t != null) {
+            int c = compare(elo, name, t);
+            if (c < 0) {
+                t = t.left;
+            } else if (c > 0) {
+                r += size(t.left) + 1;
+                t = t.right;
+            } else {
+                return r + size(t.left);
+            }
+        }
+        return -1;
+    }
+
+    // Werte auf den Plätzen offset .. offset + limit - 1 (0-basiert)
+    public List<V> range(int offset, int limit) {
+        int from = Math.max(0, offset);
+        List<V> out = new ArrayList<>(Math.max(0, Math.min(limit, size() - from)));
+        collect(root, from, from + Math.max(0, limit), 0, out);
+        return out;
+    }
+
+    // alle Werte in Ranglisten-Reihenfolge
+    public void forEach(Consumer<V> action) {
+        walk(root, action);
+    }
+
+    private static <V> void walk(Node<V> t, Consumer<V> action) {
+        if (t == null) return;
+        walk(t.left, action);
+        action.accept(t.value);
+        walk(t.right, action);
+    }
+
+    // nur Teilbäume besuchen, die den Bereich [from, to) schneiden
+    private static <V> void collect(Node<V> t, int from, int to, int base, List<V> out) {
+        if (t == null || from >= to) return;
+        int pos = base + size(t.left);
+        if (from < pos) collect(t.left, from, to, base, out);
+        if (pos >= from && pos < to) out.add(t.value);
+        if (to > pos + 1) collect(t.right, from, to, pos + 1, out);
+    }
+
+    // Priorität aus dem Namen (gemischter Hash) statt Zufallsgenerator: kein veränderlicher Zustand nötig
+    private static int priority(String name) {
+        int h = name.hashCode() * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    // höhere Elo zuerst, bei Gleichstand alphabetisch (wie die alte sortierte Liste)
+    private static int compare(int elo, String name, Node<?> n) {
+        if (elo != n.elo) return elo > n.elo ? -1 : 1;
+        return name.compareTo(n.name);
+    }
+
+    private static int size(Node<?> t) {
+        return t == null ? 0 : t.size;
+    }
+
+    private static <V> Node<V> insert(Node<V> t, Node<V> n) {
+        if (t == null) return n;
+        if (n.prio > t.prio) {
+            List<Node<V>> lr = split(t, n.elo, n.name);
+            return n.withChildren(lr.get(0), lr.get(1));
+        }
+        if (compare(n.elo, n.name, t) < 0) return t.withChildren(insert(t.left, n), t.right);
+        return t.withChildren(t.left, insert(t.right, n));
+    }
+
+    // [Schlüssel < (elo, name)], [Schlüssel >= (elo, name)]
+    private static <V> List<Node<V>> split(Node<V> t, int elo, String name) {
+        if (t == null) return Arrays.asList(null, null);
+        if (compare(elo, name, t) > 0) {
+            List<Node<V>> lr = split(t.right, elo, name);
+            return Arrays.asList(t.withChildren(t.left, lr.get(0)), lr.get(1));
+        }
+        List<Node<V>> lr = split(t.left, elo, name);
+        return Arrays.asList(lr.get(0), t.withChildren(lr.get(1), t.right));
+    }
+
+    private static <V> Node<V> merge(Node<V> a, Node<V> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.prio > b.prio) return a.withChildren(a.left, merge(a.right, b));
+        return b.withChildren(merge(a, b.left), b.right);
+    }
+
+    private static <V> Node<V> remove(Node<V> t, int elo, String name) {
+        if (t == null) return null;
+        int c = compare(elo, name, t);
+        if (c == 0) return merge(t.left, t.right);
+        if (c < 0) {
+            Node<V> l = remove(t.left, elo, name);
+            return l == t.left ? t : t.withChildren(l, t.right);
+        }
+        Node<V> r = remove(t.right, elo, name);
+        return r == t.right ? t : t.withChildren(t.left, r);
+    }
+}
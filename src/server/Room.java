@@ -6,4 +6,5 @@ public class Room {
     public ClientHandler host;
     public String mode;
     public int timerSec;
+    public GameVariant variant = GameVariant.CLASSIC;
 }
@@ -1,18 +1,36 @@
 package server;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Spielerstatistik mit Elo. Persistenz: scores.csv ist ein Checkpoint, jede Änderung wird zusätzlich als
+ * vollständige Zeile des Spielers an scores.log angehängt (append-only, fsync pro Eintrag).
+ * Ein Checkpoint schreibt scores.csv über Temp-Datei + atomares Rename neu und beginnt ein neues Log.
+ * Beim Start: Checkpoint laden, dann rotiertes Log (scores.log.1, falls ein Checkpoint abgebrochen wurde)
+ * und aktuelles Log nachspielen. Log-Zeilen sind absolute Stände, doppeltes Nachspielen ist daher harmlos.
+ * Nebenläufigkeit: Einträge sind unveränderlich. Änderungen sperren nur die Stripes der beteiligten Spieler
+ * (zwei Stripes immer in aufsteigender Reihenfolge), die Rangliste wird als unveränderlicher RankIndex unter
+ * einer kurzen Sperre ersetzt. Scoreboard-Abfragen lesen eine Version der Rangliste ohne Sperre.
+ * Mit PersistencePipeline werden Log-Zeilen nur gesammelt; geschrieben und gesynct werden sie gebündelt vom
+ * Schreib-Thread der Pipeline (syncLog()).
+ */
 public class ScoreManager {
 
-    private static class ScoreEntry {
-        String name;
-        int wins;
-        int losses;
-        int draws;
-        int elo;
-        int tournamentWins;
+    private static final class ScoreEntry {
+        final String name;
+        final int wins;
+        final int losses;
+        final int draws;
+        final int elo;
+        final int tournamentWins;
 
         ScoreEntry(String name, int wins, int losses, int draws, int elo, int tournamentWins) {
             this.name = name;
@@ -27,125 +45,480 @@ public class ScoreManager {
     private static final int K = 32;
     private static final int DEFAULT_ELO = 1000;
 
+    private static final int STRIPES = 64; // Zweierpotenz
+
+    private static final LatencyHistogram LOG_LATENCY = Metrics.histogram("scores.log.write");
+    private static final LatencyHistogram CHECKPOINT_LATENCY = Metrics.histogram("scores.checkpoint");
+
     private final Map<String, ScoreEntry> scores = new ConcurrentHashMap<>();
-    private final File scoreFile = new File("scores.csv");
+    // Rangliste (Elo absteigend, Name) mit den Einträgen als Werte; jede Version ist ein konsistenter Stand
+    private volatile RankIndex<ScoreEntry> ranking = RankIndex.empty();
+    private final File scoreFile;
+    private final Path logFile;
+    private final Path rotatedLogFile;
+    private final Path tmpFile;
+
+    // ReentrantLock statt synchronized: Log-Schreiben ist Datei-I/O und würde virtuelle Threads pinnen.
+    // Reihenfolge: Spieler-Stripes -> indexLock bzw. logLock (indexLock und logLock nie gleichzeitig)
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    // schützt nur das Ersetzen von ranking und das zugehörige scores.put
+    private final ReentrantLock indexLock = new ReentrantLock();
+    // Log-Kanal und Rotation
+    private final ReentrantLock logLock = new ReentrantLock();
+    // nur ein Checkpoint gleichzeitig (der eigentliche Schreibvorgang läuft ohne Sperre)
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+
+    private FileChannel log; // unter logLock
+    private long logRecords; // unter logLock, seit dem letzten Checkpoint
+
+    // verzögertes Log (PersistencePipeline): gesammelte Zeilen und Weckruf für den Schreib-Thread.
+    // pendingLock wird nur kurz gehalten; Reihenfolge logLock -> pendingLock
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private Runnable logWakeup; // unter pendingLock; null = jede Änderung sofort schreiben und fsync
+    private StringBuilder pendingLog = new StringBuilder();
+    private int pendingRecords;
 
     public ScoreManager() {
+        this(Paths.get(""));
+    }
+
+    // Dateien in dir statt im Arbeitsverzeichnis (Werkzeuge, Benchmarks)
+    public ScoreManager(Path dir) {
+        this.scoreFile = dir.resolve("scores.csv").toFile();
+        this.logFile = dir.resolve("scores.log");
+        this.rotatedLogFile = dir.resolve("scores.log.1");
+        this.tmpFile = dir.resolve("scores.csv.tmp");
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
         loadScores();
+        replayLog(rotatedLogFile);
+        replayLog(logFile);
+        // Stand aus Checkpoint + Log sofort festschreiben, danach mit leerem Log weiterarbeiten
+        checkpoint();
+
+        long intervalSec = Math.max(1, Long.getLong("tictactoe.scores.checkpointSec", 60));
+        Thread t = new Thread(() -> {
+            while (true) {
+                try {
+                    TimeUnit.SECONDS.sleep(intervalSec);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                checkpoint();
+            }
+        }, "ScoreCheckpointer");
+        t.setDaemon(true);
+        t.start();
     }
 
-    public synchronized void loadScores() {
+    // nur beim Start aufrufen (noch keine nebenläufigen Zugriffe); Datei wird gemappt, Felder ohne split gelesen
+    public void loadScores() {
         if (!scoreFile.exists()) {
             System.out.println("scores.csv nicht gefunden. Wird neu erstellt.");
             return;
         }
-        try (BufferedReader reader = new BufferedReader(new FileReader(scoreFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(";");
-                if (parts.length >= 3) {
-                    String name = parts[0];
-                    int wins = Integer.parseInt(parts[1]);
-                    int losses = Integer.parseInt(parts[2]);
-                    int elo = DEFAULT_ELO;
-                    int draws = 0;
-                    int tournamentWins = 0;
-                    if (parts.length >= 4) {
-                        // Abwärtskompatibilität:
-                        // Altes Format: name;wins;losses;elo
-                        // Neues Format: name;wins;losses;draws;elo
-                        // Neuestes Format: name;wins;losses;draws;elo;tournamentWins
-                        if (parts.length >= 6) {
-                            draws = Integer.parseInt(parts[3]);
-                            elo = Integer.parseInt(parts[4]);
-                            tournamentWins = Integer.parseInt(parts[5]);
-                        } else if (parts.length >= 5) {
-                            draws = Integer.parseInt(parts[3]);
-                            elo = Integer.parseInt(parts[4]);
-                        } else {
-                            elo = Integer.parseInt(parts[3]);
-                        }
-                    }
-                    scores.put(name, new ScoreEntry(name, wins, losses, draws, elo, tournamentWins));
+        try {
+            MappedCsv.forEach(scoreFile.toPath(), ';', row -> {
+                int n = row.fieldCount();
+                if (n < 3) return;
+                String name = row.string(0);
+                int wins = row.parseInt(1);
+                int losses = row.parseInt(2);
+                int elo = DEFAULT_ELO;
+                int draws = 0;
+                int tournamentWins = 0;
+                // Abwärtskompatibilität:
+                // Altes Format: name;wins;losses;elo
+                // Neues Format: name;wins;losses;draws;elo
+                // Neuestes Format: name;wins;losses;draws;elo;tournamentWins
+                if (n >= 6) {
+                    draws = row.parseInt(3);
+                    elo = row.parseInt(4);
+                    tournamentWins = row.parseInt(5);
+                } else if (n == 5) {
+                    draws = row.parseInt(3);
+                    elo = row.parseInt(4);
+                } else if (n == 4) {
+                    elo = row.parseInt(3);
                 }
-            }
+                publish(new ScoreEntry(name, wins, losses, draws, elo, tournamentWins));
+            });
             System.out.println("Scores erfolgreich geladen.");
         } catch (IOException | NumberFormatException e) {
             System.out.println("[ScoreManager] Fehler beim Laden der Scores: " + e.getMessage());
         }
     }
 
-    public synchronized void saveScores() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(scoreFile))) {
-            for (ScoreEntry entry : scores.values()) {
-                writer.println(entry.name + ";" + entry.wins + ";" + entry.losses + ";" + entry.draws + ";" + entry.elo + ";" + entry.tournamentWins);
+    // Log-Zeilen haben dasselbe Format wie scores.csv; unvollständige Zeilen (Absturz beim Schreiben) werden übersprungen
+    private void replayLog(Path file) {
+        if (!Files.exists(file)) return;
+        int[] applied = {0};
+        try {
+            MappedCsv.forEach(file, ';', row -> {
+                if (row.fieldCount() < 6) return;
+                try {
+                    publish(new ScoreEntry(row.string(0), row.parseInt(1), row.parseInt(2),
+                            row.parseInt(3), row.parseInt(4), row.parseInt(5)));
+                    applied[0]++;
+                } catch (NumberFormatException ignored) {}
+            });
+        } catch (IOException e) {
+            System.out.println("[ScoreManager] Fehler beim Lesen von " + file + ": " + e.getMessage());
+        }
+        if (applied[0] > 0) System.out.println("[ScoreManager] " + applied[0] + " Änderungen aus " + file + " nachgespielt.");
+    }
+
+    private static String line(ScoreEntry e) {
+        return e.name + ";" + e.wins + ";" + e.losses + ";" + e.draws + ";" + e.elo + ";" + e.tournamentWins;
+    }
+
+    // unter den Stripes der Spieler, nach publish() aufrufen: geänderte Einträge ans Log hängen und auf Platte
+    // bringen bzw. bei verzögertem Log nur vormerken (die Reihenfolge pro Spieler bleibt durch die Stripes erhalten)
+    private void logChanges(ScoreEntry... changed) {
+        StringBuilder sb = new StringBuilder();
+        for (ScoreEntry e : changed) sb.append(line(e)).append('\n');
+        Runnable wakeup;
+        pendingLock.lock();
+        try {
+            wakeup = logWakeup;
+            if (wakeup != null) {
+                pendingLog.append(sb);
+                pendingRecords += changed.length;
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+        if (wakeup != null) {
+            wakeup.run();
+            return;
+        }
+        logLock.lock();
+        try {
+            writeLog(sb, changed.length);
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    // unter logLock; false = nicht (sicher) geschrieben
+    private boolean writeLog(CharSequence lines, int records) {
+        long t0 = System.nanoTime();
+        ByteBuffer buf = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            if (log == null) {
+                log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            while (buf.hasRemaining()) log.write(buf);
+            log.force(false);
+            logRecords += records;
+            return true;
+        } catch (IOException e) {
+            System.out.println("[ScoreManager] Fehler beim Schreiben des Score-Logs: " + e.getMessage());
+            return false;
+        } finally {
+            LOG_LATENCY.recordSince(t0);
+        }
+    }
+
+    /**
+     * Log nur noch sammeln; wakeup wird nach jeder vorgemerkten Änderung aufgerufen (ohne Sperre) und muss dafür
+     * sorgen, dass syncLog() bald läuft. null schaltet zurück auf sofortiges Schreiben.
+     */
+    void deferLog(Runnable wakeup) {
+        logLock.lock();
+        try {
+            if (wakeup == null) syncLog();
+            pendingLock.lock();
+            try {
+                logWakeup = wakeup;
+            } finally {
+                pendingLock.unlock();
+            }
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    // alle vorgemerkten Zeilen mit einem write + fsync ins Log; Ergebnisse laufen währenddessen weiter.
+    // false = Fehler, die Zeilen bleiben (vor neueren) vorgemerkt und gehen mit dem nächsten Aufruf hinaus
+    boolean syncLog() {
+        logLock.lock();
+        try {
+            StringBuilder lines;
+            int records;
+            pendingLock.lock();
+            try {
+                if (pendingRecords == 0) return true;
+                lines = pendingLog;
+                records = pendingRecords;
+                pendingLog = new StringBuilder(lines.length());
+                pendingRecords = 0;
+            } finally {
+                pendingLock.unlock();
+            }
+            if (writeLog(lines, records)) return true;
+            pendingLock.lock();
+            try {
+                pendingLog.insert(0, lines);
+                pendingRecords += records;
+            } finally {
+                pendingLock.unlock();
+            }
+            return false;
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    // Kompatibel zum alten Aufruf: schreibt jetzt einen Checkpoint
+    public void saveScores() {
+        checkpoint();
+    }
+
+    /**
+     * Schreibt scores.csv neu (Temp-Datei, fsync, atomares Rename) und verwirft das bis dahin geschriebene Log.
+     * Unter logLock wird nur die aktuelle Version der Rangliste gemerkt und das Log rotiert; Ergebnisse und
+     * Scoreboard laufen während des Schreibens weiter.
+     */
+    public void checkpoint() {
+        checkpointLock.lock();
+        try {
+            // publish() kommt vor logChanges(): was im Snapshot fehlt, landet garantiert im neuen Log
+            RankIndex<ScoreEntry> snapshot;
+            logLock.lock();
+            try {
+                if (logRecords == 0 && scoreFile.exists() && !Files.exists(rotatedLogFile) && !Files.exists(logFile)) return;
+                snapshot = ranking;
+                if (log != null) {
+                    log.close();
+                    log = null;
+                }
+                // Log rotieren; liegt noch ein scores.log.1 von einem fehlgeschlagenen Checkpoint, wird angehängt
+                if (Files.exists(logFile)) {
+                    if (Files.exists(rotatedLogFile)) {
+                        Files.write(rotatedLogFile, Files.readAllBytes(logFile), StandardOpenOption.APPEND);
+                        Files.delete(logFile);
+                    } else {
+                        Files.move(logFile, rotatedLogFile);
+                    }
+                }
+                logRecords = 0;
+            } finally {
+                logLock.unlock();
+            }
+
+            long t0 = System.nanoTime();
+            try (FileChannel ch = FileChannel.open(tmpFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                StringBuilder sb = new StringBuilder(snapshot.size() * 32);
+                snapshot.forEach(e -> sb.append(line(e)).append('\n'));
+                ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+                while (buf.hasRemaining()) ch.write(buf);
+                ch.force(true);
             }
+            try {
+                Files.move(tmpFile, scoreFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, scoreFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.deleteIfExists(rotatedLogFile);
+            CHECKPOINT_LATENCY.recordSince(t0);
         } catch (IOException e) {
+            // scores.log.1 bleibt liegen und wird beim nächsten Start bzw. Checkpoint mit berücksichtigt
             System.out.println("[ScoreManager] Fehler beim Speichern der Scores: " + e.getMessage());
+        } finally {
+            checkpointLock.unlock();
         }
     }
 
+    private static int stripeIndex(String name) {
+        int h = name.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    // Stripes zweier Spieler immer in aufsteigender Reihenfolge sperren, so gibt es bei A-B und B-A keinen Deadlock
+    private void lockPair(String a, String b) {
+        int i = stripeIndex(a);
+        int j = stripeIndex(b);
+        stripes[Math.min(i, j)].lock();
+        if (i != j) stripes[Math.max(i, j)].lock();
+    }
+
+    private void unlockPair(String a, String b) {
+        int i = stripeIndex(a);
+        int j = stripeIndex(b);
+        if (i != j) stripes[Math.max(i, j)].unlock();
+        stripes[Math.min(i, j)].unlock();
+    }
+
+    // neue Einträge in Map und Rangliste übernehmen; mehrere Einträge werden gemeinsam sichtbar
+    private void publish(ScoreEntry... changed) {
+        indexLock.lock();
+        try {
+            RankIndex<ScoreEntry> r = ranking;
+            for (ScoreEntry e : changed) {
+                ScoreEntry old = scores.put(e.name, e);
+                if (old != null) r = r.without(old.elo, old.name);
+                r = r.with(e.elo, e.name, e);
+            }
+            ranking = r;
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    // aktueller Eintrag oder ein neuer mit Startwerten (wird erst durch publish() übernommen); unter dem Stripe
+    private ScoreEntry entry(String name) {
+        ScoreEntry e = scores.get(name);
+        return e != null ? e : new ScoreEntry(name, 0, 0, 0, DEFAULT_ELO, 0);
+    }
+
     // Elo-Berechnung: expected score
     private double expectedScore(int eloA, int eloB) {
         return 1.0 / (1.0 + Math.pow(10.0, (eloB - eloA) / 400.0));
     }
 
-    public synchronized void recordGameResult(String winnerName, String loserName) {
-        ScoreEntry winner = scores.computeIfAbsent(winnerName, name -> new ScoreEntry(name, 0, 0, 0, DEFAULT_ELO, 0));
-        ScoreEntry loser = scores.computeIfAbsent(loserName, name -> new ScoreEntry(name, 0, 0, 0, DEFAULT_ELO, 0));
+    public void recordGameResult(String winnerName, String loserName) {
+        lockPair(winnerName, loserName);
+        try {
+            ScoreEntry w = entry(winnerName);
+            ScoreEntry l = entry(loserName);
 
-        double expWin = expectedScore(winner.elo, loser.elo);
-        double expLose = expectedScore(loser.elo, winner.elo);
+            double expWin = expectedScore(w.elo, l.elo);
+            double expLose = expectedScore(l.elo, w.elo);
 
-        winner.elo += (int) Math.round(K * (1.0 - expWin));
-        loser.elo  += (int) Math.round(K * (0.0 - expLose));
+            ScoreEntry winner = new ScoreEntry(w.name, w.wins + 1, w.losses, w.draws,
+                    w.elo + (int) Math.round(K * (1.0 - expWin)), w.tournamentWins);
+            ScoreEntry loser = new ScoreEntry(l.name, l.wins, l.losses + 1, l.draws,
+                    l.elo + (int) Math.round(K * (0.0 - expLose)), l.tournamentWins);
 
-        winner.wins++;
-        loser.losses++;
-
-        saveScores();
-        System.out.println("Spielergebnis gespeichert: Gewinner=" + winnerName
-                + " (Elo " + winner.elo + "), Verlierer=" + loserName + " (Elo " + loser.elo + ")");
+            publish(winner, loser);
+            logChanges(winner, loser);
+            System.out.println("Spielergebnis gespeichert: Gewinner=" + winnerName
+                    + " (Elo " + winner.elo + "), Verlierer=" + loserName + " (Elo " + loser.elo + ")");
+        } finally {
+            unlockPair(winnerName, loserName);
+        }
     }
 
-    public synchronized void recordDraw(String player1Name, String player2Name) {
-        ScoreEntry p1 = scores.computeIfAbsent(player1Name, name -> new ScoreEntry(name, 0, 0, 0, DEFAULT_ELO, 0));
-        ScoreEntry p2 = scores.computeIfAbsent(player2Name, name -> new ScoreEntry(name, 0, 0, 0, DEFAULT_ELO, 0));
+    public void recordDraw(String player1Name, String player2Name) {
+        lockPair(player1Name, player2Name);
+        try {
+            ScoreEntry e1 = entry(player1Name);
+            ScoreEntry e2 = entry(player2Name);
 
-        double exp1 = expectedScore(p1.elo, p2.elo);
-        double exp2 = expectedScore(p2.elo, p1.elo);
+            double exp1 = expectedScore(e1.elo, e2.elo);
+            double exp2 = expectedScore(e2.elo, e1.elo);
 
-        p1.elo += (int) Math.round(K * (0.5 - exp1));
-        p2.elo += (int) Math.round(K * (0.5 - exp2));
+            ScoreEntry p1 = new ScoreEntry(e1.name, e1.wins, e1.losses, e1.draws + 1,
+                    e1.elo + (int) Math.round(K * (0.5 - exp1)), e1.tournamentWins);
+            ScoreEntry p2 = new ScoreEntry(e2.name, e2.wins, e2.losses, e2.draws + 1,
+                    e2.elo + (int) Math.round(K * (0.5 - exp2)), e2.tournamentWins);
 
-        p1.draws++;
-        p2.draws++;
+            publish(p1, p2);
+            logChanges(p1, p2);
+            System.out.println("Unentschieden: " + player1Name + " (Elo " + p1.elo + "), "
+                    + player2Name + " (Elo " + p2.elo + ")");
+        } finally {
+            unlockPair(player1Name, player2Name);
+        }
+    }
+
+    public void recordTournamentWin(String winnerName) {
+        ReentrantLock stripe = stripes[stripeIndex(winnerName)];
+        stripe.lock();
+        try {
+            ScoreEntry w = entry(winnerName);
+            ScoreEntry winner = new ScoreEntry(w.name, w.wins, w.losses, w.draws, w.elo, w.tournamentWins + 1);
+            publish(winner);
+            logChanges(winner);
+            System.out.println("Turnier-Sieg für: " + winnerName + " (Gesamt: " + winner.tournamentWins + ")");
+        } finally {
+            stripe.unlock();
+        }
+    }
 
-        saveScores();
-        System.out.println("Unentschieden: " + player1Name + " (Elo " + p1.elo + "), "
-                + player2Name + " (Elo " + p2.elo + ")");
+    // Rangliste plus Eintrag und 0-basierter Platz eines Spielers aus derselben Version
+    private static final class View {
+        final RankIndex<ScoreEntry> ranking;
+        final ScoreEntry entry;
+        final int rank;
+
+        View(RankIndex<ScoreEntry> ranking, ScoreEntry entry, int rank) {
+            this.ranking = ranking;
+            this.entry = entry;
+            this.rank = rank;
+        }
+    }
+
+    private View view(String name) {
+        RankIndex<ScoreEntry> r = ranking;
+        ScoreEntry e = (name == null) ? null : scores.get(name);
+        if (e == null) return new View(r, null, -1);
+        int rank = r.rank(e.elo, e.name);
+        if (rank >= 0) return new View(r, e, rank);
+        // Eintrag wurde gerade geändert (Map und gelesene Version passen nicht): einmal konsistent unter indexLock lesen
+        indexLock.lock();
+        try {
+            r = ranking;
+            e = scores.get(name);
+            return new View(r, e, r.rank(e.elo, e.name));
+        } finally {
+            indexLock.unlock();
+        }
     }
 
     // PROTOCOL PAYLOAD: name|wins|losses|draws|elo|tournamentWins
-    public synchronized String getScoreboardPayload() {
-        List<ScoreEntry> list = new ArrayList<>(scores.values());
-        list.sort(Comparator.comparingInt((ScoreEntry e) -> e.elo).reversed().thenComparing(e -> e.name));
+    public String getScoreboardPayload() {
+        RankIndex<ScoreEntry> r = ranking;
+        StringBuilder sb = new StringBuilder(r.size() * 32);
+        r.forEach(e -> {
+            if (sb.length() > 0) sb.append(",");
+            appendEntry(sb, e);
+        });
+        return sb.toString();
+    }
+
+    private static void appendEntry(StringBuilder sb, ScoreEntry e) {
+        sb.append(e.name).append("|").append(e.wins).append("|").append(e.losses)
+                .append("|").append(e.draws).append("|").append(e.elo).append("|").append(e.tournamentWins);
+    }
+
+    // PROTOCOL PAYLOAD: offset;total;rank|name|wins|losses|draws|elo|tournamentWins,...  (rank 1-basiert)
+    public String getPagePayload(int offset, int limit) {
+        return pagePayload(ranking, offset, limit);
+    }
 
+    private static String pagePayload(RankIndex<ScoreEntry> r, int offset, int limit) {
+        int total = r.size();
+        int from = Math.max(0, Math.min(offset, total));
         StringBuilder sb = new StringBuilder();
+        sb.append(from).append(";").append(total).append(";");
+        int rank = from + 1;
         boolean first = true;
-        for (ScoreEntry e : list) {
+        for (ScoreEntry e : r.range(from, limit)) {
             if (!first) sb.append(",");
             first = false;
-            sb.append(e.name).append("|").append(e.wins).append("|").append(e.losses)
-                    .append("|").append(e.draws).append("|").append(e.elo).append("|").append(e.tournamentWins);
+            sb.append(rank++).append("|");
+            appendEntry(sb, e);
         }
         return sb.toString();
     }
 
-    public synchronized void recordTournamentWin(String winnerName) {
-        ScoreEntry winner = scores.computeIfAbsent(winnerName, name -> new ScoreEntry(name, 0, 0, 0, DEFAULT_ELO, 0));
-        winner.tournamentWins++;
-        saveScores();
-        System.out.println("Turnier-Sieg für: " + winnerName + " (Gesamt: " + winner.tournamentWins + ")");
+    // 1-basierter Platz, 0 wenn der Spieler noch kein Ergebnis hat
+    public int getRank(String name) {
+        return view(name).rank + 1;
+    }
+
+    // PROTOCOL PAYLOAD: name;rank;total;elo
+    public String getRankPayload(String name) {
+        View v = view(name);
+        return name + ";" + (v.rank + 1) + ";" + v.ranking.size() + ";" + (v.entry == null ? DEFAULT_ELO : v.entry.elo);
+    }
+
+    // Seite mit radius Spielern über und unter name (wie getPagePayload); unbekannter Spieler -> Spitze der Liste
+    public String getAroundPayload(String name, int radius) {
+        View v = view(name);
+        int offset = v.rank < 0 ? 0 : Math.max(0, v.rank - radius);
+        return pagePayload(v.ranking, offset, 2 * radius + 1);
     }
 }
@@ -0,0 +1,409 @@
+package server;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Such-Bot: Negamax mit Alpha-Beta, iterativer Vertiefung und Transpositionstabelle.
+ * Der Tabellen-Schlüssel ist ein kanonischer Zobrist-Hash über alle Drehungen/Spiegelungen des Boards
+ * (8 bei quadratischen, 4 bei rechteckigen Boards), symmetrische Stellungen werden also nur einmal bewertet.
+ * Die Stärke wird über ein Budget (Suchtiefe, Knoten, Zeit) gesteuert, damit die CPU-Kosten pro Zug begrenzt sind.
+ * Board-Größe und Gewinnlänge sind frei wählbar; auf großen Boards bewertet eine Fenster-Heuristik die Blätter.
+ */
+public class SearchBot implements BotPlayer {
+
+    public enum Level {
+        EASY(1, 2_000, 20),
+        MEDIUM(2, 20_000, 100),
+        HARD(64, 1_000_000, 500);
+
+        final int maxDepth;
+        final long maxNodes;
+        final long maxMillis;
+
+        Level(int maxDepth, long maxNodes, long maxMillis) {
+            this.maxDepth = maxDepth;
+            this.maxNodes = maxNodes;
+            this.maxMillis = maxMillis;
+        }
+    }
+
+    private static final int WIN = 1_000_000;
+    private static final int INF = Integer.MAX_VALUE / 2;
+
+    private static final byte EMPTY = 0;
+    private static final byte X = 1;
+    private static final byte O = 2;
+
+    private static final byte TT_EXACT = 1;
+    private static final byte TT_LOWER = 2;
+    private static final byte TT_UPPER = 3;
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    private final Level level;
+
+    private final byte[] cells;
+    private int stones;
+
+    // Zugliste pro Steinanzahl, einmal angelegt und dann wiederverwendet
+    private final int[][] moveBuffer;
+
+    // Symmetrien als Zell-Permutationen und die dazugehörigen, inkrementell gepflegten Hashes
+    private final int[][] symmetries;
+    private final long[] zobrist; // [cell * 2 + color - 1]
+    private final long[] hashes;
+
+    // Gewinnfenster (je winLength Zellen) für die Blatt-Bewertung
+    private final int[][] windows;
+    private final int[] windowScore;
+
+    // Transpositionstabelle (immer ersetzen)
+    private final int ttMask;
+    private final long[] ttKey;
+    private final int[] ttValue;
+    private final byte[] ttDepth;
+    private final byte[] ttFlag;
+
+    // Zustand der laufenden Suche
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private boolean aborted;
+    private volatile boolean cancelled;
+
+    // Statistik des letzten Zuges
+    private volatile long lastNodes;
+    private volatile long lastNanos;
+    private volatile int lastDepth;
+
+    public SearchBot(Level level) {
+        this(3, 3, 3, level);
+    }
+
+    public SearchBot(int rows, int cols, int winLength, Level level) {
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = Math.min(winLength, Math.max(rows, cols));
+        this.level = level;
+
+        int n = rows * cols;
+        this.cells = new byte[n];
+        this.moveBuffer = new int[n + 1][];
+        this.symmetries = buildSymmetries(rows, cols);
+        this.hashes = new long[symmetries.length];
+
+        Random r = new Random(0x7A6B5C4DL);
+        this.zobrist = new long[n * 2];
+        for (int i = 0; i < zobrist.length; i++) zobrist[i] = r.nextLong();
+
+        this.windows = buildWindows(rows, cols, this.winLength);
+        this.windowScore = new int[this.winLength + 1];
+        for (int i = 1; i <= this.winLength; i++) windowScore[i] = windowScore[i - 1] * 8 + 1;
+
+        int ttSize = Integer.highestOneBit(Math.min(1 << 20, Math.max(1 << 10, n * 256)));
+        this.ttMask = ttSize - 1;
+        this.ttKey = new long[ttSize];
+        this.ttValue = new int[ttSize];
+        this.ttDepth = new byte[ttSize];
+        this.ttFlag = new byte[ttSize];
+    }
+
+    @Override
+    public void cancel() { cancelled = true; }
+
+    @Override
+    public void resetCancel() { cancelled = false; }
+
+    public long getLastNodes() { return lastNodes; }
+    public long getLastNanos() { return lastNanos; }
+    public int getLastDepth() { return lastDepth; }
+
+    @Override
+    public int pickMove(BoardGame game, char me) {
+        if (game.getRows() != rows || game.getCols() != cols) return -1;
+        for (int r = 0, i = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++, i++) {
+                char s = game.getCell(r, c);
+                cells[i] = s == 'X' ? X : s == 'O' ? O : EMPTY;
+            }
+        }
+        return search(me == 'X' ? X : O);
+    }
+
+    // Sucht den besten Zug für 'side' auf dem aktuell geladenen Board (cells)
+    private int search(byte side) {
+        long start = System.nanoTime();
+        stones = 0;
+        for (int s = 0; s < hashes.length; s++) hashes[s] = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != EMPTY) {
+                stones++;
+                hashToggle(i, cells[i]);
+            }
+        }
+
+        int empty = cells.length - stones;
+        if (empty == 0) return -1;
+
+        nodes = 0;
+        nodeLimit = level.maxNodes;
+        deadline = start + level.maxMillis * 1_000_000L;
+        aborted = false;
+
+        int[] candidates = new int[cells.length];
+        int count = candidates(candidates);
+        if (count < candidates.length) {
+            int[] tmp = new int[count];
+            System.arraycopy(candidates, 0, tmp, 0, count);
+            candidates = tmp;
+        }
+        int bestMove = candidates[0];
+        int completedDepth = 0;
+        int maxDepth = Math.min(level.maxDepth, empty);
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            int iterBest = searchRoot(candidates, side, depth, bestMove);
+            if (aborted) break;
+            bestMove = iterBest;
+            completedDepth = depth;
+        }
+
+        lastNodes = nodes;
+        lastNanos = System.nanoTime() - start;
+        lastDepth = completedDepth;
+        return bestMove;
+    }
+
+    private int searchRoot(int[] candidates, byte side, int depth, int previousBest) {
+        int alpha = -INF;
+        int best = -INF;
+        int bestMove = previousBest;
+        int ties = 0;
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+
+        // bester Zug der letzten Iteration zuerst (bessere Cutoffs)
+        for (int k = -1; k < candidates.length; k++) {
+            int cell = (k < 0) ? previousBest : candidates[k];
+            if (k >= 0 && cell == previousBest) continue;
+
+            // Fenster knapp unter alpha, damit gleich gute Züge exakt bewertet werden (Gleichstand-Auswahl)
+            int v = evaluateMove(cell, side, depth, alpha == -INF ? -INF : alpha - 1, INF);
+            if (aborted) return bestMove;
+
+            if (v > best) {
+                best = v;
+                bestMove = cell;
+                ties = 1;
+            } else if (v == best && rnd.nextInt(++ties) == 0) {
+                // Gleichstand zufällig auflösen, damit der Bot nicht immer gleich spielt
+                bestMove = cell;
+            }
+            if (v > alpha) alpha = v;
+        }
+        return bestMove;
+    }
+
+    private int evaluateMove(int cell, byte side, int depth, int alpha, int beta) {
+        place(cell, side);
+        int v;
+        if (isWinAt(cell, side)) v = WIN - stones;
+        else if (stones == cells.length) v = 0;
+        else v = -negamax(depth - 1, -beta, -alpha, other(side));
+        unplace(cell, side);
+        return v;
+    }
+
+    private int negamax(int depth, int alpha, int beta, byte side) {
+        if (++nodes > nodeLimit || ((nodes & 1023) == 0 && (cancelled || System.nanoTime() > deadline))) {
+            aborted = true;
+            return 0;
+        }
+        if (depth == 0) return evaluate(side);
+
+        long key = canonicalHash();
+        int slot = (int) (key ^ (key >>> 32)) & ttMask;
+        if (ttKey[slot] == key && ttFlag[slot] != 0 && ttDepth[slot] >= depth) {
+            int v = ttValue[slot];
+            if (ttFlag[slot] == TT_EXACT) return v;
+            if (ttFlag[slot] == TT_LOWER && v > alpha) alpha = v;
+            else if (ttFlag[slot] == TT_UPPER && v < beta) beta = v;
+            if (alpha >= beta) return v;
+        }
+
+        int[] moves = moveBuffer[stones];
+        if (moves == null) moves = moveBuffer[stones] = new int[cells.length];
+        int count = candidates(moves);
+
+        int alphaOrig = alpha;
+        int best = -INF;
+        for (int i = 0; i < count; i++) {
+            int cell = moves[i];
+            int v = evaluateMove(cell, side, depth, alpha, beta);
+            if (aborted) return 0;
+            if (v > best) best = v;
+            if (v > alpha) alpha = v;
+            if (alpha >= beta) break;
+        }
+
+        ttKey[slot] = key;
+        ttValue[slot] = best;
+        ttDepth[slot] = (byte) Math.min(depth, Byte.MAX_VALUE);
+        ttFlag[slot] = best <= alphaOrig ? TT_UPPER : best >= beta ? TT_LOWER : TT_EXACT;
+        return best;
+    }
+
+    // Fenster-Heuristik aus Sicht von 'side': offene Fenster mit vielen eigenen Steinen zählen stark
+    private int evaluate(byte side) {
+        int score = 0;
+        for (int[] w : windows) {
+            int mine = 0;
+            int theirs = 0;
+            for (int c : w) {
+                if (cells[c] == side) mine++;
+                else if (cells[c] != EMPTY) theirs++;
+            }
+            if (theirs == 0) score += windowScore[mine];
+            else if (mine == 0) score -= windowScore[theirs];
+        }
+        return score;
+    }
+
+    // Leere Felder in der Nähe vorhandener Steine, Mitte zuerst; auf 3x3 sind das alle freien Felder
+    private int candidates(int[] tmp) {
+        int n = cells.length;
+        int count = 0;
+        int cr = rows / 2;
+        int cc = cols / 2;
+
+        if (stones == 0) {
+            tmp[count++] = cr * cols + cc;
+        } else {
+            for (int i = 0; i < n; i++) {
+                if (cells[i] == EMPTY && hasNeighbour(i / cols, i % cols, 2)) tmp[count++] = i;
+            }
+            // nach Abstand zur Mitte sortieren (Insertion Sort, Listen sind kurz)
+            for (int i = 1; i < count; i++) {
+                int v = tmp[i];
+                int d = dist(v, cr, cc);
+                int j = i - 1;
+                while (j >= 0 && dist(tmp[j], cr, cc) > d) {
+                    tmp[j + 1] = tmp[j];
+                    j--;
+                }
+                tmp[j + 1] = v;
+            }
+        }
+
+        return count;
+    }
+
+    private int dist(int cell, int cr, int cc) {
+        return Math.abs(cell / cols - cr) + Math.abs(cell % cols - cc);
+    }
+
+    private boolean hasNeighbour(int r, int c, int radius) {
+        for (int dr = -radius; dr <= radius; dr++) {
+            int rr = r + dr;
+            if (rr < 0 || rr >= rows) continue;
+            for (int dc = -radius; dc <= radius; dc++) {
+                int cc = c + dc;
+                if (cc < 0 || cc >= cols) continue;
+                if (cells[rr * cols + cc] != EMPTY) return true;
+            }
+        }
+        return false;
+    }
+
+    // Gewinn nur über die vier Linien durch den zuletzt gesetzten Stein prüfen: O(k)
+    private boolean isWinAt(int cell, byte side) {
+        int r = cell / cols;
+        int c = cell % cols;
+        return countLine(r, c, 0, 1, side) >= winLength
+                || countLine(r, c, 1, 0, side) >= winLength
+                || countLine(r, c, 1, 1, side) >= winLength
+                || countLine(r, c, 1, -1, side) >= winLength;
+    }
+
+    private int countLine(int r, int c, int dr, int dc, byte side) {
+        int count = 1;
+        for (int rr = r + dr, cc = c + dc; rr >= 0 && rr < rows && cc >= 0 && cc < cols && cells[rr * cols + cc] == side; rr += dr, cc += dc) count++;
+        for (int rr = r - dr, cc = c - dc; rr >= 0 && rr < rows && cc >= 0 && cc < cols && cells[rr * cols + cc] == side; rr -= dr, cc -= dc) count++;
+        return count;
+    }
+
+    private void place(int cell, byte side) {
+        cells[cell] = side;
+        stones++;
+        hashToggle(cell, side);
+    }
+
+    private void unplace(int cell, byte side) {
+        hashToggle(cell, side);
+        stones--;
+        cells[cell] = EMPTY;
+    }
+
+    private void hashToggle(int cell, byte color) {
+        for (int s = 0; s < symmetries.length; s++) {
+            hashes[s] ^= zobrist[symmetries[s][cell] * 2 + color - 1];
+        }
+    }
+
+    private long canonicalHash() {
+        long min = hashes[0];
+        for (int s = 1; s < hashes.length; s++) if (hashes[s] < min) min = hashes[s];
+        return min;
+    }
+
+    private static byte other(byte side) {
+        return side == X ? O : X;
+    }
+
+    private static int[][] buildSymmetries(int rows, int cols) {
+        int n = rows * cols;
+        boolean square = rows == cols;
+        int count = square ? 8 : 4;
+        int[][] perms = new int[count][n];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int i = r * cols + c;
+                int rr = rows - 1 - r;
+                int cc = cols - 1 - c;
+                perms[0][i] = i;                 // Identität
+                perms[1][i] = r * cols + cc;     // horizontal gespiegelt
+                perms[2][i] = rr * cols + c;     // vertikal gespiegelt
+                perms[3][i] = rr * cols + cc;    // 180°
+                if (square) {
+                    perms[4][i] = c * cols + r;      // an Hauptdiagonale gespiegelt
+                    perms[5][i] = c * cols + rr;     // 90°
+                    perms[6][i] = cc * cols + r;     // 270°
+                    perms[7][i] = cc * cols + rr;    // an Nebendiagonale gespiegelt
+                }
+            }
+        }
+        return perms;
+    }
+
+    private static int[][] buildWindows(int rows, int cols, int k) {
+        int[][] dirs = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        int count = 0;
+        int[][] tmp = new int[rows * cols * 4][];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                for (int[] d : dirs) {
+                    int er = r + d[0] * (k - 1);
+                    int ec = c + d[1] * (k - 1);
+                    if (er < 0 || er >= rows || ec < 0 || ec >= cols) continue;
+                    int[] w = new int[k];
+                    for (int i = 0; i < k; i++) w[i] = (r + d[0] * i) * cols + (c + d[1] * i);
+                    tmp[count++] = w;
+                }
+            }
+        }
+        int[][] out = new int[count][];
+        System.arraycopy(tmp, 0, out, 0, count);
+        return out;
+    }
+}
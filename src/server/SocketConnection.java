@@ -0,0 +1,77 @@
+package server;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * Klassische Verbindung über einen blockierenden Socket (ein Thread pro Client). Gesendet wird über eine
+ * begrenzte OutboundQueue, die ein eigener virtueller Writer-Thread leert: mehrere wartende Zeilen gehen mit
+ * einem write/flush hinaus, und ein hängender Client blockiert nur seinen Writer, nie den Absender.
+ */
+public class SocketConnection implements Connection {
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final BufferedReader in;
+    private final OutboundQueue outbound = new OutboundQueue();
+
+    public SocketConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        this.out = socket.getOutputStream();
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), Protocol.CHARSET));
+        Thread.ofVirtual().name("ClientWriter").start(this::writeLoop);
+    }
+
+    public String readLine() throws IOException {
+        return in.readLine();
+    }
+
+    @Override
+    public void send(byte[] line) {
+        if (!outbound.offer(line)) {
+            System.out.println("[SocketConnection] Client zu langsam, Verbindung wird getrennt: "
+                    + socket.getRemoteSocketAddress());
+            // Socket schließen weckt den hängenden Writer und den Leser (der dann onDisconnect() auslöst)
+            closeSocket();
+        }
+    }
+
+    @Override
+    public int queued() {
+        return outbound.size();
+    }
+
+    @Override
+    public boolean awaitQueuedBelow(int lines) {
+        if (outbound.awaitBelow(lines)) return true;
+        closeSocket();
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // wie bisher sofort schließen; noch wartende Zeilen an einen gehenden Client sind ohne Belang
+        outbound.abort();
+        closeSocket();
+    }
+
+    private void writeLoop() {
+        ByteBuffer batch = null;
+        try {
+            while (outbound.awaitLines()) {
+                batch = outbound.drainTo(batch);
+                out.write(batch.array(), batch.position(), batch.remaining());
+                out.flush();
+            }
+        } catch (IOException | InterruptedException ignored) {
+        } finally {
+            outbound.abort();
+            closeSocket();
+        }
+    }
+
+    private void closeSocket() {
+        try { socket.close(); } catch (IOException ignored) {}
+    }
+}
@@ -1,44 +1,112 @@
 package server;
 
-public class TicTacToeGame {
+/**
+ * 3x3-Spielkern als Bitboard: jede Seite ist eine 9-Bit-Maske (Bit = row * 3 + col).
+ * Gewinn-Erkennung per vorberechneter 512er-Tabelle, der Status wird beim Zug aktualisiert,
+ * daher ist checkWinner() O(1) und alle Zugriffe außer snapshot() sind allokationsfrei.
+ */
+public class TicTacToeGame implements BoardGame {
 
-    private final char[][] board = new char[3][3];
+    public static final int FULL_MASK = 0x1FF;
+
+    // Reihen, Spalten, Diagonalen
+    private static final int[] LINES = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000,
+            0b001_001_001, 0b010_010_010, 0b100_100_100,
+            0b100_010_001, 0b001_010_100
+    };
+
+    // WIN[mask] == true, wenn die Maske mindestens eine Gewinnlinie enthält
+    private static final boolean[] WIN = new boolean[FULL_MASK + 1];
+
+    static {
+        for (int m = 0; m <= FULL_MASK; m++) {
+            for (int line : LINES) {
+                if ((m & line) == line) {
+                    WIN[m] = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    private int xMask;
+    private int oMask;
     private char currentPlayer = 'X';
+    private char winner = ' ';
 
+    @Override
     public boolean makeMove(int row, int col, char player) {
         if (row < 0 || row > 2 || col < 0 || col > 2) return false;
-        if (board[row][col] != '\0') return false;
+        int bit = 1 << (row * 3 + col);
+        if (((xMask | oMask) & bit) != 0) return false;
         if (player != currentPlayer) return false;
 
-        board[row][col] = player;
+        if (player == 'X') xMask |= bit;
+        else oMask |= bit;
         currentPlayer = (currentPlayer == 'X') ? 'O' : 'X';
+
+        if (winner == ' ') {
+            if (WIN[player == 'X' ? xMask : oMask]) winner = player;
+            else if ((xMask | oMask) == FULL_MASK) winner = 'D';
+        }
         return true;
     }
 
+    @Override
     public char getCurrentPlayer() {
         return currentPlayer;
     }
 
     // 'X'/'O' winner, 'D' draw, ' ' ongoing
+    @Override
     public char checkWinner() {
-        for (int r=0;r<3;r++) {
-            if (board[r][0] != '\0' && board[r][0]==board[r][1] && board[r][1]==board[r][2]) return board[r][0];
-        }
-        for (int c=0;c<3;c++) {
-            if (board[0][c] != '\0' && board[0][c]==board[1][c] && board[1][c]==board[2][c]) return board[0][c];
-        }
-        if (board[0][0] != '\0' && board[0][0]==board[1][1] && board[1][1]==board[2][2]) return board[0][0];
-        if (board[0][2] != '\0' && board[0][2]==board[1][1] && board[1][1]==board[2][0]) return board[0][2];
+        return winner;
+    }
+
+    public int getXMask() { return xMask; }
+    public int getOMask() { return oMask; }
+
+    @Override
+    public int getMoveCount() { return Integer.bitCount(xMask | oMask); }
+
+    @Override
+    public int getRows() { return 3; }
+
+    @Override
+    public int getCols() { return 3; }
+
+    @Override
+    public int getWinLength() { return 3; }
+
+    // 'X', 'O' oder '\0' (leer) – ohne Board-Kopie
+    @Override
+    public char getCell(int row, int col) {
+        int bit = 1 << (row * 3 + col);
+        if ((xMask & bit) != 0) return 'X';
+        if ((oMask & bit) != 0) return 'O';
+        return '\0';
+    }
+
+    @Override
+    public TicTacToeGame copy() {
+        TicTacToeGame g = new TicTacToeGame();
+        g.xMask = xMask;
+        g.oMask = oMask;
+        g.currentPlayer = currentPlayer;
+        g.winner = winner;
+        return g;
+    }
 
-        boolean full = true;
-        for (int r=0;r<3;r++) for (int c=0;c<3;c++) if (board[r][c] == '\0') full = false;
-        return full ? 'D' : ' ';
+    public static boolean isWin(int mask) {
+        return WIN[mask & FULL_MASK];
     }
 
+    // Kopie als char[3][3] (nur noch für Code, der ein Array braucht)
     public char[][] snapshot() {
         char[][] s = new char[3][3];
         for (int r=0;r<3;r++) {
-            System.arraycopy(board[r], 0, s[r], 0, 3);
+            for (int c=0;c<3;c++) s[r][c] = getCell(r, c);
         }
         return s;
     }
@@ -3,19 +3,41 @@ package server;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class TicTacToeServer {
 
     private final int port = 8088;
+    // HISTORY ohne limit: so viele Zeilen werden pro Schritt aus dem Store gelesen und gesendet (höchstens ein
+    // Viertel von -Dtictactoe.out.maxQueued, damit eine Seite samt Rest der vorigen sicher in die Queue passt)
+    private static final int HISTORY_CHUNK = Math.max(1, Math.min(256, OutboundQueue.maxLines() / 4));
 
     private final ScoreManager scoreManager = new ScoreManager();
     private final GameStore gameStore = new GameStore();
     private final MatchHistoryStore historyStore = new MatchHistoryStore();
+    // Spielergebnisse asynchron und gebündelt auf die Platte (Score-Log, History, Spielstände)
+    private final PersistencePipeline persistence = new PersistencePipeline(scoreManager, historyStore);
+
+    // Ein Timing Wheel für alle Matches (Zug-Timeouts, Bot-Verzögerung, Aufräumen)
+    private final TimerWheel timerWheel = new TimerWheel("MatchTimer", 10, TimeUnit.MILLISECONDS, 512,
+            Executors.newFixedThreadPool(Integer.getInteger("tictactoe.timer.workers", 4), r -> {
+                Thread t = new Thread(r, "MatchTimerWorker");
+                t.setDaemon(true);
+                return t;
+            }));
+
+    // Gemeinsamer Worker-Pool für alle Bot-Züge (begrenzt, Deadline-sortiert, abbrechbar)
+    private final BotPool botPool = new BotPool("BotWorker",
+            Integer.getInteger("tictactoe.bot.workers", Runtime.getRuntime().availableProcessors()),
+            Integer.getInteger("tictactoe.bot.queue", 1024));
 
     private final Set<ClientHandler> clients = ConcurrentHashMap.newKeySet();
     private final Map<String, Room> rooms = new ConcurrentHashMap<>();
@@ -28,65 +50,110 @@ public class TicTacToeServer {
     private final Map<String, Tournament> tournaments = new ConcurrentHashMap<>();
     private final AtomicInteger tournamentSeq = new AtomicInteger(1);
 
+    public TicTacToeServer() {
+        persistence.start();
+        Metrics.gauge("connections", clients::size);
+        Metrics.gauge("rooms", rooms::size);
+        Metrics.gauge("sessions", activeSessions::size);
+        Metrics.gauge("tournaments", tournaments::size);
+        Metrics.gauge("bots.queued", botPool::getQueueSize);
+        Metrics.gauge("persist.queued", persistence::getQueueSize);
+        Metrics.gauge("out.queued", OutboundQueue::totalQueued);
+        Metrics.gauge("out.maxDepth", OutboundQueue::maxDepth);
+    }
+
     public static void main(String[] args) {
         new TicTacToeServer().run();
     }
 
     private void run() {
+        // lokaler Metrik-Endpunkt für das Monitoring (-Dtictactoe.admin.port, 0 = aus)
+        AdminServer.startIfEnabled();
+
+        // Verbindungsmodell: "thread" (Standard, ein Thread pro Client), "nio" (Event-Loops) oder
+        // "virtual" (ein virtueller Thread pro Client)
+        String io = System.getProperty("tictactoe.server.io", "thread").trim().toLowerCase(Locale.ROOT);
+        if ("nio".equals(io)) {
+            runNio();
+        } else if ("virtual".equals(io)) {
+            runThreadPerClient(Executors.newVirtualThreadPerTaskExecutor(), " (virtuelle Threads)");
+        } else {
+            runThreadPerClient(r -> new Thread(r, "ClientHandler").start(), "");
+        }
+    }
+
+    private void runThreadPerClient(Executor handlerExecutor, String modeInfo) {
         try (ServerSocket serverSocket = new ServerSocket(port)) {
-            System.out.println("Server gestartet. Warte auf Spieler auf Port " + port + "...");
+            System.out.println("Server gestartet" + modeInfo + ". Warte auf Spieler auf Port " + port + "...");
 
             while (true) {
                 Socket socket = serverSocket.accept();
                 ClientHandler handler = new ClientHandler(socket, this);
-                clients.add(handler);
-                handler.start();
+                register(handler);
+                handlerExecutor.execute(handler);
             }
         } catch (IOException e) {
             System.out.println("[Server] Serverfehler: " + e.getMessage());
         }
     }
 
+    private void runNio() {
+        int loops = Integer.getInteger("tictactoe.nio.threads", Runtime.getRuntime().availableProcessors());
+        try {
+            new NioServer(this, port, loops).run();
+        } catch (IOException e) {
+            System.out.println("[Server] Serverfehler: " + e.getMessage());
+        }
+    }
+
+    void register(ClientHandler c) {
+        clients.add(c);
+    }
+
     // Rooms
     public void sendRoomsTo(ClientHandler who) {
-        who.sendMessage(Protocol.SRV_ROOMS + Protocol.SEPARATOR + buildRoomsPayload());
+        who.sendEncoded(encodeRooms());
     }
 
+    // einmal kodiert, dieselbe Zeile geht an alle Verbindungen
     public void broadcastRooms() {
-        String msg = Protocol.SRV_ROOMS + Protocol.SEPARATOR + buildRoomsPayload();
-        for (ClientHandler c : clients) c.sendMessage(msg);
+        byte[] line = encodeRooms();
+        for (ClientHandler c : clients) c.sendEncoded(line);
     }
 
-    private String buildRoomsPayload() {
-        StringBuilder sb = new StringBuilder();
+    // ROOMS;id|name|host|mode|timer|status|variant,...
+    private byte[] encodeRooms() {
+        MessageEncoder sb = MessageEncoder.local().begin(Protocol.SRV_ROOMS).separator();
         boolean first = true;
         // Offene Räume (wartend)
         for (Room r : rooms.values()) {
-            if (!first) sb.append(",");
+            if (!first) sb.append(',');
             first = false;
-            sb.append(r.id).append("|")
-                    .append(r.name).append("|")
-                    .append(safe(r.host.getPlayerName())).append("|")
-                    .append(r.mode).append("|")
-                    .append(r.timerSec).append("|")
-                    .append("WAITING");
+            sb.append(r.id).append('|')
+                    .append(r.name).append('|')
+                    .append(safe(r.host.getPlayerName())).append('|')
+                    .append(r.mode).append('|')
+                    .append(r.timerSec).append('|')
+                    .append("WAITING").append('|')
+                    .append(r.variant.toString());
         }
         // Laufende Sessions (spectatable)
         for (Map.Entry<String, MatchSession> e : activeSessions.entrySet()) {
-            if (!first) sb.append(",");
+            if (!first) sb.append(',');
             first = false;
             MatchSession s = e.getValue();
             String px = s.getPlayerX().getPlayerName();
             ClientHandler po = s.getPlayerO();
             String poName = po != null ? po.getPlayerName() : "BOT";
-            sb.append(e.getKey()).append("|")
-                    .append(px + " vs " + poName).append("|")
-                    .append(px).append("|")
-                    .append("HUMAN").append("|")
-                    .append("0").append("|")
-                    .append("INGAME");
+            sb.append(e.getKey()).append('|')
+                    .append(px).append(" vs ").append(poName).append('|')
+                    .append(px).append('|')
+                    .append("HUMAN").append('|')
+                    .append('0').append('|')
+                    .append("INGAME").append('|')
+                    .append(s.getVariant().toString());
         }
-        return sb.toString();
+        return sb.toLine();
     }
 
     public void hostRoom(ClientHandler host, String roomName) {
@@ -105,6 +172,7 @@ public class TicTacToeServer {
         r.host = host;
         r.mode = host.getMode();
         r.timerSec = host.getTimerSec();
+        r.variant = host.getVariant();
 
         rooms.put(id, r);
 
@@ -116,7 +184,7 @@ public class TicTacToeServer {
         if ("BOT".equalsIgnoreCase(r.mode)) {
             rooms.remove(id);
             broadcastRooms();
-            startBotMatch(host, r.timerSec);
+            startBotMatch(host, r.timerSec, host.getBotLevel(), r.variant);
         }
     }
 
@@ -134,7 +202,7 @@ public class TicTacToeServer {
         rooms.remove(roomId);
         broadcastRooms();
 
-        startMatch(r.host, guest, r.mode, r.timerSec);
+        startMatch(r.host, guest, r.mode, r.timerSec, r.variant);
     }
 
     // Spectator
@@ -148,19 +216,21 @@ public class TicTacToeServer {
         session.addSpectator(spectator);
     }
 
-    public void startMatch(ClientHandler pX, ClientHandler pO, String mode, int timerSec) {
+    public void startMatch(ClientHandler pX, ClientHandler pO, String mode, int timerSec, GameVariant variant) {
         String sessionId = UUID.randomUUID().toString().substring(0, 8);
 
         pX.sendMessage(Protocol.SRV_START + Protocol.SEPARATOR + sessionId + Protocol.SEPARATOR + "X" +
-                Protocol.SEPARATOR + safe(pO.getPlayerName()) + Protocol.SEPARATOR + mode + Protocol.SEPARATOR + timerSec);
+                Protocol.SEPARATOR + safe(pO.getPlayerName()) + Protocol.SEPARATOR + mode + Protocol.SEPARATOR + timerSec +
+                Protocol.SEPARATOR + variant);
 
         pO.sendMessage(Protocol.SRV_START + Protocol.SEPARATOR + sessionId + Protocol.SEPARATOR + "O" +
-                Protocol.SEPARATOR + safe(pX.getPlayerName()) + Protocol.SEPARATOR + mode + Protocol.SEPARATOR + timerSec);
+                Protocol.SEPARATOR + safe(pX.getPlayerName()) + Protocol.SEPARATOR + mode + Protocol.SEPARATOR + timerSec +
+                Protocol.SEPARATOR + variant);
 
         pX.sendMessage(Protocol.SRV_WELCOME + Protocol.SEPARATOR + "X");
         pO.sendMessage(Protocol.SRV_WELCOME + Protocol.SEPARATOR + "O");
 
-        MatchSession session = new MatchSession(this, scoreManager, gameStore, historyStore, pX, pO, mode, timerSec, sessionId);
+        MatchSession session = new MatchSession(this, scoreManager, gameStore, pX, pO, mode, timerSec, sessionId, variant);
         pX.setSession(session, 'X', pO);
         pO.setSession(session, 'O', pX);
 
@@ -170,14 +240,16 @@ public class TicTacToeServer {
         session.start();
     }
 
-    public void startBotMatch(ClientHandler human, int timerSec) {
+    public void startBotMatch(ClientHandler human, int timerSec, String botLevel, GameVariant variant) {
         String sessionId = UUID.randomUUID().toString().substring(0, 8);
 
         human.sendMessage(Protocol.SRV_START + Protocol.SEPARATOR + sessionId + Protocol.SEPARATOR + "X" +
-                Protocol.SEPARATOR + "BOT" + Protocol.SEPARATOR + "BOT" + Protocol.SEPARATOR + timerSec);
+                Protocol.SEPARATOR + "BOT" + Protocol.SEPARATOR + "BOT" + Protocol.SEPARATOR + timerSec +
+                Protocol.SEPARATOR + variant);
         human.sendMessage(Protocol.SRV_WELCOME + Protocol.SEPARATOR + "X");
 
-        MatchSession session = new MatchSession(this, scoreManager, gameStore, historyStore, human, null, "BOT", timerSec, sessionId);
+        MatchSession session = new MatchSession(this, scoreManager, gameStore, human, null, "BOT", timerSec, sessionId, variant);
+        session.setBotPlayer(BotPlayer.forLevel(botLevel, variant, timerSec));
         human.setSession(session, 'X', null);
 
         activeSessions.put(sessionId, session);
@@ -187,11 +259,11 @@ public class TicTacToeServer {
     }
 
     // Rematch sides swapped (old O starts)
-    public void startRematchSwapped(ClientHandler a, ClientHandler b) {
+    public void startRematchSwapped(ClientHandler a, ClientHandler b, GameVariant variant) {
         if (a == null || b == null) return;
         ClientHandler oldX = (a.getSymbol() == 'X') ? a : b;
         ClientHandler oldO = (oldX == a) ? b : a;
-        startMatch(oldO, oldX, oldX.getMode(), oldX.getTimerSec());
+        startMatch(oldO, oldX, oldX.getMode(), oldX.getTimerSec(), variant);
     }
 
     public void removeActiveSession(String sessionId) {
@@ -205,13 +277,39 @@ public class TicTacToeServer {
         who.sendMessage(Protocol.SRV_SCOREBOARD + Protocol.SEPARATOR + scoreManager.getScoreboardPayload());
     }
 
+    public void sendScorePageTo(ClientHandler who, int offset, int limit) {
+        who.sendMessage(Protocol.SRV_SCORE_PAGE + Protocol.SEPARATOR + scoreManager.getPagePayload(Math.max(0, offset), limit));
+    }
+
+    public void sendScoreRankTo(ClientHandler who, String name) {
+        who.sendMessage(Protocol.SRV_SCORE_RANK + Protocol.SEPARATOR + scoreManager.getRankPayload(name));
+    }
+
+    public void sendScoresAroundTo(ClientHandler who, String name, int radius) {
+        who.sendMessage(Protocol.SRV_SCORE_PAGE + Protocol.SEPARATOR + scoreManager.getAroundPayload(name, radius));
+    }
+
+    // Zeilen werden seitenweise direkt aus dem Store gesendet, ohne das Ergebnis im Speicher zu sammeln; vor jeder
+    // Seite wird gewartet, bis der Client die vorige weitgehend abgeholt hat (sonst greift das Limit der OutboundQueue)
     public void sendHistoryTo(ClientHandler who, String playerFilter, String from, String to) {
-        for (String line : historyStore.query(playerFilter, from, to)) {
-            who.sendMessage(Protocol.SRV_HISTORY_LINE + Protocol.SEPARATOR + line);
+        long cursor = 0;
+        while (cursor >= 0) {
+            if (!who.awaitOutbound(HISTORY_CHUNK)) return;
+            cursor = historyStore.page(playerFilter, from, to, cursor, HISTORY_CHUNK, false,
+                    line -> who.sendMessage(Protocol.SRV_HISTORY_LINE + Protocol.SEPARATOR + line));
         }
         who.sendMessage(Protocol.SRV_HISTORY_END);
     }
 
+    // eine Seite, neueste zuerst; cursor < 0 = ab der neuesten Partie
+    public void sendHistoryPageTo(ClientHandler who, String playerFilter, String from, String to, int limit, long cursor) {
+        if (!who.awaitOutbound(HISTORY_CHUNK)) return;
+        limit = Math.min(limit, 2 * HISTORY_CHUNK); // Client blättert mit dem gelieferten Cursor weiter
+        long next = historyStore.page(playerFilter, from, to, cursor, limit, true,
+                line -> who.sendMessage(Protocol.SRV_HISTORY_LINE + Protocol.SEPARATOR + line));
+        who.sendMessage(Protocol.SRV_HISTORY_END + Protocol.SEPARATOR + (next < 0 ? "" : String.valueOf(next)));
+    }
+
     // ---- Tournament ----
     public void hostTournament(ClientHandler host, String name, int maxPlayers) {
         String id = "T" + tournamentSeq.getAndIncrement();
@@ -247,28 +345,29 @@ public class TicTacToeServer {
     }
 
     public void sendTournamentsTo(ClientHandler who) {
-        who.sendMessage(Protocol.SRV_TOURNAMENTS + Protocol.SEPARATOR + buildTournamentsPayload());
+        who.sendEncoded(encodeTournaments());
     }
 
     public void broadcastTournaments() {
-        String msg = Protocol.SRV_TOURNAMENTS + Protocol.SEPARATOR + buildTournamentsPayload();
-        for (ClientHandler c : clients) c.sendMessage(msg);
+        byte[] line = encodeTournaments();
+        for (ClientHandler c : clients) c.sendEncoded(line);
     }
 
-    private String buildTournamentsPayload() {
-        StringBuilder sb = new StringBuilder();
+    // TROOMS;id|name|host|max|current|status,...
+    private byte[] encodeTournaments() {
+        MessageEncoder sb = MessageEncoder.local().begin(Protocol.SRV_TOURNAMENTS).separator();
         boolean first = true;
         for (Tournament t : tournaments.values()) {
-            if (!first) sb.append(",");
+            if (!first) sb.append(',');
             first = false;
-            sb.append(t.getId()).append("|")
-                    .append(t.getName()).append("|")
-                    .append(safe(t.getHost().getPlayerName())).append("|")
-                    .append(t.getMaxPlayers()).append("|")
-                    .append(t.getCurrentPlayerCount()).append("|")
+            sb.append(t.getId()).append('|')
+                    .append(t.getName()).append('|')
+                    .append(safe(t.getHost().getPlayerName())).append('|')
+                    .append(t.getMaxPlayers()).append('|')
+                    .append(t.getCurrentPlayerCount()).append('|')
                     .append(t.isStarted() ? "RUNNING" : "WAITING");
         }
-        return sb.toString();
+        return sb.toLine();
     }
 
     public void removeTournament(String id) {
@@ -279,6 +378,9 @@ public class TicTacToeServer {
     public ScoreManager getScoreManager() { return scoreManager; }
     public GameStore getGameStore() { return gameStore; }
     public MatchHistoryStore getHistoryStore() { return historyStore; }
+    public TimerWheel getTimerWheel() { return timerWheel; }
+    public BotPool getBotPool() { return botPool; }
+    public PersistencePipeline getPersistence() { return persistence; }
 
     public void unregister(ClientHandler c) {
         clients.remove(c);
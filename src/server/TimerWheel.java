@@ -0,0 +1,194 @@
+package server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-weites Hashed Timing Wheel für alle Match-Timer (Zug-Timeout, Bot-Verzögerung,
+ * Spectator-Snapshot, Aufräumen). Ersetzt den eigenen Scheduler-Thread pro MatchSession.
+ * schedule() und cancel() sind O(1): neue/abgebrochene Timer landen in lock-freien Queues
+ * und werden vom Tick-Thread in die Buckets übernommen bzw. ausgehängt.
+ * Fällige Aufgaben laufen auf dem übergebenen Executor, damit langsame Tasks den Tick nicht bremsen.
+ */
+public class TimerWheel {
+
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    // maximal so viele neue Timer pro Tick übernehmen, damit ein Schwall den Tick nicht blockiert
+    private static final int MAX_TRANSFER_PER_TICK = 100_000;
+
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadline; // Nanos relativ zu startTime
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+        // nur vom Tick-Thread verwendet
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        // true, wenn der Timer dadurch verhindert wurde (noch nicht gelaufen)
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) return false;
+            cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() { return state.get() == ST_CANCELLED; }
+        public boolean isExpired() { return state.get() == ST_EXPIRED; }
+    }
+
+    // doppelt verkettete Liste, damit cancel() in O(1) aushängen kann
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout t) {
+            t.bucket = this;
+            if (head == null) {
+                head = tail = t;
+            } else {
+                tail.next = t;
+                t.prev = tail;
+                tail = t;
+            }
+        }
+
+        Timeout remove(Timeout t) {
+            Timeout next = t.next;
+            if (t.prev != null) t.prev.next = next;
+            if (t.next != null) t.next.prev = t.prev;
+            if (t == head) head = next;
+            if (t == tail) tail = t.prev;
+            t.prev = null;
+            t.next = null;
+            t.bucket = null;
+            return next;
+        }
+    }
+
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long tickNanos;
+    private final Executor executor;
+
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final long startTime;
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick; // nur Tick-Thread
+
+    public TimerWheel(String name, long tickDuration, TimeUnit unit, int ticksPerWheel, Executor executor) {
+        int size = Integer.highestOneBit(Math.max(2, ticksPerWheel - 1)) << 1; // nächste Zweierpotenz
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), unit.toNanos(tickDuration));
+        this.executor = executor;
+
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::runWorker, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(0, delay)) - startTime;
+        Timeout t = new Timeout(task, deadline);
+        pending.add(t);
+        return t;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void runWorker() {
+        while (running) {
+            long tickDeadline = tickNanos * (tick + 1);
+            if (!sleepUntil(tickDeadline)) continue;
+
+            processCancelled();
+            transferPending();
+            expire(wheel[(int) (tick & mask)], tickDeadline);
+            tick++;
+        }
+    }
+
+    private boolean sleepUntil(long tickDeadline) {
+        while (true) {
+            long sleepNanos = tickDeadline - (System.nanoTime() - startTime);
+            if (sleepNanos <= 0) return true;
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (!running) return false;
+            }
+        }
+    }
+
+    private void processCancelled() {
+        Timeout t;
+        while ((t = cancelled.poll()) != null) {
+            if (t.bucket != null) t.bucket.remove(t);
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+            Timeout t = pending.poll();
+            if (t == null) return;
+            if (t.state.get() != ST_INIT) continue;
+
+            long calculated = t.deadline / tickNanos;
+            t.remainingRounds = (calculated - tick) / wheel.length;
+            // bereits überfällige Timer im aktuellen Tick ausführen
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(t);
+        }
+    }
+
+    private void expire(Bucket bucket, long tickDeadline) {
+        Timeout t = bucket.head;
+        while (t != null) {
+            if (t.remainingRounds <= 0 && t.deadline <= tickDeadline) {
+                Timeout next = bucket.remove(t);
+                if (t.state.compareAndSet(ST_INIT, ST_EXPIRED)) run(t);
+                t = next;
+            } else if (t.isCancelled()) {
+                t = bucket.remove(t);
+            } else {
+                t.remainingRounds--;
+                t = t.next;
+            }
+        }
+    }
+
+    private void run(Timeout t) {
+        try {
+            executor.execute(() -> {
+                try {
+                    t.task.run();
+                } catch (Exception e) {
+                    System.out.println("[TimerWheel] Fehler in Timer-Task: " + e.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            System.out.println("[TimerWheel] Timer-Task konnte nicht gestartet werden: " + e.getMessage());
+        }
+    }
+}
@@ -2,6 +2,8 @@ package server;
 
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * K.O.-Turnier: Verwaltet Spieler, erzeugt Runden-Matches und leitet Gewinner weiter.
@@ -27,6 +29,9 @@ public class Tournament {
     private int matchesCompleted = 0;
     private final List<MatchSession> currentRoundSessions = new CopyOnWriteArrayList<>();
 
+    // schützt den Runden-Zustand in onMatchFinished (kein Monitor wegen virtueller Threads)
+    private final ReentrantLock lock = new ReentrantLock();
+
     public Tournament(String id, String name, ClientHandler host, int maxPlayers, TicTacToeServer server) {
         this.id = id;
         this.name = name;
@@ -131,7 +136,7 @@ public class Tournament {
             String sessionId = UUID.randomUUID().toString().substring(0, 8);
 
             MatchSession session = new MatchSession(
-                    server, server.getScoreManager(), server.getGameStore(), server.getHistoryStore(),
+                    server, server.getScoreManager(), server.getGameStore(),
                     pX, pO, "HUMAN", 15, sessionId
             );
             currentRoundSessions.add(session);
@@ -163,56 +168,58 @@ public class Tournament {
         }
     }
 
-    private synchronized void onMatchFinished(MatchSession session, char winnerSymbol, int matchIndex) {
-        ClientHandler winner;
-        ClientHandler loser;
-        if (winnerSymbol == 'X') {
-            winner = session.getPlayerX();
-            loser = session.getPlayerO();
-        } else if (winnerSymbol == 'O') {
-            winner = session.getPlayerO();
-            loser = session.getPlayerX();
-        } else {
-            // Unentschieden: X bekommt den Vorteil weiter
-            winner = session.getPlayerX();
-            loser = session.getPlayerO();
-        }
+    private void onMatchFinished(MatchSession session, char winnerSymbol, int matchIndex) {
+        lock.lock();
+        try {
+            ClientHandler winner;
+            ClientHandler loser;
+            if (winnerSymbol == 'X') {
+                winner = session.getPlayerX();
+                loser = session.getPlayerO();
+            } else if (winnerSymbol == 'O') {
+                winner = session.getPlayerO();
+                loser = session.getPlayerX();
+            } else {
+                // Unentschieden: X bekommt den Vorteil weiter
+                winner = session.getPlayerX();
+                loser = session.getPlayerO();
+            }
 
-        roundWinners.add(winner);
-        eliminatedPlayers.add(loser);
-        matchesCompleted++;
+            roundWinners.add(winner);
+            eliminatedPlayers.add(loser);
+            matchesCompleted++;
 
-        broadcastToPlayers(Protocol.SRV_TOURNAMENT_RESULT + Protocol.SEPARATOR
-                + currentRound + Protocol.SEPARATOR + matchIndex + Protocol.SEPARATOR + winner.getPlayerName());
+            broadcastToPlayers(Protocol.SRV_TOURNAMENT_RESULT + Protocol.SEPARATOR
+                    + currentRound + Protocol.SEPARATOR + matchIndex + Protocol.SEPARATOR + winner.getPlayerName());
 
-        if (matchesCompleted >= matchesInRound) {
-            // Runde beendet
-            if (roundWinners.size() == 1) {
-                // Turnier-Sieger! -> Turnier-Sieg im Scoreboard vermerken
-                server.getScoreManager().recordTournamentWin(winner.getPlayerName());
-                broadcastToPlayers(Protocol.SRV_TOURNAMENT_OVER + Protocol.SEPARATOR + winner.getPlayerName());
-                server.removeTournament(id);
-            } else {
-                // Nächste Runde
-                currentRound++;
-                currentRoundPlayers = new ArrayList<>(roundWinners);
-
-                // Freilos bei ungerader Anzahl
-                if (currentRoundPlayers.size() % 2 != 0) {
-                    ClientHandler bye = currentRoundPlayers.remove(currentRoundPlayers.size() - 1);
-                    roundWinners.clear();
-                    roundWinners.add(bye);
-                    bye.sendMessage(Protocol.SRV_TOURNAMENT_MSG + Protocol.SEPARATOR + "Freilos in Runde " + currentRound + "!");
+            if (matchesCompleted >= matchesInRound) {
+                // Runde beendet
+                if (roundWinners.size() == 1) {
+                    // Turnier-Sieger! -> Turnier-Sieg im Scoreboard vermerken
+                    server.getScoreManager().recordTournamentWin(winner.getPlayerName());
+                    broadcastToPlayers(Protocol.SRV_TOURNAMENT_OVER + Protocol.SEPARATOR + winner.getPlayerName());
+                    server.removeTournament(id);
                 } else {
-                    roundWinners.clear();
+                    // Nächste Runde
+                    currentRound++;
+                    currentRoundPlayers = new ArrayList<>(roundWinners);
+
+                    // Freilos bei ungerader Anzahl
+                    if (currentRoundPlayers.size() % 2 != 0) {
+                        ClientHandler bye = currentRoundPlayers.remove(currentRoundPlayers.size() - 1);
+                        roundWinners.clear();
+                        roundWinners.add(bye);
+                        bye.sendMessage(Protocol.SRV_TOURNAMENT_MSG + Protocol.SEPARATOR + "Freilos in Runde " + currentRound + "!");
+                    } else {
+                        roundWinners.clear();
+                    }
+
+                    // Kleine Pause bevor die nächste Runde startet
+                    server.getTimerWheel().schedule(this::startNextRoundMatches, 2, TimeUnit.SECONDS);
                 }
-
-                // Kleine Pause bevor die nächste Runde startet
-                new Thread(() -> {
-                    try { Thread.sleep(2000); } catch (InterruptedException ignored) {}
-                    startNextRoundMatches();
-                }).start();
             }
+        } finally {
+            lock.unlock();
         }
     }
 